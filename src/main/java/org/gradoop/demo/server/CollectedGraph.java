@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server;
+
+import org.gradoop.demo.server.cache.CachedGraph;
+import org.gradoop.demo.server.engine.ParallelEdges;
+import org.gradoop.demo.server.execution.CollectedDataSet;
+import org.gradoop.temporal.model.impl.TemporalGraph;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
+import org.gradoop.temporal.model.impl.pojo.TemporalGraphHead;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+
+/**
+ * The collected elements of a temporal graph computed by a job. Creating an instance adds the sinks of the
+ * graph to the plan of its execution environment, the elements are available once the plan is executed.
+ * Several graphs of the same environment are computed by a single execution. Graphs computed in memory are
+ * wrapped as well, so both kinds of results are rendered alike.
+ */
+class CollectedGraph {
+
+  /**
+   * The collected graph heads.
+   */
+  private final CollectedDataSet<TemporalGraphHead> graphHeads;
+
+  /**
+   * The collected vertices.
+   */
+  private final CollectedDataSet<TemporalVertex> vertices;
+
+  /**
+   * The collected edges.
+   */
+  private final CollectedDataSet<TemporalEdge> edges;
+
+  /**
+   * The graph computed in memory, {@code null} if the graph is computed by a job.
+   */
+  private final CachedGraph computedGraph;
+
+  /**
+   * How parallel edges are rendered.
+   */
+  private final ParallelEdges parallelEdges;
+
+  /**
+   * Adds the sinks collecting the elements of the graph to the plan.
+   *
+   * @param graph the graph to collect
+   */
+  CollectedGraph(TemporalGraph graph) {
+    this(graph, ParallelEdges.KEEP);
+  }
+
+  /**
+   * Adds the sinks collecting the elements of the graph to the plan.
+   *
+   * @param graph the graph to collect
+   * @param parallelEdges how parallel edges are rendered
+   */
+  CollectedGraph(TemporalGraph graph, ParallelEdges parallelEdges) {
+    graphHeads = new CollectedDataSet<>(graph.getGraphHead());
+    vertices = new CollectedDataSet<>(graph.getVertices());
+    edges = new CollectedDataSet<>(graph.getEdges());
+    computedGraph = null;
+    this.parallelEdges = parallelEdges;
+  }
+
+  /**
+   * Wraps a graph already computed in memory.
+   *
+   * @param graph the computed graph
+   */
+  CollectedGraph(CachedGraph graph) {
+    this(graph, ParallelEdges.KEEP);
+  }
+
+  /**
+   * Wraps a graph already computed in memory.
+   *
+   * @param graph the computed graph
+   * @param parallelEdges how parallel edges are rendered
+   */
+  CollectedGraph(CachedGraph graph, ParallelEdges parallelEdges) {
+    graphHeads = null;
+    vertices = null;
+    edges = null;
+    computedGraph = graph;
+    this.parallelEdges = parallelEdges;
+  }
+
+  /**
+   * Checks whether the plan has to be executed before the graph can be rendered.
+   *
+   * @return {@code true} if the graph is computed by a job
+   */
+  boolean requiresExecution() {
+    return computedGraph == null;
+  }
+
+  /**
+   * Creates a streaming entity writing the eCharts representation of the collected graph. Must not be called
+   * before the plan is executed.
+   *
+   * @return the eCharts representation of the graph
+   * @throws IOException if reading the collected elements fails
+   */
+  StreamingOutput toJSON() throws IOException {
+    if (computedGraph != null) {
+      return EChartsJSONBuilder.getJSONStream(computedGraph.getGraphHeads(), computedGraph.getVertices(),
+        parallelEdges.apply(computedGraph.getEdges()));
+    }
+    return EChartsJSONBuilder.getJSONStream(graphHeads.get(), vertices.get(), parallelEdges.apply(edges.get()));
+  }
+}
@@ -15,27 +15,35 @@
  */
 package org.gradoop.demo.server;
 
-import org.codehaus.jettison.json.JSONArray;
-import org.codehaus.jettison.json.JSONException;
-import org.codehaus.jettison.json.JSONObject;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
 import org.gradoop.common.model.api.entities.GraphElement;
+import org.gradoop.common.model.impl.properties.Properties;
 import org.gradoop.common.model.impl.properties.Property;
+import org.gradoop.demo.server.index.SnapshotSequence;
+import org.gradoop.demo.server.index.SpatialIndex;
 import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
 import org.gradoop.temporal.model.impl.pojo.TemporalElement;
 import org.gradoop.temporal.model.impl.pojo.TemporalGraphHead;
 import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
 
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Converts a logical graph or a read JSON into a eCharts-conform JSON.
+ * Converts a logical graph into a eCharts-conform JSON. The JSON is written element by element to an
+ * output stream, so no intermediate document is held in memory.
  */
 public class EChartsJSONBuilder {
   /**
@@ -82,200 +90,398 @@ public class EChartsJSONBuilder {
    * Key for vertex identifiers at graphs.
    */
   private static final String EDGE_KEYS = "edge_keys";
+  /**
+   * Key for the initial snapshot of an animation.
+   */
+  private static final String INITIAL = "initial";
+  /**
+   * Key for the steps of an animation.
+   */
+  private static final String STEPS = "steps";
+  /**
+   * Key for the point in time of an animation step.
+   */
+  private static final String TIME = "time";
+  /**
+   * Key for the identifiers of the vertices removed by an animation step.
+   */
+  private static final String REMOVED_VERTICES = "removed_nodes";
+  /**
+   * Key for the identifiers of the edges removed by an animation step.
+   */
+  private static final String REMOVED_EDGES = "removed_edges";
+
+  /**
+   * The factory of the JSON generators.
+   */
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
   /**
    * A color map for label colors.
    */
-  private static final HashMap<String, String> LABEL_COLOR_MAP = new HashMap<>();
+  private static final Map<String, String> LABEL_COLOR_MAP = new ConcurrentHashMap<>();
+
+  /**
+   * Takes a logical graph and creates a streaming entity that writes its eCharts-conform JSON. The entity may
+   * be written several times, e.g., into the result cache and to a response.
+   *
+   * @param graphHeads the graph heads
+   * @param vertices  the vertices
+   * @param edges     the edges
+   * @return a streaming entity writing the eCharts-conform JSON
+   */
+  static StreamingOutput getJSONStream(
+    List<TemporalGraphHead> graphHeads,
+    List<TemporalVertex> vertices,
+    List<TemporalEdge> edges) {
+    return output -> writeJSON(output, graphHeads, vertices, edges);
+  }
+
+  /**
+   * Takes a logical graph and writes it as eCharts-conform JSON to the given output stream.
+   *
+   * @param output the stream to write to, it is not closed by this method
+   * @param graphHeads the graph heads
+   * @param vertices  the vertices
+   * @param edges     the edges
+   * @throws IOException if writing to the stream fails
+   */
+  static void writeJSON(
+    OutputStream output,
+    List<TemporalGraphHead> graphHeads,
+    List<TemporalVertex> vertices,
+    List<TemporalEdge> edges) throws IOException {
+
+    JsonGenerator generator = JSON_FACTORY.createJsonGenerator(output, JsonEncoding.UTF8);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    writeGraph(generator, graphHeads, vertices, edges, getFormatter());
+    generator.flush();
+  }
+
+  /**
+   * Takes the snapshots of a graph at evenly spaced points in time and creates a streaming entity that writes
+   * them as a JSON object with the eCharts-conform {@code initial} snapshot and the array of {@code steps}.
+   * Each step contains its {@code time}, the added {@code nodes} and {@code edges} in eCharts-conform format
+   * and the identifiers of the {@code removed_nodes} and {@code removed_edges}.
+   *
+   * @param graphHeads the graph heads
+   * @param vertices the snapshots of the vertices
+   * @param edges the snapshots of the edges, at the same points in time as the vertices
+   * @return a streaming entity writing the JSON
+   */
+  static StreamingOutput getAnimationJSONStream(
+    List<TemporalGraphHead> graphHeads,
+    SnapshotSequence<TemporalVertex> vertices,
+    SnapshotSequence<TemporalEdge> edges) {
+    return output -> writeAnimationJSON(output, graphHeads, vertices, edges);
+  }
+
+  /**
+   * Takes the snapshots of a graph at evenly spaced points in time and writes them as JSON to the given output
+   * stream, see {@link #getAnimationJSONStream(List, SnapshotSequence, SnapshotSequence)}.
+   *
+   * @param output the stream to write to, it is not closed by this method
+   * @param graphHeads the graph heads
+   * @param vertices the snapshots of the vertices
+   * @param edges the snapshots of the edges, at the same points in time as the vertices
+   * @throws IOException if writing to the stream fails
+   */
+  private static void writeAnimationJSON(
+    OutputStream output,
+    List<TemporalGraphHead> graphHeads,
+    SnapshotSequence<TemporalVertex> vertices,
+    SnapshotSequence<TemporalEdge> edges) throws IOException {
+    JsonGenerator generator = JSON_FACTORY.createJsonGenerator(output, JsonEncoding.UTF8);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    DateFormat formatter = getFormatter();
+
+    generator.writeStartObject();
+    generator.writeFieldName(INITIAL);
+    writeGraph(generator, graphHeads, vertices.getInitial(), edges.getInitial(), formatter);
+
+    generator.writeArrayFieldStart(STEPS);
+    for (int step = 1; step <= vertices.getSteps(); step++) {
+      generator.writeStartObject();
+      generator.writeStringField(TIME, formatter.format(new Date(vertices.getTime(step))));
+      generator.writeArrayFieldStart(VERTICES);
+      for (TemporalVertex vertex : vertices.getAdded(step)) {
+        writeVertex(generator, vertex, getCoordinates(vertex), formatter);
+      }
+      generator.writeEndArray();
+      generator.writeArrayFieldStart(EDGES);
+      for (TemporalEdge edge : edges.getAdded(step)) {
+        writeEdge(generator, edge, formatter);
+      }
+      generator.writeEndArray();
+      writeIdentifierArray(generator, REMOVED_VERTICES, vertices.getRemoved(step));
+      writeIdentifierArray(generator, REMOVED_EDGES, edges.getRemoved(step));
+      generator.writeEndObject();
+    }
+    generator.writeEndArray();
+
+    generator.writeEndObject();
+    generator.flush();
+  }
+
+  /**
+   * Returns the formatter of the temporal attributes.
+   *
+   * @return a formatter of UTC timestamps
+   */
+  private static DateFormat getFormatter() {
+    DateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+    return formatter;
+  }
 
   /**
-   * Takes a logical graph and converts it into a eCharts-conform JSON.
+   * Write a JSON object representing a logical graph in eCharts-conform format.
    *
+   * @param generator the generator to write to
    * @param graphHeads the graph heads
    * @param vertices  the vertices
    * @param edges     the edges
-   * @return a eCharts-conform JSON
-   * @throws JSONException if the creation of the JSON fails
+   * @param formatter the formatter of the temporal attributes
+   * @throws IOException if writing fails
    */
-  static String getJSONString(
+  private static void writeGraph(
+    JsonGenerator generator,
     List<TemporalGraphHead> graphHeads,
     List<TemporalVertex> vertices,
-    List<TemporalEdge> edges) throws JSONException {
+    List<TemporalEdge> edges,
+    DateFormat formatter) throws IOException {
 
-    JSONObject returnedJSON = new JSONObject();
-    HashSet<String> uniqueVertexPropertyKeys = new HashSet<>();
-    HashSet<String> uniqueEdgePropertyKeys = new HashSet<>();
+    Set<String> uniqueVertexPropertyKeys = new HashSet<>();
+    Set<String> uniqueEdgePropertyKeys = new HashSet<>();
 
     boolean hasSpatialVertexProperties = !vertices.isEmpty();
 
-    List<JSONObject> graphObjects = graphHeads.stream().map(EChartsJSONBuilder::getGraphHeadObject)
-      .collect(Collectors.toList());
+    generator.writeStartObject();
 
-    returnedJSON.put(GRAPHS, graphObjects);
+    generator.writeArrayFieldStart(GRAPHS);
+    for (TemporalGraphHead graphHead : graphHeads) {
+      writeGraphHead(generator, graphHead, formatter);
+    }
+    generator.writeEndArray();
 
-    JSONArray vertexArray = new JSONArray();
+    generator.writeArrayFieldStart(VERTICES);
     for (TemporalVertex vertex : vertices) {
-      JSONObject vertexObject = getVertexObject(vertex);
-      vertexArray.put(vertexObject);
-
-      hasSpatialVertexProperties = hasSpatialVertexProperties && vertexObject.has("value") &&
-        vertexObject.getJSONArray("value").getDouble(0) != 0. &&
-        vertexObject.getJSONArray("value").getDouble(1) != 0.;
-
-      if (vertex.getProperties() != null) {
-        vertex.getProperties().forEach((prop) -> {
-          if (prop.getValue().isNumber()) {
-            uniqueVertexPropertyKeys.add(prop.getKey());
-          }
-        });
-      }
+      double[] coordinates = getCoordinates(vertex);
+      writeVertex(generator, vertex, coordinates, formatter);
+
+      hasSpatialVertexProperties = hasSpatialVertexProperties &&
+        !Double.isNaN(coordinates[0]) && !Double.isNaN(coordinates[1]);
+
+      collectNumericalKeys(vertex.getProperties(), uniqueVertexPropertyKeys);
     }
-    returnedJSON.put(VERTICES, vertexArray);
-    returnedJSON.put(VERTEX_KEYS, new JSONArray(uniqueVertexPropertyKeys));
+    generator.writeEndArray();
+    writeStringArray(generator, VERTEX_KEYS, uniqueVertexPropertyKeys);
 
-    returnedJSON.put(TYPE, hasSpatialVertexProperties ? "spatialGraph" : "graph");
+    generator.writeStringField(TYPE, hasSpatialVertexProperties ? "spatialGraph" : "graph");
 
-    JSONArray edgeArray = new JSONArray();
+    generator.writeArrayFieldStart(EDGES);
     for (TemporalEdge edge : edges) {
-      edgeArray.put(getEdgeObject(edge));
-
-      if (edge.getProperties() != null) {
-        edge.getProperties().forEach((prop) -> {
-          if (prop.getValue().isNumber()) {
-            uniqueEdgePropertyKeys.add(prop.getKey());
-          }
-        });
-      }
+      writeEdge(generator, edge, formatter);
+      collectNumericalKeys(edge.getProperties(), uniqueEdgePropertyKeys);
     }
-    returnedJSON.put(EDGES, edgeArray);
-    returnedJSON.put(EDGE_KEYS, new JSONArray(uniqueEdgePropertyKeys));
+    generator.writeEndArray();
+    writeStringArray(generator, EDGE_KEYS, uniqueEdgePropertyKeys);
 
-    return returnedJSON.toString();
+    generator.writeEndObject();
   }
 
   /**
-   * Get a JSON object representing a Gradoop graph head.
+   * Write a JSON object representing a Gradoop graph head.
    *
+   * @param generator the generator to write to
    * @param graphHead the graph head instance to translate
-   * @return the JSON object representing the graph head
-   */
-  private static JSONObject getGraphHeadObject(TemporalGraphHead graphHead) {
-    try {
-      JSONObject graphObject = new JSONObject();
-
-      JSONObject graphProperties = new JSONObject();
-      graphObject.put(IDENTIFIER, graphHead.getId());
-      graphObject.put(LABEL, graphHead.getLabel());
-      if (graphHead.getProperties() != null) {
-        for (Property prop : graphHead.getProperties()) {
-          graphProperties.put(prop.getKey(), prop.getValue());
-        }
-      }
-      graphObject.put(PROPERTIES, graphProperties);
-      addTemporalProperties(graphObject, graphHead);
-      return graphObject;
-    } catch (JSONException exception) {
-      throw new RuntimeException("Failed parsing graph head.");
-    }
+   * @param formatter the formatter of the temporal attributes
+   * @throws IOException if writing fails
+   */
+  private static void writeGraphHead(JsonGenerator generator, TemporalGraphHead graphHead,
+    DateFormat formatter) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField(IDENTIFIER, graphHead.getId().toString());
+    generator.writeStringField(LABEL, graphHead.getLabel());
+    writeProperties(generator, graphHead.getProperties());
+    writeTemporalProperties(generator, graphHead, formatter);
+    generator.writeEndObject();
   }
 
   /**
-   * Get a JSON object representing a Gradoop vertex.
+   * Write a JSON object representing a Gradoop vertex.
    *
+   * @param generator the generator to write to
    * @param vertex the vertex instance to translate
-   * @return the JSON object representing the vertex
+   * @param coordinates the longitude and latitude of the vertex, see {@link #getCoordinates(TemporalVertex)}
+   * @param formatter the formatter of the temporal attributes
+   * @throws IOException if writing fails
    */
-  private static JSONObject getVertexObject(TemporalVertex vertex) throws JSONException {
-    JSONObject vertexObject = new JSONObject();
-    JSONObject vertexData = new JSONObject();
-    JSONArray nodeValues = new JSONArray();
+  private static void writeVertex(JsonGenerator generator, TemporalVertex vertex, double[] coordinates,
+    DateFormat formatter) throws IOException {
+    generator.writeStartObject();
+
+    generator.writeObjectFieldStart("itemStyle");
+    generator.writeStringField("color", getElementColor(vertex));
+    generator.writeEndObject();
+
+    generator.writeStringField("name", vertex.getId().toString());
+
+    generator.writeArrayFieldStart("value");
+    writeCoordinate(generator, coordinates[0]);
+    writeCoordinate(generator, coordinates[1]);
+    generator.writeStartObject();
+    generator.writeStringField(IDENTIFIER, vertex.getId().toString());
+    generator.writeStringField(LABEL, vertex.getLabel());
+    writeProperties(generator, vertex.getProperties());
+    writeTemporalProperties(generator, vertex, formatter);
+    generator.writeEndObject();
+    generator.writeEndArray();
+
+    generator.writeEndObject();
+  }
 
-    vertexData.put(IDENTIFIER, vertex.getId());
-    vertexData.put(LABEL, vertex.getLabel());
+  /**
+   * Write a JSON object representing a Gradoop edge.
+   *
+   * @param generator the generator to write to
+   * @param edge the edge instance to translate
+   * @param formatter the formatter of the temporal attributes
+   * @throws IOException if writing fails
+   */
+  private static void writeEdge(JsonGenerator generator, TemporalEdge edge, DateFormat formatter)
+    throws IOException {
+    generator.writeStartObject();
+
+    generator.writeStringField(EDGE_SOURCE, edge.getSourceId().toString());
+    generator.writeStringField(EDGE_TARGET, edge.getTargetId().toString());
+
+    generator.writeObjectFieldStart("lineStyle");
+    generator.writeStringField("color", getElementColor(edge));
+    generator.writeEndObject();
+
+    generator.writeArrayFieldStart("value");
+    generator.writeNull();
+    generator.writeNull();
+    generator.writeStartObject();
+    generator.writeStringField(IDENTIFIER, edge.getId().toString());
+    generator.writeStringField(LABEL, edge.getLabel());
+    writeProperties(generator, edge.getProperties());
+    writeTemporalProperties(generator, edge, formatter);
+    generator.writeEndObject();
+    generator.writeEndArray();
+
+    generator.writeEndObject();
+  }
 
-    vertexObject.put("itemStyle", new JSONObject().put("color", getElementColor(vertex)));
+  /**
+   * Returns the longitude and latitude of the vertex, taken from its {@code long} and {@code lat} properties
+   * by {@link SpatialIndex#getCoordinate(TemporalVertex, String)}, so vertices are placed on the map exactly
+   * if the spatial index and the cluster pyramid place them.
+   *
+   * @param vertex the vertex
+   * @return an array containing the longitude and the latitude, {@link Double#NaN} if a coordinate is missing
+   */
+  private static double[] getCoordinates(TemporalVertex vertex) {
+    return new double[] {SpatialIndex.getCoordinate(vertex, "long"), SpatialIndex.getCoordinate(vertex, "lat")};
+  }
 
-    JSONObject vertexProperties = new JSONObject();
-    if (vertex.getProperties() != null) {
-      if (vertex.hasProperty("long")) {
-        if (vertex.getPropertyValue("long").isDouble()) {
-          nodeValues.put(0, vertex.getPropertyValue("long").getDouble());
-        } else if (vertex.getPropertyValue("long").isString()) {
-          nodeValues.put(0, Double.parseDouble(vertex.getPropertyValue("long").getString()));
-        }
-      } else {
-        nodeValues.put(0, 0);
-      }
-      if (vertex.hasProperty("lat")) {
-        if (vertex.getPropertyValue("lat").isDouble()) {
-          nodeValues.put(1, vertex.getPropertyValue("lat").getDouble());
-        } else if (vertex.getPropertyValue("lat").isString()) {
-          nodeValues.put(1, Double.parseDouble(vertex.getPropertyValue("lat").getString()));
-        }
-      } else {
-        nodeValues.put(1, 0);
-      }
-      for (Property prop : vertex.getProperties()) {
-        vertexProperties.put(prop.getKey(), prop.getValue());
-      }
+  /**
+   * Writes a coordinate or, if it is missing, {@code null} as array entry.
+   *
+   * @param generator the generator to write to
+   * @param coordinate the coordinate, {@link Double#NaN} if it is missing
+   * @throws IOException if writing fails
+   */
+  private static void writeCoordinate(JsonGenerator generator, double coordinate) throws IOException {
+    if (Double.isNaN(coordinate)) {
+      generator.writeNull();
+    } else {
+      generator.writeNumber(coordinate);
     }
-
-    vertexData.put(PROPERTIES, vertexProperties);
-    addTemporalProperties(vertexData, vertex);
-    nodeValues.put(2, vertexData);
-
-    vertexObject.put("name", vertex.getId());
-    vertexObject.put("value", nodeValues);
-    return vertexObject;
   }
 
   /**
-   * Get a JSON object representing a Gradoop edge.
+   * Writes the properties object of an element. Property values are written as strings.
    *
-   * @param edge the graph head instance to translate
-   * @return the JSON object representing the edge
-   */
-  private static JSONObject getEdgeObject(TemporalEdge edge) throws JSONException {
-    JSONObject edgeObject = new JSONObject();
-    JSONObject edgeData = new JSONObject();
-    JSONArray edgeValues = new JSONArray();
-    JSONObject lineStyle = new JSONObject();
-
-    edgeObject.put(EDGE_SOURCE, edge.getSourceId());
-    edgeObject.put(EDGE_TARGET, edge.getTargetId());
-
-    edgeObject.put("lineStyle", lineStyle.put("color", getElementColor(edge)));
-
-    edgeData.put(IDENTIFIER, edge.getId());
-    edgeData.put(LABEL, edge.getLabel());
-    JSONObject edgeProperties = new JSONObject();
-    if (edge.getProperties() != null) {
-      for (Property prop : edge.getProperties()) {
-        edgeProperties.put(prop.getKey(), prop.getValue());
+   * @param generator the generator to write to
+   * @param properties the properties, may be {@code null}
+   * @throws IOException if writing fails
+   */
+  private static void writeProperties(JsonGenerator generator, Properties properties) throws IOException {
+    generator.writeObjectFieldStart(PROPERTIES);
+    if (properties != null) {
+      for (Property prop : properties) {
+        generator.writeStringField(prop.getKey(), prop.getValue().toString());
       }
     }
-    edgeData.put(PROPERTIES, edgeProperties);
-    addTemporalProperties(edgeData, edge);
-    edgeValues.put(2, edgeData);
-    edgeObject.put("value", edgeValues);
-    return edgeObject;
+    generator.writeEndObject();
   }
 
   /**
-   * Adds the four bitemporal attributes of the temporal element to the given json object.
+   * Writes the four bitemporal attributes of the temporal element as fields of the current object.
    *
-   * @param object the JSON object to add the attributes.
+   * @param generator the generator to write to
    * @param element the temporal element to extract the bitemporal attributes
-   * @throws JSONException in case of a parsing error
+   * @param formatter the formatter of the timestamps
+   * @throws IOException if writing fails
    */
-  private static void addTemporalProperties(JSONObject object, TemporalElement element) throws JSONException {
-    final DateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-    formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+  private static void writeTemporalProperties(JsonGenerator generator, TemporalElement element,
+    DateFormat formatter) throws IOException {
+    generator.writeStringField("val_from", formatter.format(new Date(element.getValidFrom())));
+    generator.writeStringField("val_to", formatter.format(new Date(element.getValidTo())));
+    generator.writeStringField("tx_from", formatter.format(new Date(element.getTxFrom())));
+    generator.writeStringField("tx_to", formatter.format(new Date(element.getTxTo())));
+  }
 
-    object.put("val_from", formatter.format(new Date(element.getValidFrom())));
-    object.put("val_to", formatter.format(new Date(element.getValidTo())));
-    object.put("tx_from", formatter.format(new Date(element.getTxFrom())));
-    object.put("tx_to", formatter.format(new Date(element.getTxTo())));
+  /**
+   * Writes an array of strings.
+   *
+   * @param generator the generator to write to
+   * @param fieldName the name of the array field
+   * @param values the values of the array
+   * @throws IOException if writing fails
+   */
+  private static void writeStringArray(JsonGenerator generator, String fieldName, Set<String> values)
+    throws IOException {
+    generator.writeArrayFieldStart(fieldName);
+    for (String value : values) {
+      generator.writeString(value);
+    }
+    generator.writeEndArray();
+  }
+
+  /**
+   * Writes an array of the identifiers of elements.
+   *
+   * @param generator the generator to write to
+   * @param fieldName the name of the array field
+   * @param elements the elements
+   * @throws IOException if writing fails
+   */
+  private static void writeIdentifierArray(JsonGenerator generator, String fieldName,
+    List<? extends GraphElement> elements) throws IOException {
+    generator.writeArrayFieldStart(fieldName);
+    for (GraphElement element : elements) {
+      generator.writeString(element.getId().toString());
+    }
+    generator.writeEndArray();
+  }
+
+  /**
+   * Adds the keys of all numerical properties to the given set.
+   *
+   * @param properties the properties, may be {@code null}
+   * @param keys the set of keys to extend
+   */
+  private static void collectNumericalKeys(Properties properties, Set<String> keys) {
+    if (properties != null) {
+      for (Property prop : properties) {
+        if (prop.getValue().isNumber()) {
+          keys.add(prop.getKey());
+        }
+      }
+    }
   }
 
   /**
@@ -305,7 +511,7 @@ public class EChartsJSONBuilder {
       }
     }
     // then color by label
-    if (!LABEL_COLOR_MAP.containsKey(element.getLabel())) {
+    return LABEL_COLOR_MAP.computeIfAbsent(element.getLabel(), label -> {
       int r = 0;
       int g = 0;
       int b = 0;
@@ -314,8 +520,7 @@ public class EChartsJSONBuilder {
         g = (int) Math.floor((Math.random() * 255));
         b = (int) Math.floor((Math.random() * 255));
       }
-      LABEL_COLOR_MAP.put(element.getLabel(), String. format("#%02X%02X%02X", r, g, b));
-    }
-    return LABEL_COLOR_MAP.get(element.getLabel());
+      return String.format("#%02X%02X%02X", r, g, b);
+    });
   }
 }
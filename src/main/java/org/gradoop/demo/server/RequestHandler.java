@@ -15,24 +15,46 @@
  */
 package org.gradoop.demo.server;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.flink.api.java.DataSet;
 import org.apache.flink.api.java.ExecutionEnvironment;
-import org.apache.flink.api.java.io.LocalCollectionOutputFormat;
 import org.apache.flink.api.java.tuple.Tuple2;
-import org.apache.flink.api.java.tuple.Tuple3;
+import org.apache.flink.api.java.tuple.Tuple6;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.SerializationConfig;
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
-import org.gradoop.demo.server.functions.AcceptNoneFilter;
+import org.gradoop.demo.server.cache.CachedGraph;
+import org.gradoop.demo.server.cache.DatasetCache;
+import org.gradoop.demo.server.cache.MetadataStore;
+import org.gradoop.demo.server.cache.ResultCache;
+import org.gradoop.demo.server.cache.SingleFlight;
+import org.gradoop.demo.server.engine.ClusterPyramid;
+import org.gradoop.demo.server.engine.NativeDiff;
+import org.gradoop.demo.server.engine.NativeGroupingKeys;
+import org.gradoop.demo.server.engine.NativeKeyedGrouping;
+import org.gradoop.demo.server.engine.ParallelEdges;
+import org.gradoop.demo.server.engine.RollupCube;
+import org.gradoop.demo.server.execution.CollectedDataSet;
+import org.gradoop.demo.server.execution.JobClusterEnvironment;
+import org.gradoop.demo.server.execution.QueryExecutor;
+import org.gradoop.demo.server.execution.QueryPriority;
+import org.gradoop.demo.server.functions.ElementMetadataMapper;
 import org.gradoop.demo.server.functions.FormattedMaxTime;
 import org.gradoop.demo.server.functions.FormattedMinTime;
-import org.gradoop.demo.server.functions.LabelFilter;
-import org.gradoop.demo.server.functions.LabelGroupReducer;
-import org.gradoop.demo.server.functions.LabelMapper;
-import org.gradoop.demo.server.functions.LabelReducer;
-import org.gradoop.demo.server.functions.PropertyKeyMapper;
-import org.gradoop.demo.server.functions.PropertyKeyValueMapper;
+import org.gradoop.demo.server.functions.MetadataReducer;
+import org.gradoop.demo.server.index.BoundingBox;
+import org.gradoop.demo.server.index.EvolutionHistogram;
+import org.gradoop.demo.server.index.IntervalQuery;
+import org.gradoop.demo.server.index.TemporalIntervalIndex;
+import org.gradoop.demo.server.io.BinaryGraphFormat;
+import org.gradoop.demo.server.io.BinaryGraphSource;
 import org.gradoop.demo.server.pojo.AggFunctionArguments;
+import org.gradoop.demo.server.pojo.AnimationRequest;
+import org.gradoop.demo.server.pojo.BatchRequest;
 import org.gradoop.demo.server.pojo.DifferenceRequest;
+import org.gradoop.demo.server.pojo.EvolutionRequest;
 import org.gradoop.demo.server.pojo.KeyFunctionArguments;
 import org.gradoop.demo.server.pojo.KeyedGroupingRequest;
 import org.gradoop.demo.server.pojo.SnapshotRequest;
@@ -42,21 +64,13 @@ import org.gradoop.flink.model.api.functions.KeyFunctionWithDefaultValue;
 import org.gradoop.flink.model.impl.operators.aggregation.functions.average.AverageProperty;
 import org.gradoop.flink.model.impl.operators.aggregation.functions.count.Count;
 import org.gradoop.flink.model.impl.operators.aggregation.functions.max.MaxProperty;
-import org.gradoop.flink.model.impl.operators.aggregation.functions.max.MaxVertexProperty;
 import org.gradoop.flink.model.impl.operators.aggregation.functions.min.MinProperty;
-import org.gradoop.flink.model.impl.operators.aggregation.functions.min.MinVertexProperty;
 import org.gradoop.flink.model.impl.operators.aggregation.functions.sum.SumProperty;
 import org.gradoop.flink.model.impl.operators.keyedgrouping.GroupingKeys;
-import org.gradoop.flink.model.impl.operators.keyedgrouping.KeyedGrouping;
 import org.gradoop.flink.model.impl.operators.keyedgrouping.labelspecific.LabelSpecificKeyFunction;
 import org.gradoop.temporal.io.impl.csv.TemporalCSVDataSource;
 import org.gradoop.temporal.model.api.TimeDimension;
-import org.gradoop.temporal.model.api.functions.TemporalPredicate;
 import org.gradoop.temporal.model.impl.TemporalGraph;
-import org.gradoop.temporal.model.impl.functions.predicates.All;
-import org.gradoop.temporal.model.impl.functions.predicates.AsOf;
-import org.gradoop.temporal.model.impl.functions.predicates.Between;
-import org.gradoop.temporal.model.impl.functions.predicates.FromTo;
 import org.gradoop.temporal.model.impl.operators.aggregation.functions.AverageDuration;
 import org.gradoop.temporal.model.impl.operators.aggregation.functions.MaxDuration;
 import org.gradoop.temporal.model.impl.operators.aggregation.functions.MinDuration;
@@ -66,25 +80,31 @@ import org.gradoop.temporal.model.impl.pojo.TemporalElement;
 import org.gradoop.temporal.model.impl.pojo.TemporalGraphHead;
 import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
 import org.gradoop.temporal.util.TemporalGradoopConfig;
+import org.gradoop.temporal.util.TimeFormatConversion;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoField;
@@ -92,13 +112,25 @@ import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalField;
 import java.time.temporal.TemporalUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.gradoop.flink.model.impl.operators.keyedgrouping.GroupingKeys.label;
 
@@ -116,6 +148,17 @@ public class RequestHandler {
   public static final String MIN_LONG = "min_long";
   public static final String MAX_LONG = "max_long";
 
+  /**
+   * Header containing the id of a query chosen by the client, used to cancel the query.
+   */
+  public static final String QUERY_ID_HEADER = "X-Query-Id";
+
+  /**
+   * Header containing the id of the session of a client, used to share the query threads fairly between
+   * sessions.
+   */
+  public static final String SESSION_ID_HEADER = "X-Session-Id";
+
   /**
    * The used formatter to format long timestamps.
    */
@@ -126,19 +169,98 @@ public class RequestHandler {
   }
 
   /**
-   * The Flink execution environment.
+   * The execution environment. Since a new handler is created for each request, every request runs its jobs
+   * in its own execution environment on the shared cluster and can cancel them.
+   */
+  private final JobClusterEnvironment environment = Server.getJobCluster().createEnvironment();
+
+  /**
+   * The parallelism of the jobs of the request, sized by the largest input shipped to them so far.
+   */
+  private int parallelism;
+
+  /**
+   * The gradoop config using the execution environment of the request.
+   */
+  private final TemporalGradoopConfig temporalConfig = TemporalGradoopConfig.createConfig(environment);
+
+  /**
+   * The headers of the request.
    */
-  private static final ExecutionEnvironment ENV = ExecutionEnvironment.createLocalEnvironment();
+  @Context
+  private HttpHeaders headers;
 
   /**
-   * The gradoop config.
+   * The in-memory cache of loaded datasets, shared by all endpoints.
    */
-  private final TemporalGradoopConfig temporalConfig = TemporalGradoopConfig.createConfig(ENV);
+  private static final DatasetCache DATASETS = new DatasetCache(ServerConfig.CACHE_MAX_DATASETS,
+    ServerConfig.CACHE_MAX_ELEMENTS, RequestHandler::loadDataset, RequestHandler::getDatasetVersion);
 
   /**
-   * The filename of the metadata json.
+   * The store of the computed metadata of all datasets.
    */
-  private final String META_FILENAME = "metadata.json";
+  private static final MetadataStore METADATA = new MetadataStore(new File(ServerConfig.METADATA_DIRECTORY));
+
+  /**
+   * The cache of rendered query responses, shared by all endpoints.
+   */
+  private static final ResultCache RESULTS = new ResultCache(ServerConfig.RESULT_CACHE_MAX_BYTES);
+
+  /**
+   * The running computations of graph views, so concurrent requests of the same view compute it only once. The
+   * views are never buffered, but streamed to each client.
+   */
+  private static final SingleFlight<StreamingOutput> GRAPH_VIEWS = new SingleFlight<>();
+
+  /**
+   * The rollup cubes of the cached graphs, built on first use. They are dropped with their graph when it is
+   * evicted from the dataset cache.
+   */
+  private static final Map<CachedGraph, List<RollupCube>> ROLLUP_CUBES =
+    Collections.synchronizedMap(new WeakHashMap<>());
+
+  /**
+   * The clustering pyramids of the cached graphs, built on first use. They are dropped with their graph when
+   * it is evicted from the dataset cache.
+   */
+  private static final Map<CachedGraph, AtomicReference<ClusterPyramid>> CLUSTER_PYRAMIDS =
+    Collections.synchronizedMap(new WeakHashMap<>());
+
+  /**
+   * Serializes requests to their canonical JSON form with alphabetically ordered fields.
+   */
+  private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+    .configure(SerializationConfig.Feature.SORT_PROPERTIES_ALPHABETICALLY, true);
+
+  /**
+   * Returns the canonical key of a query for a version of the queried dataset.
+   */
+  @FunctionalInterface
+  private interface QueryKey {
+    /**
+     * Returns the key of the query.
+     *
+     * @param version the version of the dataset
+     * @return the canonical key of the query, including the dataset version
+     * @throws IOException if the query can not be serialized
+     */
+    String of(long version) throws IOException;
+  }
+
+  /**
+   * Computes a response body from the cached graph of the queried dataset.
+   */
+  @FunctionalInterface
+  private interface GraphComputation {
+    /**
+     * Computes the response.
+     *
+     * @param graph the cached graph of the queried dataset
+     * @return a streaming entity writing the response body
+     * @throws Exception if the computation fails
+     */
+    StreamingOutput compute(CachedGraph graph) throws Exception;
+  }
 
   /**
    * Takes a database name via a POST request and returns the keys of all
@@ -152,18 +274,15 @@ public class RequestHandler {
   @Path("/keys/{databaseName}")
   @Produces("application/json;charset=utf-8")
   public Response getKeysAndLabels(@PathParam("databaseName") String databaseName) {
-    URL meta = RequestHandler.class.getResource(String.format("/data/%s/%s", databaseName, META_FILENAME));
-
     try {
-      if (meta == null) {
-        JSONObject result = computeKeysAndLabels(databaseName);
-        if (result == null) {
-          return Response.serverError().build();
-        }
+      JSONObject result = readKeysAndLabels(databaseName);
+      if (result != null) {
         return Response.ok(result.toString()).build();
-      } else {
-        return Response.ok(readKeysAndLabels(databaseName).toString()).build();
       }
+      return run("keys", databaseName, () -> {
+        CachedGraph graph = DATASETS.get(databaseName);
+        return Response.ok(computeKeysAndLabels(graph, toTemporalDataset(graph)).toString()).build();
+      });
     } catch (Exception e) {
       e.printStackTrace();
       // if any exception is thrown, return an error to the client
@@ -175,57 +294,990 @@ public class RequestHandler {
   @Path("/graphs")
   @Produces("application/json;charset=utf-8")
   public Response getGraphs() {
-    final URL resource = RequestHandler.class.getResource("/data");
-    JSONArray result = new JSONArray();
+    return Response.ok(new JSONArray(listDatasets()).toString()).build();
+  }
 
-    String path = resource.getPath();
+  /**
+   * Returns the counters of the dataset cache, the result cache and the query executor.
+   *
+   * @return A JSON containing the hits, misses and evictions of the dataset cache and the result cache, and
+   * the running, queued, rejected and cancelled queries
+   * @throws JSONException if JSON creation fails
+   */
+  @GET
+  @Path("/cache")
+  @Produces("application/json;charset=utf-8")
+  public Response getCacheStatistics() throws JSONException {
+    JSONObject result = new JSONObject();
+    result.put("hits", DATASETS.getHits());
+    result.put("misses", DATASETS.getMisses());
+    result.put("evictions", DATASETS.getEvictions());
+    result.put("coalesced", DATASETS.getCoalesced());
+    result.put("datasets", DATASETS.getDatasetCount());
+    result.put("elements", DATASETS.getElementCount());
+    result.put("maxDatasets", DATASETS.getMaxDatasets());
+    result.put("maxElements", DATASETS.getMaxElements());
+
+    JSONObject results = new JSONObject();
+    results.put("hits", RESULTS.getHits());
+    results.put("misses", RESULTS.getMisses());
+    results.put("evictions", RESULTS.getEvictions());
+    results.put("coalesced", RESULTS.getCoalesced());
+    results.put("results", RESULTS.getResultCount());
+    results.put("bytes", RESULTS.getByteCount());
+    results.put("maxBytes", RESULTS.getMaxBytes());
+    result.put("results", results);
+
+    QueryExecutor executor = Server.getQueryExecutor();
+    JSONObject queries = new JSONObject();
+    queries.put("maxRunning", executor.getMaxRunning());
+    queries.put("interactiveReserve", executor.getInteractiveReserve());
+    queries.put("running", executor.getRunning());
+    queries.put("queued", executor.getQueued());
+    queries.put("rejected", executor.getRejected());
+    queries.put("timeouts", executor.getTimeouts());
+    queries.put("cancelled", executor.getCancelled());
+    result.put("queries", queries);
+    return Response.ok(result.toString()).build();
+  }
+
+  /**
+   * Cancels a running query, e.g., because the client is no longer interested in its result. The Flink job
+   * of the query is cancelled and the request of the query is answered with {@code 503 Service Unavailable}.
+   *
+   * @param queryId the id of the query, as sent in the {@value #QUERY_ID_HEADER} header
+   * @return {@code 204 No Content} if the query was cancelled, {@code 404 Not Found} if it is not running
+   */
+  @POST
+  @Path("/cancel/{queryId}")
+  public Response cancelQuery(@PathParam("queryId") String queryId) {
+    if (Server.getQueryExecutor().cancel(queryId)) {
+      return Response.noContent().build();
+    }
+    return Response.status(Response.Status.NOT_FOUND).build();
+  }
+
+  /**
+   * Get the complete graph in eChars-conform form.
+   *
+   * @param databaseName name of the database
+   * @param bbox the viewport as {@code west,south,east,north}, only the vertices inside it and the edges
+   *             touching them are returned (optional)
+   * @param collapseEdges {@code count} or {@code aggregate} collapse parallel edges into one edge (optional)
+   * @return Response containing the graph as a JSON, in eCharts conform format.
+   * @throws Exception if loading the dataset or rendering fails
+   */
+  @POST
+  @Path("/graph/{databaseName}")
+  @Produces("application/json;charset=utf-8")
+  public Response getGraph(@PathParam("databaseName") String databaseName, @QueryParam("bbox") String bbox,
+    @QueryParam("collapseEdges") String collapseEdges) throws Exception {
+    BoundingBox box = getBoundingBox(bbox);
+    ParallelEdges parallelEdges = ParallelEdges.of(collapseEdges);
+
+    // concurrent requests of the same view join a single computation before they are admitted to the query
+    // executor, the view is streamed to each client
+    String key = String.join("|", databaseName, Long.toString(getDatasetVersion(databaseName)),
+      Objects.toString(box, ""), parallelEdges.toString());
+    return orUnavailable(() -> Response.ok(GRAPH_VIEWS.execute(key, () -> submit("graph", databaseName, () -> {
+      CachedGraph graph = DATASETS.get(databaseName);
+      CachedGraph visible = restrictToBox(graph, graph, box);
+      return EChartsJSONBuilder.getJSONStream(visible.getGraphHeads(), visible.getVertices(),
+        parallelEdges.apply(visible.getEdges()));
+    }), ServerConfig.getQueryTimeout("graph"))).build());
+  }
+
+  /**
+   * Get the clusters of the vertex coordinates fitting the zoom level of a map in eCharts-conform form. Each
+   * cluster vertex is placed at the centroid of its vertices and counts them, each cluster edge counts the
+   * edges between two clusters.
+   *
+   * @param databaseName name of the database
+   * @param zoom the zoom level of the Leaflet map
+   * @param bbox the viewport as {@code west,south,east,north}, only the clusters inside it and the cluster edges
+   *             touching them are returned (optional)
+   * @param ifNoneMatch the entity tags of the responses already known to the client
+   * @return Response containing the clustered graph as a JSON, in eCharts conform format.
+   * @throws Exception if loading the dataset or rendering fails
+   */
+  @POST
+  @Path("/clusters/{databaseName}")
+  @Produces("application/json;charset=utf-8")
+  public Response getClusters(@PathParam("databaseName") String databaseName, @QueryParam("zoom") int zoom,
+    @QueryParam("bbox") String bbox, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch)
+    throws Exception {
+    BoundingBox box = getBoundingBox(bbox);
+    QueryKey key = version -> String.join("|", "clusters", databaseName, Long.toString(version),
+      Integer.toString(zoom), Objects.toString(box, ""));
+    return respond("clusters", databaseName, key, ifNoneMatch, graph -> {
+      ClusterPyramid pyramid = getClusterPyramid(graph);
+      CachedGraph clusters = pyramid.getClusters(pyramid.getLevel(zoom, ServerConfig.CLUSTER_CELL_PIXELS), box);
+      return EChartsJSONBuilder.getJSONStream(clusters.getGraphHeads(), clusters.getVertices(),
+        clusters.getEdges());
+    });
+  }
+
+  /**
+   * Applies a key-based grouping.
+   *
+   * @param request the grouping configuration
+   * @param ifNoneMatch the entity tags of the responses already known to the client
+   * @return Response containing the graph as a JSON, in eCharts conform format.
+   * @throws Exception if loading the dataset fails
+   */
+  @POST
+  @Path("/keyedgrouping")
+  @Produces("application/json;charset=utf-8")
+  public Response getData(KeyedGroupingRequest request,
+    @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws Exception {
+    // build the grouping first, so invalid requests are rejected before the cache is consulted
+    NativeKeyedGrouping grouping = getGrouping(request);
+
+    return respond("keyedgrouping", request.getDbName(), version -> getKey(request, version), ifNoneMatch, graph -> {
+      CollectedGraph result = getGroupedGraph(request, grouping, graph);
+      if (result.requiresExecution()) {
+        temporalConfig.getExecutionEnvironment().execute();
+      }
+      return result.toJSON();
+    });
+  }
+
+  /**
+   * Applies the snapshot operator.
+   *
+   * @param request the configuration of the snapshot operator.
+   * @param ifNoneMatch the entity tags of the responses already known to the client
+   * @return Response containing the graph as a JSON, in eCharts conform format.
+   * @throws Exception if loading the dataset fails
+   */
+  @POST
+  @Path("/snapshot")
+  @Produces("application/json;charset=utf-8")
+  public Response getData(SnapshotRequest request,
+    @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws Exception {
+    return respond("snapshot", request.getDbName(), version -> getKey(request, version), ifNoneMatch,
+      graph -> getSnapshot(request, graph));
+  }
+
+  /**
+   * Applies the snapshot operator at evenly spaced points in time of a range, e.g., to animate the evolution
+   * of the graph. The snapshots are computed by a single sweep over the interval indices.
+   *
+   * @param request the time range and the step of the snapshots
+   * @param ifNoneMatch the entity tags of the responses already known to the client
+   * @return Response containing the first snapshot in eCharts conform format and the elements added and removed
+   * at each further point in time.
+   * @throws Exception if loading the dataset fails
+   */
+  @POST
+  @Path("/animation")
+  @Produces("application/json;charset=utf-8")
+  public Response getData(AnimationRequest request,
+    @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws Exception {
+    // validates the range, the step and the unit before the key is built
+    getAnimationSteps(request);
+    return respond("animation", request.getDbName(), version -> getKey(request, version), ifNoneMatch,
+      graph -> getAnimation(request, graph));
+  }
+
+  /**
+   * Counts the vertices and edges of each label active per time bucket, e.g., to chart the evolution of the
+   * graph before picking a snapshot. The counts are computed by a single sweep over the interval indices.
+   *
+   * @param request the time dimension, range and bucket length
+   * @param ifNoneMatch the entity tags of the responses already known to the client
+   * @return Response containing a JSON object with the start times of the {@code buckets}, the {@code end} of
+   * the last one and the counts of the {@code vertices} and {@code edges} by label.
+   * @throws Exception if loading the dataset fails
+   */
+  @POST
+  @Path("/evolution")
+  @Produces("application/json;charset=utf-8")
+  public Response getData(EvolutionRequest request,
+    @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws Exception {
+    validate(request);
+    return respond("evolution", request.getDbName(), version -> getKey(request, version), ifNoneMatch,
+      graph -> getEvolution(request, graph));
+  }
+
+  /**
+   * Applies the difference operator.
+   *
+   * @param request the configuration of the difference operator.
+   * @param ifNoneMatch the entity tags of the responses already known to the client
+   * @return Response containing the graph as a JSON, in eCharts conform format.
+   * @throws Exception if loading the dataset fails
+   */
+  @POST
+  @Path("/difference")
+  @Produces("application/json;charset=utf-8")
+  public Response getData(DifferenceRequest request,
+    @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws Exception {
+    return respond("difference", request.getDbName(), version -> getKey(request, version), ifNoneMatch, graph -> {
+      CollectedGraph result = getDifference(request, graph);
+      if (result.requiresExecution()) {
+        temporalConfig.getExecutionEnvironment().execute();
+      }
+      return result.toJSON();
+    });
+  }
+
+  /**
+   * Answers several snapshot, difference and grouping requests of the same dataset at once. The dataset is
+   * taken from the cache once for all requests, snapshots are answered by its interval indices and all
+   * differences and groupings that are not cached yet and too large to be computed in memory are computed by
+   * a single job with one sink per result, together with the metadata if it is requested and not stored yet.
+   * The dataset name of the batch overrides the ones of the contained requests, missing lists are empty.
+   *
+   * @param request the requests to answer
+   * @return Response containing a JSON object with the arrays {@code snapshots}, {@code differences} and
+   * {@code groupings} of the results in eCharts conform format, in the order of the requests, and the
+   * {@code metadata} of the dataset if requested.
+   * @throws Exception if loading the dataset or a computation fails
+   */
+  @POST
+  @Path("/batch")
+  @Produces("application/json;charset=utf-8")
+  public Response getData(BatchRequest request) throws Exception {
+    return run("batch", request.getDbName(), () -> getBatch(request));
+  }
+
+  /**
+   * Answers a batch of requests.
+   *
+   * @param request the requests to answer
+   * @return Response containing the results of the requests
+   * @throws Exception if loading the dataset or a computation fails
+   */
+  private Response getBatch(BatchRequest request) throws Exception {
+    String databaseName = request.getDbName();
+    List<SnapshotRequest> snapshotRequests = orEmpty(request.getSnapshots());
+    List<DifferenceRequest> differenceRequests = orEmpty(request.getDifferences());
+    List<KeyedGroupingRequest> groupingRequests = orEmpty(request.getGroupings());
+
+    // build all groupings first, so invalid requests are rejected before anything is computed
+    List<NativeKeyedGrouping> groupings = new ArrayList<>();
+    for (KeyedGroupingRequest grouping : groupingRequests) {
+      grouping.setDbName(databaseName);
+      groupings.add(getGrouping(grouping));
+    }
+    snapshotRequests.forEach(snapshot -> snapshot.setDbName(databaseName));
+    differenceRequests.forEach(difference -> difference.setDbName(databaseName));
+
+    CachedGraph cached = DATASETS.get(databaseName);
+
+    List<Object> snapshots = new ArrayList<>();
+    for (SnapshotRequest snapshot : snapshotRequests) {
+      snapshots.add(RESULTS.get(getKey(snapshot, cached.getVersion()), () -> getSnapshot(snapshot, cached)));
+    }
+
+    // equal requests share their result
+    JSONObject metadata = request.getMetadata() ? readKeysAndLabels(databaseName) : null;
+    BatchPlan plan = new BatchPlan(cached, request.getMetadata() && metadata == null);
+    List<String> differenceKeys = new ArrayList<>();
+    for (DifferenceRequest difference : differenceRequests) {
+      String key = getKey(difference, cached.getVersion());
+      differenceKeys.add(key);
+      plan.add(key, () -> getDifference(difference, cached));
+    }
+    List<String> groupingKeys = new ArrayList<>();
+    for (int i = 0; i < groupings.size(); i++) {
+      KeyedGroupingRequest grouping = groupingRequests.get(i);
+      NativeKeyedGrouping operator = groupings.get(i);
+      String key = getKey(grouping, cached.getVersion());
+      groupingKeys.add(key);
+      plan.add(key, () -> getGroupedGraph(grouping, operator, cached));
+    }
+    Map<String, Object> results = plan.answer();
+    if (metadata == null && request.getMetadata()) {
+      metadata = plan.getMetadata();
+    }
+
+    List<Object> differences = differenceKeys.stream().map(results::get).collect(Collectors.toList());
+    List<Object> groupingResults = groupingKeys.stream().map(results::get).collect(Collectors.toList());
+    byte[] finalMetadata = metadata == null ? null : metadata.toString().getBytes(StandardCharsets.UTF_8);
+    StreamingOutput body = out -> {
+      out.write("{\"snapshots\":".getBytes(StandardCharsets.UTF_8));
+      writeArray(out, snapshots);
+      out.write(",\"differences\":".getBytes(StandardCharsets.UTF_8));
+      writeArray(out, differences);
+      out.write(",\"groupings\":".getBytes(StandardCharsets.UTF_8));
+      writeArray(out, groupingResults);
+      if (finalMetadata != null) {
+        out.write(",\"metadata\":".getBytes(StandardCharsets.UTF_8));
+        out.write(finalMetadata);
+      }
+      out.write('}');
+    };
+    return Response.ok(body).build();
+  }
+
+  /**
+   * Returns a list of a request, treating a missing list as empty one.
+   *
+   * @param list the list, may be {@code null}
+   * @param <T> the type of the elements
+   * @return the list or an empty list
+   */
+  private static <T> List<T> orEmpty(List<T> list) {
+    return list == null ? Collections.emptyList() : list;
+  }
+
+  /**
+   * The differences and groupings of a batch. The ones neither cached nor computed by other requests are
+   * computed by a single plan, together with the metadata of the dataset if it is requested and not stored.
+   */
+  private final class BatchPlan {
+
+    /**
+     * The cached graph of the dataset.
+     */
+    private final CachedGraph graph;
+
+    /**
+     * True, if the metadata of the dataset is computed by the plan.
+     */
+    private final boolean computeMetadata;
+
+    /**
+     * Adds the sinks of a result to the plan, by key in ascending order.
+     */
+    private final Map<String, Supplier<CollectedGraph>> parts = new TreeMap<>();
+
+    /**
+     * The results computed by the plan, by key.
+     */
+    private final Map<String, CollectedGraph> computed = new HashMap<>();
+
+    /**
+     * The response entities of all results, by key.
+     */
+    private final Map<String, Object> results = new HashMap<>();
+
+    /**
+     * The metadata computed by the plan.
+     */
+    private JSONObject metadata;
+
+    /**
+     * Creates an empty plan.
+     *
+     * @param graph the cached graph of the dataset
+     * @param computeMetadata true, if the metadata of the dataset is computed by the plan
+     */
+    BatchPlan(CachedGraph graph, boolean computeMetadata) {
+      this.graph = graph;
+      this.computeMetadata = computeMetadata;
+    }
+
+    /**
+     * Adds a result to the batch.
+     *
+     * @param key the canonical key of the result
+     * @param part adds the sinks of the result to the plan
+     */
+    void add(String key, Supplier<CollectedGraph> part) {
+      parts.putIfAbsent(key, part);
+    }
+
+    /**
+     * Answers all results of the batch.
+     *
+     * @return the response entities by key
+     * @throws Exception if a computation fails
+     */
+    Map<String, Object> answer() throws Exception {
+      answer(new ArrayList<>(parts.keySet()), 0);
+      return results;
+    }
+
+    /**
+     * Registers the computation of the remaining results with the result cache, then executes the plan. Each
+     * result is computed by the batch unless it is cached or computed by another request. Concurrent requests
+     * of a result computed by the batch wait for it instead of starting another job. The results are
+     * registered in ascending order of their keys, so batches waiting for each other can not deadlock.
+     *
+     * @param keys the keys of all results in ascending order
+     * @param index the index of the next key to register
+     * @throws Exception if a computation fails
+     */
+    private void answer(List<String> keys, int index) throws Exception {
+      if (index == keys.size()) {
+        execute();
+        return;
+      }
+      String key = keys.get(index);
+      results.put(key, RESULTS.get(key, () -> {
+        computed.put(key, null);
+        answer(keys, index + 1);
+        return computed.get(key).toJSON();
+      }));
+      if (!computed.containsKey(key)) {
+        // the result was cached or computed by another request
+        answer(keys, index + 1);
+      }
+    }
+
+    /**
+     * Adds the sinks of the results computed by the batch and of the metadata to the plan and executes it.
+     *
+     * @throws Exception if the computation fails
+     */
+    private void execute() throws Exception {
+      computed.replaceAll((key, none) -> parts.get(key).get());
+      CollectedDataSet<Tuple6<String, String, String, Boolean, Double, Double>> metadataTuples =
+        computeMetadata ? new CollectedDataSet<>(getMetadataTuples(toTemporalDataset(graph))) : null;
+      if (metadataTuples != null || computed.values().stream().anyMatch(CollectedGraph::requiresExecution)) {
+        temporalConfig.getExecutionEnvironment().execute();
+      }
+      if (metadataTuples != null) {
+        metadata = RequestHandler.getMetadata(metadataTuples.get());
+        METADATA.write(graph.getDatabaseName(), graph.getVersion(), metadata);
+      }
+    }
+
+    public JSONObject getMetadata() {
+      return metadata;
+    }
+  }
+
+  /**
+   * Writes a JSON array of response entities, i.e., of rendered JSON values or streaming entities writing
+   * them.
+   *
+   * @param out the stream to write to
+   * @param values the response entities
+   * @throws IOException if writing fails
+   */
+  private static void writeArray(OutputStream out, List<Object> values) throws IOException {
+    out.write('[');
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      if (values.get(i) instanceof byte[]) {
+        out.write((byte[]) values.get(i));
+      } else {
+        ((StreamingOutput) values.get(i)).write(out);
+      }
+    }
+    out.write(']');
+  }
+
+  /**
+   * Returns the cache key of an animation request.
+   *
+   * @param request the animation request
+   * @param version the version of the dataset the result is computed from
+   * @return the canonical key of the request, including the dataset version
+   */
+  private static String getKey(AnimationRequest request, long version) {
+    return String.join("|", "animation", request.getDbName(), Long.toString(version),
+      getSnapshotDimension(request.getDimension()).toString(), Long.toString(getTime(request.getFrom())),
+      Long.toString(getAnimationStep(request)), Integer.toString(getAnimationSteps(request)));
+  }
+
+  /**
+   * Returns the cache key of an evolution request.
+   *
+   * @param request the evolution request
+   * @param version the version of the dataset the result is computed from
+   * @return the canonical key of the request, including the dataset version
+   */
+  private static String getKey(EvolutionRequest request, long version) {
+    return String.join("|", "evolution", request.getDbName(), Long.toString(version),
+      getSnapshotDimension(request.getDimension()).toString(), getChronoUnit(request.getUnit()).toString(),
+      request.getFrom() == null ? "" : Long.toString(getTime(request.getFrom())),
+      request.getTo() == null ? "" : Long.toString(getTime(request.getTo())));
+  }
+
+  /**
+   * Returns the cache key of a snapshot request.
+   *
+   * @param request the snapshot request
+   * @param version the version of the dataset the result is computed from
+   * @return the canonical key of the request, including the dataset version
+   */
+  private static String getKey(SnapshotRequest request, long version) {
+    return String.join("|", "snapshot", request.getDbName(), Long.toString(version),
+      getSnapshotDimension(request.getDimension()).toString(),
+      getPredicate(request.getPredicate(), request.getTimestamp1(), request.getTimestamp2()).toString(),
+      Objects.toString(getBoundingBox(request.getBbox()), ""),
+      ParallelEdges.of(request.getCollapseEdges()).toString());
+  }
+
+  /**
+   * Returns the cache key of a difference request.
+   *
+   * @param request the difference request
+   * @param version the version of the dataset the result is computed from
+   * @return the canonical key of the request, including the dataset version
+   */
+  private static String getKey(DifferenceRequest request, long version) {
+    return String.join("|", "difference", request.getDbName(), Long.toString(version),
+      getSnapshotDimension(request.getDimension()).toString(),
+      getPredicate(request.getFirstPredicate(), request.getTimestamp11(), request.getTimestamp12()).toString(),
+      getPredicate(request.getSecondPredicate(), request.getTimestamp21(), request.getTimestamp22()).toString(),
+      Objects.toString(getBoundingBox(request.getBbox()), ""),
+      ParallelEdges.of(request.getCollapseEdges()).toString());
+  }
+
+  /**
+   * Returns the cache key of a grouping request.
+   *
+   * @param request the grouping request
+   * @param version the version of the dataset the result is computed from
+   * @return the canonical key of the request, including the dataset version
+   * @throws IOException if the request can not be serialized
+   */
+  private static String getKey(KeyedGroupingRequest request, long version) throws IOException {
+    return String.join("|", "keyedgrouping", request.getDbName(), Long.toString(version),
+      getCanonicalForm(request));
+  }
+
+  /**
+   * Parses the predicate of a snapshot.
+   *
+   * @param name the name of the predicate
+   * @param timestamp1 the first timestamp argument of the predicate
+   * @param timestamp2 the second timestamp argument of the predicate
+   * @return the predicate
+   */
+  private static IntervalQuery getPredicate(String name, String timestamp1, String timestamp2) {
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    return IntervalQuery.of(name, LocalDateTime.parse(timestamp1, formatter),
+      LocalDateTime.parse(timestamp2, formatter));
+  }
+
+  /**
+   * Restricts a part of a cached graph to the vertices inside a bounding box, the edges touching them and the
+   * vertices outside the box these edges lead to. The vertices are selected by the spatial index of the cached
+   * graph.
+   *
+   * @param part the part of the graph to restrict, e.g., a snapshot
+   * @param graph the cached graph
+   * @param box the bounding box, {@code null} keeps the whole part
+   * @return the restricted part
+   */
+  private static CachedGraph restrictToBox(CachedGraph part, CachedGraph graph, BoundingBox box) {
+    return box == null ? part : part.restrictToVertices(graph.getSpatialIndex().query(box));
+  }
+
+  /**
+   * Computes the snapshots of an animation.
+   *
+   * @param request the configuration of the animation
+   * @param graph the cached graph of the requested dataset
+   * @return the JSON representation of the snapshots
+   */
+  private static StreamingOutput getAnimation(AnimationRequest request, CachedGraph graph) {
+    TimeDimension timeDimension = getSnapshotDimension(request.getDimension());
+    long start = getTime(request.getFrom());
+    long step = getAnimationStep(request);
+    int steps = getAnimationSteps(request);
+
+    return EChartsJSONBuilder.getAnimationJSONStream(
+      graph.getGraphHeads(),
+      graph.getVertexVersions(timeDimension, ServerConfig.SNAPSHOT_CHECKPOINTS).sweep(start, step, steps),
+      graph.getEdgeVersions(timeDimension, ServerConfig.SNAPSHOT_CHECKPOINTS).sweep(start, step, steps));
+  }
+
+  /**
+   * Counts the active vertices and edges per time bucket.
+   *
+   * @param request the configuration of the histogram
+   * @param graph the cached graph of the requested dataset
+   * @return the JSON representation of the counts
+   * @throws JSONException if JSON creation fails
+   * @throws WebApplicationException if the range takes too many buckets
+   */
+  private static StreamingOutput getEvolution(EvolutionRequest request, CachedGraph graph) throws JSONException {
+    TimeDimension timeDimension = getSnapshotDimension(request.getDimension());
+    TemporalIntervalIndex<TemporalVertex> vertexIndex = graph.getVertexIndex(timeDimension);
+    TemporalIntervalIndex<TemporalEdge> edgeIndex = graph.getEdgeIndex(timeDimension);
+    long from = request.getFrom() == null ?
+      Math.min(vertexIndex.getFirstBound(), edgeIndex.getFirstBound()) : getTime(request.getFrom());
+    long to = request.getTo() == null ?
+      Math.max(vertexIndex.getLastBound(), edgeIndex.getLastBound()) : getTime(request.getTo());
+    if (from > to) {
+      // an explicit range ending before its start is rejected by the validation of the request
+      if (request.getFrom() != null) {
+        // the dataset ends before the requested start, a single bucket of the start is returned
+        to = from;
+      } else if (request.getTo() != null) {
+        // the dataset starts after the requested end, a single bucket of the end is returned
+        from = to;
+      } else {
+        // neither the range nor the dataset are bounded, a single bucket of the current time is returned
+        from = to = System.currentTimeMillis();
+      }
+    }
+
+    EvolutionHistogram histogram;
+    try {
+      histogram = new EvolutionHistogram(from, to, getChronoUnit(request.getUnit()),
+        ServerConfig.EVOLUTION_MAX_BUCKETS);
+    } catch (IllegalArgumentException e) {
+      throw new WebApplicationException(Response
+        .serverError()
+        .type(MediaType.TEXT_HTML_TYPE)
+        .entity(e.getMessage())
+        .build());
+    }
+
+    DateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+    JSONArray buckets = new JSONArray();
+    for (int bucket = 0; bucket < histogram.getBuckets(); bucket++) {
+      buckets.put(formatter.format(new Date(histogram.getStart(bucket))));
+    }
+    JSONObject result = new JSONObject();
+    result.put("buckets", buckets);
+    result.put("end", formatter.format(new Date(histogram.getStart(histogram.getBuckets()))));
+    result.put("vertices", getCountsByLabel(histogram.count(vertexIndex)));
+    result.put("edges", getCountsByLabel(histogram.count(edgeIndex)));
+    byte[] body = result.toString().getBytes(StandardCharsets.UTF_8);
+    return output -> output.write(body);
+  }
+
+  /**
+   * Validates an evolution request before its key is built, i.e., checks that the unit is supported and the
+   * given bounds of the range are timestamps in ascending order.
+   *
+   * @param request the evolution request
+   * @throws WebApplicationException if the unit or a bound is invalid or the range ends before its start
+   */
+  private static void validate(EvolutionRequest request) {
+    if (getChronoUnit(request.getUnit()).compareTo(ChronoUnit.MILLENNIA) > 0) {
+      throw new WebApplicationException(Response
+        .serverError()
+        .type(MediaType.TEXT_HTML_TYPE)
+        .entity("The buckets of an evolution take at most a millennium.")
+        .build());
+    }
+    long from = request.getFrom() == null ? Long.MIN_VALUE : getTime(request.getFrom());
+    long to = request.getTo() == null ? Long.MAX_VALUE : getTime(request.getTo());
+    if (from > to) {
+      throw new WebApplicationException(Response
+        .serverError()
+        .type(MediaType.TEXT_HTML_TYPE)
+        .entity("The range of an evolution has to end after its start.")
+        .build());
+    }
+  }
+
+  /**
+   * Converts the counts of a histogram to JSON.
+   *
+   * @param counts the counts per bucket by label
+   * @return a JSON object containing the array of counts of each label
+   * @throws JSONException if JSON creation fails
+   */
+  private static JSONObject getCountsByLabel(Map<String, int[]> counts) throws JSONException {
+    JSONObject result = new JSONObject();
+    for (Map.Entry<String, int[]> labelCounts : counts.entrySet()) {
+      JSONArray array = new JSONArray();
+      for (int count : labelCounts.getValue()) {
+        array.put(count);
+      }
+      result.put(labelCounts.getKey(), array);
+    }
+    return result;
+  }
+
+  /**
+   * Parses a timestamp of a request.
+   *
+   * @param timestamp the timestamp in the format {@code yyyy-MM-dd HH:mm:ss}
+   * @return the milliseconds since the epoch
+   * @throws WebApplicationException if the timestamp is missing or malformed
+   */
+  private static long getTime(String timestamp) {
+    if (timestamp != null) {
+      try {
+        return TimeFormatConversion.toEpochMilli(
+          LocalDateTime.parse(timestamp, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+      } catch (DateTimeException | ArithmeticException e) {
+        // reported below
+      }
+    }
+    throw new WebApplicationException(Response
+      .serverError()
+      .type(MediaType.TEXT_HTML_TYPE)
+      .entity("A timestamp of the format yyyy-MM-dd HH:mm:ss is expected instead of " + timestamp + ".")
+      .build());
+  }
+
+  /**
+   * Parses the unit of a request.
+   *
+   * @param unit the name of a {@link ChronoUnit}, e.g., {@code DAYS}
+   * @return the unit
+   * @throws WebApplicationException if the unit is missing or unknown
+   */
+  private static ChronoUnit getChronoUnit(String unit) {
+    for (ChronoUnit value : ChronoUnit.values()) {
+      if (value.name().equals(unit)) {
+        return value;
+      }
+    }
+    throw new WebApplicationException(Response
+      .serverError()
+      .type(MediaType.TEXT_HTML_TYPE)
+      .entity("The unit " + unit + " is not supported, expected one of " +
+        Arrays.stream(ChronoUnit.values()).map(ChronoUnit::name).collect(Collectors.joining(", ")) + ".")
+      .build());
+  }
+
+  /**
+   * Returns the distance between two snapshots of an animation.
+   *
+   * @param request the configuration of the animation
+   * @return the distance in milliseconds
+   * @throws WebApplicationException if the unit is invalid or the step is shorter than a millisecond or too long
+   */
+  private static long getAnimationStep(AnimationRequest request) {
+    ChronoUnit unit = getChronoUnit(request.getUnit());
+    long step = 0;
+    if (request.getStep() > 0) {
+      try {
+        step = unit.getDuration().multipliedBy(request.getStep()).toMillis();
+      } catch (ArithmeticException e) {
+        // the step overflows, reported below
+      }
+    }
+    if (step <= 0) {
+      throw new WebApplicationException(Response
+        .serverError()
+        .type(MediaType.TEXT_HTML_TYPE)
+        .entity("The step of an animation has to be at least one millisecond and at most " + Long.MAX_VALUE +
+          " milliseconds.")
+        .build());
+    }
+    return step;
+  }
+
+  /**
+   * Returns the number of snapshots of an animation after the first one.
+   *
+   * @param request the configuration of the animation
+   * @return the number of steps
+   * @throws WebApplicationException if a bound, the unit or the step is invalid or the range is empty or takes
+   * more than the maximal number of steps
+   */
+  private static int getAnimationSteps(AnimationRequest request) {
+    long from = getTime(request.getFrom());
+    long to = getTime(request.getTo());
+    long step = getAnimationStep(request);
+    long steps = -1;
+    if (from <= to) {
+      try {
+        steps = Math.subtractExact(to, from) / step;
+      } catch (ArithmeticException e) {
+        // the range overflows, reported below
+      }
+    }
+    if (steps < 0 || steps > ServerConfig.ANIMATION_MAX_STEPS) {
+      throw new WebApplicationException(Response
+        .serverError()
+        .type(MediaType.TEXT_HTML_TYPE)
+        .entity("An animation has to end after its start and take at most " + ServerConfig.ANIMATION_MAX_STEPS +
+          " steps.")
+        .build());
+    }
+    return (int) steps;
+  }
+
+  /**
+   * Computes a snapshot.
+   *
+   * @param request the configuration of the snapshot operator
+   * @param graph the cached graph of the requested dataset
+   * @return the eCharts representation of the snapshot
+   */
+  private static StreamingOutput getSnapshot(SnapshotRequest request, CachedGraph graph) {
+    TimeDimension timeDimension = getSnapshotDimension(request.getDimension());
+    IntervalQuery predicate = getPredicate(request.getPredicate(), request.getTimestamp1(),
+      request.getTimestamp2());
+
+    // the snapshot is answered by the version stores of the cached graph, no job is necessary
+    CachedGraph snapshot = new CachedGraph(graph.getDatabaseName(), graph.getGraphHeads(),
+      graph.getVertexVersions(timeDimension, ServerConfig.SNAPSHOT_CHECKPOINTS).query(predicate),
+      graph.getEdgeVersions(timeDimension, ServerConfig.SNAPSHOT_CHECKPOINTS).query(predicate));
+    snapshot = restrictToBox(snapshot, graph, getBoundingBox(request.getBbox()));
+    return EChartsJSONBuilder.getJSONStream(snapshot.getGraphHeads(), snapshot.getVertices(),
+      ParallelEdges.of(request.getCollapseEdges()).apply(snapshot.getEdges()));
+  }
+
+  /**
+   * Computes the difference of two snapshots in memory, or adds it to the plan of the execution environment
+   * if the snapshots are too large.
+   *
+   * @param request the configuration of the difference operator
+   * @param graph the cached graph of the requested dataset
+   * @return the difference graph
+   */
+  private CollectedGraph getDifference(DifferenceRequest request, CachedGraph graph) {
+    TimeDimension timeDimension = getSnapshotDimension(request.getDimension());
+    IntervalQuery firstPredicate = getPredicate(request.getFirstPredicate(), request.getTimestamp11(),
+      request.getTimestamp12());
+    IntervalQuery secondPredicate = getPredicate(request.getSecondPredicate(), request.getTimestamp21(),
+      request.getTimestamp22());
+
+    // Elements satisfying neither predicate are removed by the difference operator, so only the elements
+    // of the two snapshots are shipped to the job.
+    CachedGraph snapshots = restrictToBox(graph.restrictToTime(timeDimension, firstPredicate, secondPredicate),
+      graph, getBoundingBox(request.getBbox()));
+    ParallelEdges parallelEdges = ParallelEdges.of(request.getCollapseEdges());
+    if (snapshots.getElementCount() <= ServerConfig.ENGINE_NATIVE_MAX_ELEMENTS) {
+      return new CollectedGraph(new NativeDiff(firstPredicate, secondPredicate, timeDimension).execute(snapshots),
+        parallelEdges);
+    }
+    return new CollectedGraph(toTemporalGraph(snapshots).diff(firstPredicate, secondPredicate, timeDimension),
+      parallelEdges);
+  }
+
+  /**
+   * Computes the grouping of a dataset from its rollup cube or in memory, or adds it to the plan of the
+   * execution environment if the dataset is too large.
+   *
+   * @param request the grouping configuration
+   * @param grouping the grouping operator built from the configuration
+   * @param graph the cached graph of the requested dataset
+   * @return the grouped graph
+   */
+  private CollectedGraph getGroupedGraph(KeyedGroupingRequest request, NativeKeyedGrouping grouping,
+    CachedGraph graph) {
+    // groupings by labels and coarse time stamp fields merge the partial aggregates of a rollup cube
+    RollupCube.Spec rollup = ServerConfig.ROLLUP_GRANULARITY == null ? null :
+      grouping.getRollupSpec(ServerConfig.ROLLUP_GRANULARITY);
+    if (rollup != null) {
+      return new CollectedGraph(grouping.execute(getRollupCube(graph, rollup), request.getVertexFilters(),
+        request.getEdgeFilters(), !request.getFilterAllEdges()));
+    }
+    // Apply the label filters to the cached graph, so filtered elements are never shipped to the job.
+    // If no edges are requested, none are shipped at all.
+    CachedGraph filtered =
+      graph.subgraph(request.getVertexFilters(), request.getEdgeFilters(), !request.getFilterAllEdges());
+    if (filtered.getElementCount() <= ServerConfig.ENGINE_NATIVE_MAX_ELEMENTS) {
+      return new CollectedGraph(grouping.execute(filtered));
+    }
+    return new CollectedGraph(toTemporalGraph(filtered).callForGraph(grouping.toKeyedGrouping()));
+  }
 
-    for (File current : Objects.requireNonNull(new File(path).listFiles())) {
-      if (current.isDirectory()) {
-        result.put(current.getName());
+  /**
+   * Returns the clustering pyramid of a cached graph, which is built if the graph has none yet.
+   *
+   * @param graph the cached graph
+   * @return the pyramid
+   */
+  private static ClusterPyramid getClusterPyramid(CachedGraph graph) {
+    AtomicReference<ClusterPyramid> pyramid = CLUSTER_PYRAMIDS.computeIfAbsent(graph, g -> new AtomicReference<>());
+    // concurrent requests of the graph wait for a single pyramid to be built
+    synchronized (pyramid) {
+      if (pyramid.get() == null) {
+        pyramid.set(new ClusterPyramid(graph, ServerConfig.CLUSTER_MAX_LEVEL));
       }
+      return pyramid.get();
     }
-    return Response.ok(result.toString()).build();
   }
 
   /**
-   * Get the complete graph in eChars-conform form.
+   * Returns a rollup cube of a cached graph covering the given time stamps, which is built if the graph has
+   * none yet.
    *
-   * @param databaseName name of the database
-   * @return Response containing the graph as a JSON, in eCharts conform format.
-   * @throws JSONException if JSON creation fails
-   * @throws IOException if reading fails
+   * @param graph the cached graph
+   * @param spec the time stamps the cube must be bucketed by
+   * @return the cube
    */
-  @POST
-  @Path("/graph/{databaseName}")
-  @Produces("application/json;charset=utf-8")
-  public Response getGraph(@PathParam("databaseName") String databaseName) throws Exception {
-    String path = RequestHandler.class.getResource("/data/" + databaseName).getPath();
+  private static RollupCube getRollupCube(CachedGraph graph, RollupCube.Spec spec) {
+    List<RollupCube> cubes = ROLLUP_CUBES.computeIfAbsent(graph, g -> new ArrayList<>());
+    // concurrent groupings of the graph wait for a single cube to be built
+    synchronized (cubes) {
+      for (RollupCube cube : cubes) {
+        if (cube.covers(spec)) {
+          return cube;
+        }
+      }
+      RollupCube cube = new RollupCube(graph, spec, ServerConfig.ROLLUP_GRANULARITY);
+      cubes.add(cube);
+      return cube;
+    }
+  }
 
-    TemporalCSVDataSource source = new TemporalCSVDataSource(path, temporalConfig);
-    TemporalGraph graph = source.getTemporalGraph();
-    String json = EChartsJSONBuilder.getJSONString(
-      graph.getGraphHead().collect(),
-      graph.getVertices().collect(),
-      graph.getEdges().collect());
+  /**
+   * Ships a cached graph to the jobs of the request. Their parallelism is sized by the number of shipped
+   * elements, so small inputs do not occupy more task slots than they benefit from.
+   *
+   * @param graph the cached graph to ship
+   * @return the temporal graph of the execution environment of the request
+   */
+  private TemporalGraph toTemporalGraph(CachedGraph graph) {
+    parallelism = Math.max(parallelism, Server.getJobCluster().getParallelism(graph.getElementCount()));
+    environment.setParallelism(parallelism);
+    return ship(graph, temporalConfig);
+  }
 
-    return Response.ok(json).build();
+  /**
+   * Returns a whole dataset as input of the jobs of the request. Its files are read by the jobs if the
+   * cluster can access them, otherwise the cached graph is shipped.
+   *
+   * @param dataset the cached graph of the dataset
+   * @return the temporal graph of the execution environment of the request
+   */
+  private TemporalGraph toTemporalDataset(CachedGraph dataset) {
+    parallelism = Math.max(parallelism, Server.getJobCluster().getParallelism(dataset.getElementCount()));
+    environment.setParallelism(parallelism);
+    return readDataset(dataset, temporalConfig);
   }
 
   /**
-   * Applies a key-based grouping.
+   * Returns a whole dataset as temporal graph of an execution environment. The jobs read the CSV files of
+   * the dataset from {@link ServerConfig#FLINK_REMOTE_DATA_DIR} if the cluster can access them, otherwise
+   * the cached graph is shipped with the jobs.
    *
-   * @param request the grouping configuration
-   * @return Response containing the graph as a JSON, in eCharts conform format.
+   * @param dataset the cached graph of the dataset
+   * @param config the configuration of the execution environment
+   * @return the temporal graph of the dataset
    */
-  @POST
-  @Path("/keyedgrouping")
-  @Produces("application/json;charset=utf-8")
-  public Response getData(KeyedGroupingRequest request) {
-    String databaseName = request.getDbName();
+  private static TemporalGraph readDataset(CachedGraph dataset, TemporalGradoopConfig config) {
+    String path = Server.getJobCluster().getDatasetPath(dataset.getDatabaseName());
+    return path == null ? ship(dataset, config) : new TemporalCSVDataSource(path, config).getTemporalGraph();
+  }
 
-    String path = RequestHandler.class.getResource("/data/" + databaseName).getPath();
+  /**
+   * Ships a cached graph within the jobs of an execution environment. The elements become part of the
+   * submitted jobs, so graphs exceeding the limit of the cluster are rejected.
+   *
+   * @param graph the cached graph to ship
+   * @param config the configuration of the execution environment
+   * @return the temporal graph of the cached graph
+   * @throws WebApplicationException if the graph has more elements than are shipped to the cluster
+   */
+  private static TemporalGraph ship(CachedGraph graph, TemporalGradoopConfig config) {
+    long maxShippedElements = Server.getJobCluster().getMaxShippedElements();
+    if (graph.getElementCount() > maxShippedElements) {
+      throw new WebApplicationException(Response
+        .serverError()
+        .type(MediaType.TEXT_HTML_TYPE)
+        .entity("The input of the Flink job has " + graph.getElementCount() + " elements, but at most " +
+          maxShippedElements + " elements are shipped to the remote cluster (tge.flink.remote.maxShippedElements)." +
+          " Whole datasets are read by the cluster if it can access them in tge.flink.remote.dataDir, smaller" +
+          " inputs are computed by the server up to tge.engine.nativeMaxElements.")
+        .build());
+    }
+    return graph.toTemporalGraph(config);
+  }
 
+  /**
+   * Builds the grouping operator of a grouping request.
+   *
+   * @param request the grouping configuration
+   * @return the grouping operator
+   * @throws WebApplicationException if a key or aggregate function has an element type other than vertex or
+   * edge
+   */
+  private NativeKeyedGrouping getGrouping(KeyedGroupingRequest request) {
     List<KeyFunction<TemporalVertex,?>> vertexKeyFunctions = new ArrayList<>();
     List<KeyFunction<TemporalEdge,?>> edgeKeyFunctions = new ArrayList<>();
     List<AggregateFunction> vertexAggregates = new ArrayList<>();
@@ -277,11 +1329,11 @@ public class RequestHandler {
         // We have a edge key function
         edgeKeyFunctions.add(getKeyFunction(keyFunction));
       } else {
-        return Response
+        throw new WebApplicationException(Response
           .serverError()
           .type(MediaType.TEXT_HTML_TYPE)
           .entity("A key function found with a element type other than [vertex,edge].")
-          .build();
+          .build());
       }
     }
 
@@ -293,399 +1345,465 @@ public class RequestHandler {
         // We have an edge agg function
         addAggFunctionToList(edgeAggregates, aggFunction);
       } else {
-        return Response
+        throw new WebApplicationException(Response
           .serverError()
           .type(MediaType.TEXT_HTML_TYPE)
           .entity("A aggregate function found with a element type other than [vertex,edge].")
-          .build();
+          .build());
       }
     }
 
-    TemporalCSVDataSource source = new TemporalCSVDataSource(path, temporalConfig);
-
-    TemporalGraph graph = source.getTemporalGraph();
-
-    // If no edges are requested, remove them as early as possible.
-    if(request.getFilterAllEdges()) {
-      graph = graph.subgraph(new LabelFilter<>(request.getVertexFilters()),
-        new AcceptNoneFilter<>());
-    } else {
-      graph = graph.subgraph(new LabelFilter<>(request.getVertexFilters()),
-        new LabelFilter<>(request.getEdgeFilters()));
-    }
-
-    graph = graph.callForGraph(
-      new KeyedGrouping<>(vertexKeyFunctions, vertexAggregates, edgeKeyFunctions, edgeAggregates));
-
-    return createResponse(graph);
+    return new NativeKeyedGrouping(vertexKeyFunctions, vertexAggregates, edgeKeyFunctions, edgeAggregates);
   }
 
   /**
-   * Applies the snapshot operator.
+   * Answers a query from the result cache, computing the response if it is not cached. If the client
+   * already knows an equivalent response, i.e., sends its entity tag, only {@code 304 Not Modified} is
+   * returned. Known and cached responses of the current version of the dataset are answered without loading
+   * it. Concurrent requests of the same uncached query join a single computation before they are admitted to
+   * the query executor, so only the first of them occupies a query thread and waits for a free one. The
+   * others wait for its result, at most for the timeout of the endpoint.
    *
-   * @param request the configuration of the snapshot operator.
-   * @return Response containing the graph as a JSON, in eCharts conform format.
+   * @param endpoint the name of the endpoint, used to determine the limits of the computation
+   * @param databaseName the name of the queried database
+   * @param key the canonical key of the query for a dataset version
+   * @param ifNoneMatch the value of the {@code If-None-Match} header, may be {@code null}
+   * @param computation computes the response body from the cached graph of the dataset
+   * @return the response
+   * @throws Exception if the computation fails
    */
-  @POST
-  @Path("/snapshot")
-  @Produces("application/json;charset=utf-8")
-  public Response getData(SnapshotRequest request) {
-
-    //load the database
-    String databaseName = request.getDbName();
-
-    String path = RequestHandler.class.getResource("/data/" + databaseName).getPath();
-
-    TemporalCSVDataSource source = new TemporalCSVDataSource(path, temporalConfig);
-
-    TemporalGraph graph = source.getTemporalGraph();
-
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-    LocalDateTime time1 = LocalDateTime.parse(request.getTimestamp1(), formatter);
-    LocalDateTime time2 = LocalDateTime.parse(request.getTimestamp2(), formatter);
-
-    TemporalPredicate predicate;
-
-    switch (request.getPredicate()) {
-    case "asOf":
-      predicate = new AsOf(time1);
-      break;
-    case "fromTo":
-      predicate = new FromTo(time1, time2);
-      break;
-    case "betweenAnd":
-      predicate = new Between(time1, time2);
-      break;
-    case "all":
-    default:
-      predicate = new All();
-      break;
-
+  private Response respond(String endpoint, String databaseName, QueryKey key, String ifNoneMatch,
+    GraphComputation computation) throws Exception {
+    String currentKey = key.of(getDatasetVersion(databaseName));
+    EntityTag currentTag = ResultCache.getEntityTag(currentKey);
+    if (ResultCache.matches(ifNoneMatch, currentTag)) {
+      return Response.notModified(currentTag).build();
     }
-
-    TimeDimension timeDimension;
-
-    switch (request.getDimension()) {
-    case "tx":
-      timeDimension = TimeDimension.TRANSACTION_TIME;
-      break;
-    case "val":
-    default:
-      timeDimension = TimeDimension.VALID_TIME;
+    byte[] cached = RESULTS.getIfPresent(currentKey);
+    if (cached != null) {
+      return Response.ok(cached).tag(currentTag).build();
     }
-
-    graph = graph.snapshot(predicate, timeDimension);
-
-    return createResponse(graph);
+    // the graph is loaded again if its files changed since the version was determined, a result of such a
+    // graph is newer than its key, which is not requested anymore
+    return orUnavailable(() -> Response.ok(RESULTS.get(currentKey,
+      () -> submit(endpoint, databaseName, () -> computation.compute(DATASETS.get(databaseName))),
+      ServerConfig.getQueryTimeout(endpoint))).tag(currentTag).build());
   }
 
   /**
-   * Applies the difference operator.
+   * Runs a query on the query executor, with the priority of its endpoint. If too many queries of the
+   * endpoint are waiting, the query is rejected immediately. The query, including its running Flink job,
+   * is cancelled if the timeout of the endpoint expires or the client cancels it by the id sent in the
+   * {@value #QUERY_ID_HEADER} header.
    *
-   * @param request the configuration of the difference operator.
-   * @return Response containing the graph as a JSON, in eCharts conform format.
+   * @param endpoint the name of the endpoint, used to determine the limits and the timeout
+   * @param databaseName the name of the queried database
+   * @param query the query
+   * @return the response of the query, or {@code 503 Service Unavailable} if the query was rejected or
+   * cancelled
+   * @throws Exception if the query fails
    */
-  @POST
-  @Path("/difference")
-  @Produces("application/json;charset=utf-8")
-  public Response getData(DifferenceRequest request) throws Exception {
-
-    //load the database
-    String databaseName = request.getDbName();
-
-    String path = RequestHandler.class.getResource("/data/" + databaseName).getPath();
-
-    TemporalCSVDataSource source = new TemporalCSVDataSource(path, temporalConfig);
-
-    TemporalGraph graph = source.getTemporalGraph();
-
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-    LocalDateTime time11 = LocalDateTime.parse(request.getTimestamp11(), formatter);
-    LocalDateTime time12 = LocalDateTime.parse(request.getTimestamp12(), formatter);
-
-    LocalDateTime time21 = LocalDateTime.parse(request.getTimestamp21(), formatter);
-    LocalDateTime time22 = LocalDateTime.parse(request.getTimestamp22(), formatter);
-
-    TemporalPredicate firstPredicate;
-
-    switch (request.getFirstPredicate()) {
-    case "asOf":
-      firstPredicate = new AsOf(time11);
-      break;
-    case "fromTo":
-      firstPredicate = new FromTo(time11, time12);
-      break;
-    case "betweenAnd":
-      firstPredicate = new Between(time11, time12);
-      break;
-    case "all":
-    default:
-      firstPredicate = new All();
-      break;
-    }
+  private Response run(String endpoint, String databaseName, Callable<Response> query) throws Exception {
+    return orUnavailable(() -> submit(endpoint, databaseName, query));
+  }
 
-    TemporalPredicate secondPredicate;
+  /**
+   * Runs a query on the query executor, with the priority and the limits of its endpoint, and waits for its
+   * result.
+   *
+   * @param endpoint the name of the endpoint, used to determine the limits and the timeout
+   * @param databaseName the name of the queried database
+   * @param query the query
+   * @param <V> the type of the result
+   * @return the result of the query
+   * @throws RejectedExecutionException if too many queries of the endpoint are waiting
+   * @throws TimeoutException if the timeout of the endpoint expired
+   * @throws CancellationException if the client cancelled the query
+   * @throws Exception if the query fails
+   */
+  private <V> V submit(String endpoint, String databaseName, Callable<V> query) throws Exception {
+    String queryId = headers.getRequestHeaders().getFirst(QUERY_ID_HEADER);
+    String sessionId = headers.getRequestHeaders().getFirst(SESSION_ID_HEADER);
+    return Server.getQueryExecutor().execute(queryId, sessionId, endpoint, databaseName, getPriority(endpoint),
+      query, ServerConfig.getQueryTimeout(endpoint), environment::cancel);
+  }
 
-    switch (request.getSecondPredicate()) {
-    case "asOf":
-      secondPredicate = new AsOf(time21);
-      break;
-    case "fromTo":
-      secondPredicate = new FromTo(time21, time22);
-      break;
-    case "betweenAnd":
-      secondPredicate = new Between(time21, time22);
-      break;
-    case "all":
-    default:
-      secondPredicate = new All();
-      break;
+  /**
+   * Returns the response of a request, or {@code 503 Service Unavailable} if its query was rejected,
+   * exceeded its timeout or was cancelled.
+   *
+   * @param request answers the request
+   * @return the response
+   * @throws Exception if the query fails
+   */
+  private static Response orUnavailable(Callable<Response> request) throws Exception {
+    try {
+      return request.call();
+    } catch (RejectedExecutionException e) {
+      return Response
+        .status(Response.Status.SERVICE_UNAVAILABLE)
+        .header("Retry-After", Server.getQueryExecutor().getRetryAfter())
+        .type(MediaType.TEXT_PLAIN_TYPE)
+        .entity(e.getMessage())
+        .build();
+    } catch (TimeoutException e) {
+      return Response
+        .status(Response.Status.SERVICE_UNAVAILABLE)
+        .type(MediaType.TEXT_PLAIN_TYPE)
+        .entity(e.getMessage())
+        .build();
+    } catch (CancellationException e) {
+      // the client abandoned the query, it does not read the response
+      return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
     }
+  }
 
-    TimeDimension timeDimension;
-
-    switch (request.getDimension()) {
-    case "tx":
-      timeDimension = TimeDimension.TRANSACTION_TIME;
-      break;
-    case "val":
+  /**
+   * Returns the priority class of the queries of an endpoint. Snapshots, differences and metadata are
+   * needed by a user waiting in front of the page, all other queries are analytical.
+   *
+   * @param endpoint the name of the endpoint
+   * @return the priority class
+   */
+  private static QueryPriority getPriority(String endpoint) {
+    switch (endpoint) {
+    case "snapshot":
+    case "animation":
+    case "clusters":
+    case "evolution":
+    case "difference":
+    case "keys":
+      return QueryPriority.INTERACTIVE;
     default:
-      timeDimension = TimeDimension.VALID_TIME;
+      return QueryPriority.ANALYTICAL;
     }
-
-    graph = graph.diff(firstPredicate, secondPredicate, timeDimension);
-
-    return createResponse(graph);
   }
 
   /**
-   * Creates the eCharts representation of the temporal graph used as response to the frontend.
+   * Returns the canonical form of a grouping request. Filters are sets, so they are sorted, and edge
+   * filters are ignored if all edges are filtered. The request itself is not modified.
    *
-   * @param graph the graph to submit to the frontend
-   * @return a Response as eCharts representation of the temporal graph
+   * @param request the grouping request
+   * @return the canonical JSON form of the request
+   * @throws IOException if the serialization fails
    */
-  private Response createResponse(TemporalGraph graph) {
-    List<TemporalGraphHead> resultHead = new ArrayList<>();
-    List<TemporalVertex> resultVertices = new ArrayList<>();
-    List<TemporalEdge> resultEdges = new ArrayList<>();
-
-    graph.getGraphHead().output(new LocalCollectionOutputFormat<>(resultHead));
-    graph.getVertices().output(new LocalCollectionOutputFormat<>(resultVertices));
-    graph.getEdges().output(new LocalCollectionOutputFormat<>(resultEdges));
-
-    try {
-      ENV.execute();
-      // build the response JSON from the collections
-      String json = EChartsJSONBuilder.getJSONString(resultHead, resultVertices, resultEdges);
-      return Response.ok(json).build();
+  private static String getCanonicalForm(KeyedGroupingRequest request) throws IOException {
+    KeyedGroupingRequest canonical = new KeyedGroupingRequest();
+    canonical.setDbName(request.getDbName());
+    canonical.setKeyFunctions(request.getKeyFunctions());
+    canonical.setAggFunctions(request.getAggFunctions());
+    canonical.setFilterAllEdges(request.getFilterAllEdges());
+    canonical.setVertexFilters(getSortedCopy(request.getVertexFilters()));
+    canonical.setEdgeFilters(request.getFilterAllEdges() ? new String[0] : getSortedCopy(request.getEdgeFilters()));
+    return CANONICAL_MAPPER.writeValueAsString(canonical);
+  }
 
-    } catch (Exception e) {
-      e.printStackTrace();
-      // if any exception is thrown, return an error to the client
-      return Response.serverError().build();
+  /**
+   * Returns a sorted copy of a set of filters.
+   *
+   * @param filters the filters, may be {@code null}
+   * @return the sorted copy, {@code null} if the filters are {@code null}
+   */
+  private static String[] getSortedCopy(String[] filters) {
+    if (filters == null) {
+      return null;
     }
+    String[] sorted = filters.clone();
+    Arrays.sort(sorted);
+    return sorted;
   }
 
   /**
-   * Compute property keys, labels and spatial bounds, if possible.
+   * Reads the given database and materializes it in memory. Datasets converted to the binary format are read
+   * directly, otherwise the CSV files are parsed by a job. Binary files older than the CSV files are stale and
+   * ignored, as are binary files that can not be read. Used by the dataset cache on cache misses.
    *
-   * @return JSONObject containing property keys and labels
+   * @param databaseName name of the database
+   * @param version the version of the dataset files, determined before they are read
+   * @return the materialized graph
+   * @throws Exception if reading fails
    */
-  private JSONObject computeKeysAndLabels(String databaseName) {
+  private static CachedGraph loadDataset(String databaseName, long version) throws Exception {
     String path = RequestHandler.class.getResource("/data/" + databaseName).getPath();
 
-    TemporalCSVDataSource source = new TemporalCSVDataSource(path, temporalConfig);
-
+    ExecutionEnvironment env = Server.getJobCluster().createEnvironment();
+    if (BinaryGraphFormat.isCurrent(new File(path))) {
+      BinaryGraphSource source = new BinaryGraphSource(path, TemporalGradoopConfig.createConfig(env));
+      try {
+        return new CachedGraph(databaseName, version, source.readGraphHeads(), source.readVertices(),
+          source.readEdges());
+      } catch (IOException e) {
+        // the binary files are corrupt, the CSV files are read instead
+        e.printStackTrace();
+      }
+    }
+    TemporalCSVDataSource source = new TemporalCSVDataSource(path, TemporalGradoopConfig.createConfig(env));
     TemporalGraph graph = source.getTemporalGraph();
 
-    JSONObject jsonObject = new JSONObject();
+    CollectedDataSet<TemporalGraphHead> graphHeads = new CollectedDataSet<>(graph.getGraphHead());
+    CollectedDataSet<TemporalVertex> vertices = new CollectedDataSet<>(graph.getVertices());
+    CollectedDataSet<TemporalEdge> edges = new CollectedDataSet<>(graph.getEdges());
+    env.execute();
 
-    try {
-      jsonObject.put("vertexKeys", getVertexKeys(graph));
-      jsonObject.put("edgeKeys", getEdgeKeys(graph));
-      jsonObject.put("vertexLabels", getVertexLabels(graph));
-      jsonObject.put("edgeLabels", getEdgeLabels(graph));
-      jsonObject.put("spatialData", getSpatialData(graph));
-      String dataPath = RequestHandler.class.getResource(String.format("/data/%s/%s", databaseName, META_FILENAME))
-        .getFile();
-      FileWriter writer = new FileWriter(dataPath);
-      jsonObject.write(writer);
-      writer.flush();
-      writer.close();
-
-      return jsonObject;
-    } catch (Exception e) {
-      e.printStackTrace();
-      // if any exception is thrown, return an error to the client
-      return null;
-    }
+    return new CachedGraph(databaseName, version, graphHeads.get(), vertices.get(), edges.get());
+  }
+
+  /**
+   * Compute property keys, labels and spatial bounds, if possible, and store them in the metadata store as
+   * metadata of the version of the cached graph.
+   *
+   * @param cached the cached graph of the database
+   * @param graph the cached graph in the execution environment to use
+   * @return JSONObject containing property keys and labels
+   * @throws Exception if the computation or storing fails
+   */
+  private static JSONObject computeKeysAndLabels(CachedGraph cached, TemporalGraph graph) throws Exception {
+    JSONObject jsonObject = getMetadata(getMetadataTuples(graph).collect());
+    METADATA.write(cached.getDatabaseName(), cached.getVersion(), jsonObject);
+    return jsonObject;
   }
 
   /**
-   * Read the property keys and labels from the buffered JSON.
+   * Read the property keys and labels from the metadata store or, if not available there, from a
+   * {@code metadata.json} shipped with the dataset, unless the dataset was modified after it.
    *
    * @param databaseName name of the database
-   * @return JSONObject containing the property keys and labels
+   * @return JSONObject containing the property keys and labels or {@code null}, if no up to date metadata is
+   * available
    * @throws IOException if reading fails
    * @throws JSONException if JSON creation fails
-   * @throws URISyntaxException if resource path is wrong
    */
-  private JSONObject readKeysAndLabels(String databaseName) throws IOException, JSONException,
-    URISyntaxException {
-    URI dataPath = RequestHandler.class.getResource(String.format("/data/%s/%s", databaseName, META_FILENAME))
-      .toURI();
-    String content = new String(Files.readAllBytes(Paths.get(dataPath)), StandardCharsets.UTF_8);
-
-    return new JSONObject(content);
+  private static JSONObject readKeysAndLabels(String databaseName) throws IOException, JSONException {
+    JSONObject stored = METADATA.read(databaseName, getDatasetVersion(databaseName));
+    if (stored != null) {
+      return stored;
+    }
+    if (!isBundledMetadataCurrent(databaseName)) {
+      return null;
+    }
+    try (InputStream bundled = RequestHandler.class.getResourceAsStream(
+      String.format("/data/%s/%s", databaseName, MetadataStore.META_FILENAME))) {
+      if (bundled == null) {
+        return null;
+      }
+      return new JSONObject(IOUtils.toString(bundled, StandardCharsets.UTF_8));
+    }
   }
 
   /**
-   * Takes any given graph and creates a JSONArray containing the vertex property keys and a boolean,
-   * specifying it the property has a numerical type.
+   * Checks if the {@code metadata.json} shipped with a dataset is at least as new as all other files of the
+   * dataset, i.e., its graph heads, vertices and edges. Datasets that are not stored in the file system can
+   * not be checked, their bundled metadata is considered current.
    *
-   * @param graph input graph
-   * @return  JSON array with property keys and boolean, that is true if the property type is numerical
-   * @throws Exception if the collecting of the distributed data fails
+   * @param databaseName name of the database
+   * @return true, if the bundled metadata describes the current files of the dataset
    */
-  private JSONArray getVertexKeys(TemporalGraph graph) throws Exception {
-
-    List<Tuple3<Set<String>, String, Boolean>> vertexKeys = graph.getVertices()
-      .flatMap(new PropertyKeyMapper<>())
-      .groupBy(1)
-      .reduceGroup(new LabelGroupReducer())
-      .collect();
+  private static boolean isBundledMetadataCurrent(String databaseName) {
+    File directory = getDatasetDirectory(databaseName);
+    if (directory == null) {
+      return true;
+    }
+    File bundled = new File(directory, MetadataStore.META_FILENAME);
+    for (File file : Objects.requireNonNull(directory.listFiles())) {
+      if (!file.equals(bundled) && lastModified(file) > bundled.lastModified()) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-    return buildArrayFromKeys(vertexKeys);
+  /**
+   * Computes the metadata of all datasets without up to date metadata. Runs in the background at server
+   * start, as background queries with a parallelism of one, so it does not compete with other queries for
+   * threads and task slots. Datasets are not added to the dataset cache by this method.
+   */
+  static void precomputeMetadata() {
+    for (String databaseName : listDatasets()) {
+      try {
+        if (readKeysAndLabels(databaseName) != null) {
+          continue;
+        }
+        JobClusterEnvironment env = Server.getJobCluster().createEnvironment();
+        env.setParallelism(1);
+        QueryExecutor executor = Server.getQueryExecutor();
+        executor.execute(null, null, "precompute", databaseName, QueryPriority.BACKGROUND, () -> {
+          CachedGraph graph = DATASETS.getIfCurrent(databaseName);
+          if (graph == null) {
+            graph = loadDataset(databaseName, getDatasetVersion(databaseName));
+          }
+          return computeKeysAndLabels(graph, readDataset(graph, TemporalGradoopConfig.createConfig(env)));
+        }, Long.MAX_VALUE, env::cancel);
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }
   }
 
   /**
-   * Takes any given graph and creates a JSONArray containing the edge property keys and a boolean,
-   * specifying it the property has a numerical type.
+   * Returns the names of all datasets, i.e., the sub directories of the {@code /data} resource directory.
    *
-   * @param graph input graph
-   * @return  JSON array with property keys and boolean, that is true if the property type is
-   * numercial
-   * @throws Exception if the collecting of the distributed data fails
+   * @return the names of all datasets
    */
-  private JSONArray getEdgeKeys(TemporalGraph graph) throws Exception {
+  static List<String> listDatasets() {
+    final URL resource = RequestHandler.class.getResource("/data");
+    List<String> result = new ArrayList<>();
 
-    List<Tuple3<Set<String>, String, Boolean>> edgeKeys = graph.getEdges()
-      .flatMap(new PropertyKeyMapper<>())
-      .groupBy(1)
-      .reduceGroup(new LabelGroupReducer())
-      .collect();
+    String path = resource.getPath();
 
-    return buildArrayFromKeys(edgeKeys);
+    for (File current : Objects.requireNonNull(new File(path).listFiles())) {
+      if (current.isDirectory()) {
+        result.add(current.getName());
+      }
+    }
+    return result;
   }
 
   /**
-   * Convenience method.
-   * Takes a set of tuples of property keys and booleans, specifying if the property is numerical,
-   * and creates a JSON array containing the same data.
+   * Returns the version of a dataset, i.e., the latest modification time of its files.
    *
-   * @param keys set of tuples of property keys and booleans, that are true if the property type
-   *             is numerical
-   * @return JSONArray containing the same data as the input
-   * @throws JSONException if the construction of the JSON fails
+   * @param databaseName name of the database
+   * @return the latest modification time in milliseconds since epoch or 0, if the dataset is not stored in the
+   * file system
    */
-  private JSONArray buildArrayFromKeys(List<Tuple3<Set<String>, String, Boolean>> keys)
-    throws JSONException {
-    JSONArray keyArray = new JSONArray();
-    for(Tuple3<Set<String>, String, Boolean> key : keys) {
-      JSONObject keyObject = new JSONObject();
-      JSONArray labels = new JSONArray();
-      key.f0.forEach(labels::put);
-      keyObject.put("labels", labels);
-      keyObject.put("name", key.f1);
-      keyObject.put("numerical", key.f2);
-      keyArray.put(keyObject);
-    }
-    return keyArray;
+  private static long getDatasetVersion(String databaseName) {
+    File directory = getDatasetDirectory(databaseName);
+    return directory == null ? 0 : lastModified(directory);
   }
 
   /**
-   * Compute the labels of the vertices.
+   * Returns the latest modification time of the given file or any file below the given directory.
    *
-   * @param graph logical graph
-   * @return JSONArray containing the vertex labels
-   * @throws Exception if the computation fails
+   * @param file a file or directory
+   * @return the latest modification time in milliseconds since epoch
    */
-  private JSONArray getVertexLabels(TemporalGraph graph) throws Exception {
-    List<Set<String>> vertexLabels = graph.getVertices()
-      .map(new LabelMapper<>())
-      .reduce(new LabelReducer())
-      .collect();
-
-    if(vertexLabels.size() > 0) {
-      return buildArrayFromLabels(vertexLabels.get(0));
-    } else {
-      return new JSONArray();
+  private static long lastModified(File file) {
+    long lastModified = file.lastModified();
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        lastModified = Math.max(lastModified, lastModified(child));
+      }
     }
+    return lastModified;
   }
 
   /**
-   * Compute the labels of the edges.
+   * Returns the directory of a dataset.
    *
-   * @param graph logical graph
-   * @return JSONArray containing the edge labels
-   * @throws Exception if the computation fails
+   * @param databaseName name of the database
+   * @return the directory of the dataset or {@code null}, if the dataset is not stored in the file system
    */
-  private JSONArray getEdgeLabels(TemporalGraph graph ) throws Exception {
-    List<Set<String>> edgeLabels = graph.getEdges()
-      .map(new LabelMapper<>())
-      .reduce(new LabelReducer())
-      .collect();
-
-    if(edgeLabels.size() > 0) {
-      return buildArrayFromLabels(edgeLabels.get(0));
-    } else {
-      return new JSONArray();
+  private static File getDatasetDirectory(String databaseName) {
+    URL resource = RequestHandler.class.getResource("/data/" + databaseName);
+    if (resource == null || !"file".equals(resource.getProtocol())) {
+      return null;
     }
+    return new File(resource.getPath());
   }
 
   /**
-   * Compute the spatial bounds of the graph.
+   * Adds the computation of the property keys, labels and spatial bounds of the given graph to the plan. All
+   * metadata is extracted in one pass over the vertices and edges and combined before it is shuffled.
    *
-   * @param graph the graph used to aggregate the values
-   * @return JSONObject containing the aggregated spatial data
-   * @throws Exception if the computation fails
+   * @param graph input graph
+   * @return the metadata tuples, see {@link ElementMetadataMapper}
    */
-  private JSONObject getSpatialData(TemporalGraph graph) throws Exception {
-    graph = graph.aggregate(
-      new MinVertexProperty("lat", MIN_LAT),
-      new MaxVertexProperty("lat", MAX_LAT),
-      new MinVertexProperty("long", MIN_LONG),
-      new MaxVertexProperty("long", MAX_LONG));
-
-    List<Tuple2<String, Double>> spatialData = graph.getGraphHead()
-      .flatMap(new PropertyKeyValueMapper())
-      .collect();
-
-    JSONObject spatialDataObject = new JSONObject();
+  private static DataSet<Tuple6<String, String, String, Boolean, Double, Double>> getMetadataTuples(
+    TemporalGraph graph) {
+    return graph.getVertices()
+      .flatMap(new ElementMetadataMapper<>(true))
+      .union(graph.getEdges().flatMap(new ElementMetadataMapper<>(false)))
+      .groupBy(0, 1, 2)
+      .reduce(new MetadataReducer());
+  }
 
-    spatialData.forEach(t -> {
-      try {
-        spatialDataObject.put(t.f0, t.f1);
-      } catch (JSONException e) {
-        e.printStackTrace();
+  /**
+   * Converts the computed metadata tuples of a graph to JSON.
+   *
+   * @param metadata the metadata tuples computed by {@link #getMetadataTuples(TemporalGraph)}
+   * @return JSONObject containing property keys, labels and spatial bounds
+   * @throws JSONException if JSON creation fails
+   */
+  private static JSONObject getMetadata(List<Tuple6<String, String, String, Boolean, Double, Double>> metadata)
+    throws JSONException {
+    // property key -> (labels, numerical)
+    Map<String, Tuple2<Set<String>, Boolean>> vertexKeys = new TreeMap<>();
+    Map<String, Tuple2<Set<String>, Boolean>> edgeKeys = new TreeMap<>();
+    Set<String> vertexLabels = new TreeSet<>();
+    Set<String> edgeLabels = new TreeSet<>();
+    JSONObject spatialData = new JSONObject();
+    spatialData.put(MIN_LAT, 0.);
+    spatialData.put(MAX_LAT, 0.);
+    spatialData.put(MIN_LONG, 0.);
+    spatialData.put(MAX_LONG, 0.);
+
+    for (Tuple6<String, String, String, Boolean, Double, Double> tuple : metadata) {
+      switch (tuple.f0) {
+      case ElementMetadataMapper.VERTEX_KEY:
+        addKey(vertexKeys, tuple);
+        break;
+      case ElementMetadataMapper.EDGE_KEY:
+        addKey(edgeKeys, tuple);
+        break;
+      case ElementMetadataMapper.VERTEX_LABEL:
+        vertexLabels.add(tuple.f1);
+        break;
+      case ElementMetadataMapper.EDGE_LABEL:
+        edgeLabels.add(tuple.f1);
+        break;
+      case ElementMetadataMapper.SPATIAL:
+        boolean isLat = tuple.f1.equals(ElementMetadataMapper.LAT);
+        spatialData.put(isLat ? MIN_LAT : MIN_LONG, tuple.f4);
+        spatialData.put(isLat ? MAX_LAT : MAX_LONG, tuple.f5);
+        break;
+      default:
+        break;
       }
-    });
+    }
+
+    JSONObject jsonObject = new JSONObject();
+    jsonObject.put("vertexKeys", buildArrayFromKeys(vertexKeys));
+    jsonObject.put("edgeKeys", buildArrayFromKeys(edgeKeys));
+    jsonObject.put("vertexLabels", new JSONArray(vertexLabels));
+    jsonObject.put("edgeLabels", new JSONArray(edgeLabels));
+    jsonObject.put("spatialData", spatialData);
+    return jsonObject;
+  }
 
-    return spatialDataObject;
+  /**
+   * Adds a property key tuple computed by {@link #getMetadataTuples(TemporalGraph)} to the map of keys.
+   *
+   * @param keys map of property keys to their labels and a boolean, that is true if the property is numerical
+   * @param tuple the property key tuple
+   */
+  private static void addKey(Map<String, Tuple2<Set<String>, Boolean>> keys,
+    Tuple6<String, String, String, Boolean, Double, Double> tuple) {
+    Tuple2<Set<String>, Boolean> key = keys.computeIfAbsent(tuple.f1, k -> Tuple2.of(new TreeSet<>(), true));
+    key.f0.add(tuple.f2);
+    key.f1 = key.f1 && tuple.f3;
   }
 
   /**
-   * Create a JSON array from the sets of labels.
+   * Convenience method.
+   * Takes a map of property keys to their labels and booleans, specifying if the property is numerical,
+   * and creates a JSON array containing the same data.
    *
-   * @param labels set of labels
-   * @return JSON array of labels
+   * @param keys map of property keys to their labels and booleans, that are true if the property type
+   *             is numerical
+   * @return JSONArray containing the same data as the input
+   * @throws JSONException if the construction of the JSON fails
    */
-  private JSONArray buildArrayFromLabels(Set<String> labels) {
-    JSONArray labelArray = new JSONArray();
-    labels.forEach(labelArray::put);
-    return labelArray;
+  private static JSONArray buildArrayFromKeys(Map<String, Tuple2<Set<String>, Boolean>> keys)
+    throws JSONException {
+    JSONArray keyArray = new JSONArray();
+    for (Map.Entry<String, Tuple2<Set<String>, Boolean>> key : keys.entrySet()) {
+      JSONObject keyObject = new JSONObject();
+      keyObject.put("labels", new JSONArray(key.getValue().f0));
+      keyObject.put("name", key.getKey());
+      keyObject.put("numerical", key.getValue().f1);
+      keyArray.put(keyObject);
+    }
+    return keyArray;
   }
 
   /**
@@ -755,23 +1873,16 @@ public class RequestHandler {
     case "label":
       return GroupingKeys.label();
     case "property":
-      return GroupingKeys.property(keyFunction.getProp());
+      return NativeGroupingKeys.property(keyFunction.getProp());
     case "timestamp":
-      if (keyFunction.getField().equals("no")) {
-        return
-          TemporalGroupingKeys.timeStamp(
-            getTimeDimension(keyFunction.getDimension()),
-            getPeriodBound(keyFunction.getPeriodBound()));
-      } else {
-        return
-          TemporalGroupingKeys.timeStamp(
-            getTimeDimension(keyFunction.getDimension()),
-            getPeriodBound(keyFunction.getPeriodBound()),
-            getTemporalField(keyFunction.getField()));
-      }
+      return
+        NativeGroupingKeys.timeStamp(
+          getTimeDimension(keyFunction.getDimension()),
+          getPeriodBound(keyFunction.getPeriodBound()),
+          keyFunction.getField().equals("no") ? null : getTemporalField(keyFunction.getField()));
     case "interval":
       return
-        TemporalGroupingKeys.timeInterval(
+        NativeGroupingKeys.timeInterval(
           getTimeDimension(keyFunction.getDimension()));
     case "duration":
       return
@@ -783,6 +1894,35 @@ public class RequestHandler {
     }
   }
 
+  /**
+   * Parses the viewport of a request.
+   *
+   * @param bbox the viewport as {@code west,south,east,north}
+   * @return the bounding box, {@code null} if no viewport is given
+   * @throws WebApplicationException if the viewport is malformed or crosses the antimeridian
+   */
+  private static BoundingBox getBoundingBox(String bbox) {
+    try {
+      return BoundingBox.parse(bbox);
+    } catch (IllegalArgumentException e) {
+      throw new WebApplicationException(Response
+        .serverError()
+        .type(MediaType.TEXT_HTML_TYPE)
+        .entity(e.getMessage())
+        .build());
+    }
+  }
+
+  /**
+   * Returns the time dimension of a snapshot or difference request, either {@code tx} or {@code val}.
+   *
+   * @param name the short name of the dimension
+   * @return the time dimension, valid time by default
+   */
+  private static TimeDimension getSnapshotDimension(String name) {
+    return "tx".equals(name) ? TimeDimension.TRANSACTION_TIME : TimeDimension.VALID_TIME;
+  }
+
   private TimeDimension getTimeDimension(String name) {
     return TimeDimension.valueOf(name);
   }
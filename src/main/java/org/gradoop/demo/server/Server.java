@@ -15,17 +15,26 @@
  */
 package org.gradoop.demo.server;
 
-import com.sun.jersey.api.container.grizzly2.GrizzlyServerFactory;
+import com.sun.jersey.api.container.ContainerFactory;
 import com.sun.jersey.api.core.PackagesResourceConfig;
 import com.sun.jersey.api.core.ResourceConfig;
 import com.sun.jersey.api.json.JSONConfiguration;
+import org.gradoop.demo.server.execution.JobCluster;
+import org.gradoop.demo.server.execution.LocalJobCluster;
+import org.gradoop.demo.server.execution.QueryExecutor;
+import org.gradoop.demo.server.execution.RemoteJobCluster;
 import org.glassfish.grizzly.http.server.HttpHandler;
 import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
 import org.glassfish.grizzly.http.server.StaticHttpHandler;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
 
 import javax.ws.rs.core.UriBuilder;
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Basic class, used for starting and stopping the server.
@@ -44,6 +53,16 @@ public class Server {
    * Path to demo application
    */
   private static final String APPLICATION_PATH = "gradoop/html/snapshot.html";
+  /**
+   * The Flink cluster shared by all requests.
+   */
+  private static final JobCluster JOB_CLUSTER = createJobCluster();
+  /**
+   * The threads running the queries of all requests.
+   */
+  private static final QueryExecutor QUERY_EXECUTOR = new QueryExecutor(ServerConfig.QUERY_THREADS,
+    ServerConfig.QUERY_INTERACTIVE_RESERVE, ServerConfig::getQueryMaxRunning,
+    ServerConfig.QUERY_MAX_RUNNING_PER_DATASET, ServerConfig.QUERY_MAX_QUEUED_PER_ENDPOINT);
 
   /**
    * Creates the base URI.
@@ -65,22 +84,87 @@ public class Server {
       "Press any key to stop it.%n", getBaseURI(), APPLICATION_PATH);
     System.in.read();
     httpServer.stop();
+    QUERY_EXECUTOR.close();
+    JOB_CLUSTER.close();
+  }
+
+  /**
+   * Creates the Flink cluster configured by {@link ServerConfig#FLINK_BACKEND}. A local cluster gets
+   * additional task slots for the jobs of the interactive queries.
+   *
+   * @return the Flink cluster, not started yet
+   */
+  private static JobCluster createJobCluster() {
+    switch (ServerConfig.FLINK_BACKEND) {
+    case "local":
+      return new LocalJobCluster(
+        ServerConfig.FLINK_TASK_SLOTS + ServerConfig.QUERY_INTERACTIVE_RESERVE * ServerConfig.FLINK_PARALLELISM,
+        ServerConfig.FLINK_PARALLELISM, ServerConfig.FLINK_ELEMENTS_PER_TASK, ServerConfig.FLINK_MANAGED_MEMORY,
+        ServerConfig.FLINK_REST_PORT);
+    case "remote":
+      List<File> jars = new ArrayList<>();
+      for (String jar : ServerConfig.FLINK_REMOTE_JARS.split(",")) {
+        if (!jar.trim().isEmpty()) {
+          jars.add(new File(jar.trim()));
+        }
+      }
+      return new RemoteJobCluster(ServerConfig.FLINK_REMOTE_HOST, ServerConfig.FLINK_REMOTE_PORT, jars,
+        ServerConfig.FLINK_REMOTE_DATA_DIR, ServerConfig.FLINK_REMOTE_MAX_SHIPPED_ELEMENTS,
+        ServerConfig.FLINK_PARALLELISM, ServerConfig.FLINK_ELEMENTS_PER_TASK);
+    default:
+      throw new IllegalArgumentException("Unknown Flink backend: " + ServerConfig.FLINK_BACKEND);
+    }
+  }
+
+  /**
+   * Returns the Flink cluster shared by all requests.
+   *
+   * @return the Flink cluster
+   */
+  static JobCluster getJobCluster() {
+    return JOB_CLUSTER;
+  }
+
+  /**
+   * Returns the threads running the queries of all requests.
+   *
+   * @return the query executor
+   */
+  static QueryExecutor getQueryExecutor() {
+    return QUERY_EXECUTOR;
   }
 
   /**
    * Starts the server and adds the request handlers.
    *
    * @return the running server
-   * @throws IOException if server creation fails
+   * @throws Exception if server or cluster creation fails
    */
-  private static HttpServer startServer() throws IOException {
+  private static HttpServer startServer() throws Exception {
+    System.out.println("Starting Flink cluster...");
+    JOB_CLUSTER.start();
     System.out.println("Starting grizzly...");
     ResourceConfig rc = new PackagesResourceConfig("org/gradoop/demo/server");
     rc.getFeatures().put(JSONConfiguration.FEATURE_POJO_MAPPING, true);
-    HttpServer server = GrizzlyServerFactory.createHttpServer(BASE_URI, rc);
+    HttpServer server = new HttpServer();
+    NetworkListener listener = new NetworkListener("grizzly", BASE_URI.getHost(), BASE_URI.getPort());
+    // the request threads mostly wait for the queries running on the query executor
+    listener.getTransport().setWorkerThreadPoolConfig(ThreadPoolConfig.defaultConfig()
+      .setCorePoolSize(ServerConfig.HTTP_THREADS)
+      .setMaxPoolSize(ServerConfig.HTTP_THREADS));
+    server.addListener(listener);
+    server.getServerConfiguration().addHttpHandler(ContainerFactory.createContainer(HttpHandler.class, rc), "/");
     HttpHandler staticHandler = new StaticHttpHandler(
       Server.class.getResource("/web").getPath());
     server.getServerConfiguration().addHttpHandler( staticHandler, "/gradoop" );
+    server.start();
+
+    if (ServerConfig.METADATA_PRECOMPUTE) {
+      Thread precomputation = new Thread(RequestHandler::precomputeMetadata, "metadata-precomputation");
+      precomputation.setDaemon(true);
+      precomputation.setPriority(Thread.MIN_PRIORITY);
+      precomputation.start();
+    }
 
     return server;
   }
@@ -0,0 +1,237 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server;
+
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of the server. Every setting can be overwritten by a system property, e.g.
+ * {@code -Dtge.cache.maxDatasets=8}.
+ */
+public final class ServerConfig {
+
+  /**
+   * Maximal number of datasets kept in the in-memory dataset cache.
+   */
+  public static final int CACHE_MAX_DATASETS = Integer.getInteger("tge.cache.maxDatasets", 4);
+
+  /**
+   * Maximal number of elements (graph heads, vertices and edges) kept in the in-memory dataset cache.
+   */
+  public static final long CACHE_MAX_ELEMENTS = Long.getLong("tge.cache.maxElements", 10_000_000L);
+
+  /**
+   * Maximal number of bytes of rendered responses kept in the in-memory result cache.
+   */
+  public static final long RESULT_CACHE_MAX_BYTES = Long.getLong("tge.resultCache.maxBytes", 256L << 20);
+
+  /**
+   * The Flink cluster running the jobs of all requests: {@code local} for a cluster embedded into the
+   * server, {@code remote} for a session cluster reachable at {@link #FLINK_REMOTE_HOST}.
+   */
+  public static final String FLINK_BACKEND = System.getProperty("tge.flink.backend", "local");
+
+  /**
+   * Number of task slots of the local Flink cluster shared by all requests.
+   */
+  public static final int FLINK_TASK_SLOTS =
+    Integer.getInteger("tge.flink.taskSlots", Runtime.getRuntime().availableProcessors());
+
+  /**
+   * Size of the managed memory of the local Flink cluster, e.g., {@code 512m}. By default, a fraction of the
+   * free heap is used.
+   */
+  public static final String FLINK_MANAGED_MEMORY = System.getProperty("tge.flink.managedMemory");
+
+  /**
+   * Port of the REST endpoint of the local Flink cluster. By default, a random port is used.
+   */
+  public static final int FLINK_REST_PORT = Integer.getInteger("tge.flink.restPort", 0);
+
+  /**
+   * Host of the JobManager of the remote Flink cluster.
+   */
+  public static final String FLINK_REMOTE_HOST = System.getProperty("tge.flink.remote.host", "localhost");
+
+  /**
+   * Port of the REST endpoint of the JobManager of the remote Flink cluster.
+   */
+  public static final int FLINK_REMOTE_PORT = Integer.getInteger("tge.flink.remote.port", 8081);
+
+  /**
+   * Comma separated paths of the jars shipped with every job to the remote Flink cluster, usually the jar
+   * built by {@code mvn package}.
+   */
+  public static final String FLINK_REMOTE_JARS =
+    System.getProperty("tge.flink.remote.jars", "target/temporal-graph-explorer-0.2.0.jar");
+
+  /**
+   * Directory containing a copy of the datasets that the remote Flink cluster can read, e.g., on HDFS.
+   * Jobs on whole datasets read their CSV files from there instead of shipping them with the job. By
+   * default, no such directory exists.
+   */
+  public static final String FLINK_REMOTE_DATA_DIR = System.getProperty("tge.flink.remote.dataDir");
+
+  /**
+   * Maximal number of elements of a graph shipped to the remote Flink cluster within a job. The elements are
+   * part of the submitted job, which has to fit into the {@code rest.server.max-content-length} of the
+   * cluster (100 MB by default). Jobs on larger graphs are rejected.
+   */
+  public static final long FLINK_REMOTE_MAX_SHIPPED_ELEMENTS =
+    Long.getLong("tge.flink.remote.maxShippedElements", 250_000L);
+
+  /**
+   * Maximal parallelism of a single Flink job. Several jobs run concurrently as long as free task slots are
+   * available.
+   */
+  public static final int FLINK_PARALLELISM =
+    Integer.getInteger("tge.flink.parallelism", Math.max(1, FLINK_TASK_SLOTS / 4));
+
+  /**
+   * Number of input elements processed by a single parallel task. The parallelism of a job is sized by the
+   * number of elements it processes, up to {@link #FLINK_PARALLELISM}.
+   */
+  public static final long FLINK_ELEMENTS_PER_TASK = Long.getLong("tge.flink.elementsPerTask", 100_000L);
+
+  /**
+   * Maximal number of input elements of a difference or grouping computed in memory by the server instead of
+   * by a Flink job. Small inputs are answered faster without the overhead of a job, {@code 0} always uses
+   * Flink.
+   */
+  public static final long ENGINE_NATIVE_MAX_ELEMENTS = Long.getLong("tge.engine.nativeMaxElements", 1_000_000L);
+
+  /**
+   * Number of checkpoints of the version stores answering as-of snapshots, per element kind and time
+   * dimension. Each checkpoint takes one bit per element, more checkpoints leave fewer changes to apply.
+   */
+  public static final int SNAPSHOT_CHECKPOINTS = Integer.getInteger("tge.snapshot.checkpoints", 32);
+
+  /**
+   * Maximal number of steps of an animation, i.e., of snapshots after the first one. Each step is sent as the
+   * elements added and removed since the previous one.
+   */
+  public static final int ANIMATION_MAX_STEPS = Integer.getInteger("tge.animation.maxSteps", 1000);
+
+  /**
+   * Maximal number of time buckets of an evolution histogram, i.e., of counts per label and element kind.
+   */
+  public static final int EVOLUTION_MAX_BUCKETS = Integer.getInteger("tge.evolution.maxBuckets", 10_000);
+
+  /**
+   * Finest quadtree level of the clustering pyramids of the vertex coordinates. Level {@code l} divides the
+   * bounds of a dataset into {@code 2^l} cells per axis, finer levels than needed to separate all vertices
+   * are not built.
+   */
+  public static final int CLUSTER_MAX_LEVEL = Integer.getInteger("tge.cluster.maxLevel", 20);
+
+  /**
+   * Minimal width in pixels of a cluster cell on the map, a zoom level is answered by the finest level whose
+   * cells are at least as wide.
+   */
+  public static final int CLUSTER_CELL_PIXELS = Integer.getInteger("tge.cluster.cellPixels", 64);
+
+  /**
+   * Length of the time buckets of the rollup cubes, e.g., {@code HOURS} or {@code DAYS}. Groupings by labels
+   * and time stamp fields at least as coarse, e.g., the month, are answered by merging the partial
+   * aggregates of a cube built on first use. {@code NONE} disables the cubes, i.e., the value is {@code null}.
+   */
+  public static final ChronoUnit ROLLUP_GRANULARITY = getRollupGranularity();
+
+  /**
+   * Maximal number of concurrently running queries. By default, as many queries as jobs fit into the task
+   * slots of the local Flink cluster, but at least two, so a single endpoint never occupies all threads.
+   */
+  public static final int QUERY_THREADS =
+    Integer.getInteger("tge.query.threads", Math.max(2, FLINK_TASK_SLOTS / FLINK_PARALLELISM));
+
+  /**
+   * Number of additional query threads reserved for interactive queries, e.g., snapshots and differences.
+   * The local Flink cluster gets additional task slots for their jobs.
+   */
+  public static final int QUERY_INTERACTIVE_RESERVE = Integer.getInteger("tge.query.interactiveReserve", 1);
+
+  /**
+   * Maximal number of concurrently running queries of a single dataset.
+   */
+  public static final int QUERY_MAX_RUNNING_PER_DATASET =
+    Integer.getInteger("tge.query.maxRunningPerDataset", Math.max(1, QUERY_THREADS - 1));
+
+  /**
+   * Maximal number of queries of a single endpoint waiting for a thread. Further queries are rejected.
+   */
+  public static final int QUERY_MAX_QUEUED_PER_ENDPOINT = Integer.getInteger("tge.query.maxQueued", 16);
+
+  /**
+   * Number of threads serving HTTP requests. They wait for the queries of their requests, so there may be
+   * many more of them than query threads.
+   */
+  public static final int HTTP_THREADS = Integer.getInteger("tge.http.threads", 64);
+
+  /**
+   * Default timeout of a query in seconds.
+   */
+  public static final long QUERY_TIMEOUT = Long.getLong("tge.query.timeout", 300L);
+
+  /**
+   * Writable directory used to store the computed metadata of the datasets.
+   */
+  public static final String METADATA_DIRECTORY = System.getProperty("tge.metadata.dir",
+    System.getProperty("user.home") + "/.temporal-graph-explorer/metadata");
+
+  /**
+   * True, if missing metadata of all datasets is computed in the background when the server starts.
+   */
+  public static final boolean METADATA_PRECOMPUTE =
+    Boolean.parseBoolean(System.getProperty("tge.metadata.precompute", "true"));
+
+  /**
+   * Returns the timeout of the queries of an endpoint, e.g., {@code -Dtge.query.timeout.keyedgrouping=60}.
+   *
+   * @param endpoint the name of the endpoint
+   * @return the timeout in milliseconds
+   */
+  public static long getQueryTimeout(String endpoint) {
+    return TimeUnit.SECONDS.toMillis(Long.getLong("tge.query.timeout." + endpoint, QUERY_TIMEOUT));
+  }
+
+  /**
+   * Returns the maximal number of concurrently running queries of an endpoint, e.g.,
+   * {@code -Dtge.query.maxRunning.keyedgrouping=1}. By default, one thread is left for the other endpoints.
+   *
+   * @param endpoint the name of the endpoint
+   * @return the maximal number of running queries
+   */
+  public static int getQueryMaxRunning(String endpoint) {
+    return Integer.getInteger("tge.query.maxRunning." + endpoint, Math.max(1, QUERY_THREADS - 1));
+  }
+
+  /**
+   * Reads the length of the time buckets of the rollup cubes.
+   *
+   * @return the length, {@code null} if the cubes are disabled
+   */
+  private static ChronoUnit getRollupGranularity() {
+    String granularity = System.getProperty("tge.rollup.granularity", "HOURS");
+    return granularity.equalsIgnoreCase("NONE") ? null : ChronoUnit.valueOf(granularity.toUpperCase());
+  }
+
+  /**
+   * No instances.
+   */
+  private ServerConfig() {
+  }
+}
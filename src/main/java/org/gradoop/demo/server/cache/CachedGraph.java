@@ -0,0 +1,363 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.cache;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.ExecutionEnvironment;
+import org.gradoop.common.model.impl.id.GradoopId;
+import org.gradoop.demo.server.index.IntervalQuery;
+import org.gradoop.demo.server.index.SpatialIndex;
+import org.gradoop.demo.server.index.TemporalIntervalIndex;
+import org.gradoop.demo.server.index.VersionStore;
+import org.gradoop.temporal.model.api.TimeDimension;
+import org.gradoop.temporal.model.impl.TemporalGraph;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+import org.gradoop.temporal.model.impl.pojo.TemporalGraphHead;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+import org.gradoop.temporal.util.TemporalGradoopConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A temporal graph materialized in memory. The element lists are read-only and shared between all
+ * requests, so callers must never modify the contained elements.
+ */
+public class CachedGraph {
+
+  /**
+   * The name of the database this graph was loaded from.
+   */
+  private final String databaseName;
+
+  /**
+   * The version of the dataset files the graph was loaded from, see {@link DatasetCache}.
+   */
+  private final long version;
+
+  /**
+   * The graph heads.
+   */
+  private final List<TemporalGraphHead> graphHeads;
+
+  /**
+   * The vertices.
+   */
+  private final List<TemporalVertex> vertices;
+
+  /**
+   * The edges.
+   */
+  private final List<TemporalEdge> edges;
+
+  /**
+   * The time the graph was loaded, in milliseconds since epoch.
+   */
+  private final long loadTime;
+
+  /**
+   * The interval indices of the vertices, built on first use.
+   */
+  private final Map<TimeDimension, TemporalIntervalIndex<TemporalVertex>> vertexIndices =
+    new EnumMap<>(TimeDimension.class);
+
+  /**
+   * The interval indices of the edges, built on first use.
+   */
+  private final Map<TimeDimension, TemporalIntervalIndex<TemporalEdge>> edgeIndices =
+    new EnumMap<>(TimeDimension.class);
+
+  /**
+   * The version stores of the vertices, built on first use.
+   */
+  private final Map<TimeDimension, VersionStore<TemporalVertex>> vertexVersions =
+    new EnumMap<>(TimeDimension.class);
+
+  /**
+   * The version stores of the edges, built on first use.
+   */
+  private final Map<TimeDimension, VersionStore<TemporalEdge>> edgeVersions =
+    new EnumMap<>(TimeDimension.class);
+
+  /**
+   * The spatial index of the vertices, built on first use.
+   */
+  private SpatialIndex spatialIndex;
+
+  /**
+   * The vertices grouped by label, built on first use.
+   */
+  private Map<String, List<TemporalVertex>> verticesByLabel;
+
+  /**
+   * The edges grouped by label, built on first use.
+   */
+  private Map<String, List<TemporalEdge>> edgesByLabel;
+
+  /**
+   * Creates a materialized graph that was not loaded from the dataset files, e.g., a query result. Its version
+   * is 0.
+   *
+   * @param databaseName the name of the database
+   * @param graphHeads the graph heads
+   * @param vertices the vertices
+   * @param edges the edges
+   */
+  public CachedGraph(String databaseName, List<TemporalGraphHead> graphHeads, List<TemporalVertex> vertices,
+    List<TemporalEdge> edges) {
+    this(databaseName, 0, graphHeads, vertices, edges);
+  }
+
+  /**
+   * Creates a materialized graph.
+   *
+   * @param databaseName the name of the database
+   * @param version the version of the dataset files the graph was loaded from
+   * @param graphHeads the graph heads
+   * @param vertices the vertices
+   * @param edges the edges
+   */
+  public CachedGraph(String databaseName, long version, List<TemporalGraphHead> graphHeads,
+    List<TemporalVertex> vertices, List<TemporalEdge> edges) {
+    this.databaseName = databaseName;
+    this.version = version;
+    this.graphHeads = Collections.unmodifiableList(graphHeads);
+    this.vertices = Collections.unmodifiableList(vertices);
+    this.edges = Collections.unmodifiableList(edges);
+    this.loadTime = System.currentTimeMillis();
+  }
+
+  public String getDatabaseName() {
+    return databaseName;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public List<TemporalGraphHead> getGraphHeads() {
+    return graphHeads;
+  }
+
+  public List<TemporalVertex> getVertices() {
+    return vertices;
+  }
+
+  public List<TemporalEdge> getEdges() {
+    return edges;
+  }
+
+  public long getLoadTime() {
+    return loadTime;
+  }
+
+  /**
+   * Returns the interval index of the vertices in the given time dimension. The index is built on first use.
+   *
+   * @param dimension the time dimension
+   * @return the interval index of the vertices
+   */
+  public synchronized TemporalIntervalIndex<TemporalVertex> getVertexIndex(TimeDimension dimension) {
+    return vertexIndices.computeIfAbsent(dimension, d -> new TemporalIntervalIndex<>(vertices, d));
+  }
+
+  /**
+   * Returns the interval index of the edges in the given time dimension. The index is built on first use.
+   *
+   * @param dimension the time dimension
+   * @return the interval index of the edges
+   */
+  public synchronized TemporalIntervalIndex<TemporalEdge> getEdgeIndex(TimeDimension dimension) {
+    return edgeIndices.computeIfAbsent(dimension, d -> new TemporalIntervalIndex<>(edges, d));
+  }
+
+  /**
+   * Returns the version store of the vertices in the given time dimension. The store is built on first use.
+   *
+   * @param dimension the time dimension
+   * @param checkpoints the number of checkpoints of the store, if it is built
+   * @return the version store of the vertices
+   */
+  public synchronized VersionStore<TemporalVertex> getVertexVersions(TimeDimension dimension, int checkpoints) {
+    return vertexVersions.computeIfAbsent(dimension, d -> new VersionStore<>(getVertexIndex(d), checkpoints));
+  }
+
+  /**
+   * Returns the version store of the edges in the given time dimension. The store is built on first use.
+   *
+   * @param dimension the time dimension
+   * @param checkpoints the number of checkpoints of the store, if it is built
+   * @return the version store of the edges
+   */
+  public synchronized VersionStore<TemporalEdge> getEdgeVersions(TimeDimension dimension, int checkpoints) {
+    return edgeVersions.computeIfAbsent(dimension, d -> new VersionStore<>(getEdgeIndex(d), checkpoints));
+  }
+
+  /**
+   * Returns the graph restricted to the vertices and edges whose interval in the given time dimension
+   * satisfies at least one of the queries. The elements are selected by the interval indices.
+   *
+   * @param dimension the time dimension
+   * @param queries the queries
+   * @return the restricted graph, sharing the elements with this graph
+   */
+  public CachedGraph restrictToTime(TimeDimension dimension, IntervalQuery... queries) {
+    return new CachedGraph(databaseName, version, graphHeads, getVertexIndex(dimension).queryAny(queries),
+      getEdgeIndex(dimension).queryAny(queries));
+  }
+
+  /**
+   * Returns the spatial index of the vertex coordinates. The index is built on first use.
+   *
+   * @return the spatial index of the vertices
+   */
+  public synchronized SpatialIndex getSpatialIndex() {
+    if (spatialIndex == null) {
+      spatialIndex = new SpatialIndex(vertices);
+    }
+    return spatialIndex;
+  }
+
+  /**
+   * Returns the graph restricted to the given vertices and the edges touching them, i.e., the edges whose
+   * source or target vertex is one of them. The other endpoints of these edges are kept as well, so that
+   * every edge of the restricted graph can be drawn. Used with the vertices of a {@link SpatialIndex} query,
+   * it returns the part of the graph visible in a viewport and the vertices the visible edges lead to.
+   *
+   * @param vertexIds the identifiers of the vertices to keep
+   * @return the restricted graph, sharing the elements with this graph
+   */
+  public CachedGraph restrictToVertices(Set<GradoopId> vertexIds) {
+    List<TemporalEdge> edgeSubset = new ArrayList<>();
+    Set<GradoopId> endpointIds = new HashSet<>();
+    for (TemporalEdge edge : edges) {
+      if (vertexIds.contains(edge.getSourceId()) || vertexIds.contains(edge.getTargetId())) {
+        edgeSubset.add(edge);
+        endpointIds.add(edge.getSourceId());
+        endpointIds.add(edge.getTargetId());
+      }
+    }
+    List<TemporalVertex> vertexSubset = new ArrayList<>();
+    for (TemporalVertex vertex : vertices) {
+      if (vertexIds.contains(vertex.getId()) || endpointIds.contains(vertex.getId())) {
+        vertexSubset.add(vertex);
+      }
+    }
+    return new CachedGraph(databaseName, version, graphHeads, vertexSubset, edgeSubset);
+  }
+
+  /**
+   * Returns the subgraph induced by the given labels, i.e., the vertices with one of the vertex labels and the
+   * edges with one of the edge labels whose source and target vertices are part of the subgraph. The
+   * elements are selected by label without scanning the other elements.
+   *
+   * @param vertexLabels the labels of the vertices to keep, all vertices are kept if empty or {@code null}
+   * @param edgeLabels the labels of the edges to keep, all edges are kept if empty or {@code null}
+   * @param includeEdges false, if the subgraph should not contain any edges
+   * @return the subgraph, sharing the elements with this graph
+   */
+  public CachedGraph subgraph(String[] vertexLabels, String[] edgeLabels, boolean includeEdges) {
+    List<TemporalVertex> vertexSubset;
+    List<TemporalEdge> edgeSubset = new ArrayList<>();
+    synchronized (this) {
+      if (verticesByLabel == null) {
+        verticesByLabel = groupByLabel(vertices);
+        edgesByLabel = groupByLabel(edges);
+      }
+      vertexSubset = selectByLabel(vertices, verticesByLabel, vertexLabels);
+      if (includeEdges) {
+        Set<GradoopId> vertexIds = new HashSet<>();
+        for (TemporalVertex vertex : vertexSubset) {
+          vertexIds.add(vertex.getId());
+        }
+        for (TemporalEdge edge : selectByLabel(edges, edgesByLabel, edgeLabels)) {
+          if (vertexIds.contains(edge.getSourceId()) && vertexIds.contains(edge.getTargetId())) {
+            edgeSubset.add(edge);
+          }
+        }
+      }
+    }
+    return new CachedGraph(databaseName, version, graphHeads, vertexSubset, edgeSubset);
+  }
+
+  /**
+   * Returns the number of graph heads, vertices and edges. Used as weight of the cache entry.
+   *
+   * @return the number of elements of this graph
+   */
+  public long getElementCount() {
+    return (long) graphHeads.size() + vertices.size() + edges.size();
+  }
+
+  /**
+   * Creates a temporal graph backed by collection sources of the materialized elements. Flink serializes
+   * the collections into the job, therefore operators never touch the cached instances.
+   *
+   * @param config the gradoop config of the execution environment to use
+   * @return the temporal graph
+   */
+  public TemporalGraph toTemporalGraph(TemporalGradoopConfig config) {
+    ExecutionEnvironment env = config.getExecutionEnvironment();
+    return config.getTemporalGraphFactory().fromDataSets(
+      env.fromCollection(graphHeads, TypeInformation.of(TemporalGraphHead.class)),
+      env.fromCollection(vertices, TypeInformation.of(TemporalVertex.class)),
+      env.fromCollection(edges, TypeInformation.of(TemporalEdge.class)));
+  }
+
+  /**
+   * Groups the given elements by label.
+   *
+   * @param elements the elements to group
+   * @param <E> the element type
+   * @return the elements of each label, in the order of the given list
+   */
+  private static <E extends TemporalElement> Map<String, List<E>> groupByLabel(List<E> elements) {
+    Map<String, List<E>> byLabel = new HashMap<>();
+    for (E element : elements) {
+      byLabel.computeIfAbsent(element.getLabel(), l -> new ArrayList<>()).add(element);
+    }
+    return byLabel;
+  }
+
+  /**
+   * Selects the elements with one of the given labels.
+   *
+   * @param elements all elements
+   * @param byLabel all elements grouped by label
+   * @param labels the labels to select, all elements are selected if empty or {@code null}
+   * @param <E> the element type
+   * @return the selected elements
+   */
+  private static <E extends TemporalElement> List<E> selectByLabel(List<E> elements, Map<String, List<E>> byLabel,
+    String[] labels) {
+    if (labels == null || labels.length == 0) {
+      return elements;
+    }
+    List<E> selected = new ArrayList<>();
+    for (String label : new HashSet<>(Arrays.asList(labels))) {
+      selected.addAll(byLabel.getOrDefault(label, Collections.emptyList()));
+    }
+    return selected;
+  }
+}
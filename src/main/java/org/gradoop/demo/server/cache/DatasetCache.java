@@ -0,0 +1,249 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * An LRU cache of materialized temporal graphs, shared by all endpoints. The cache is bounded by the
+ * number of datasets and by the total number of cached elements. The least recently used datasets are
+ * evicted until both bounds are satisfied again. Each graph records the version of the dataset files it was
+ * loaded from, graphs whose files changed since are loaded again.
+ */
+public class DatasetCache {
+
+  /**
+   * Loads a dataset that is not cached yet.
+   */
+  @FunctionalInterface
+  public interface DatasetLoader {
+    /**
+     * Loads and materializes the dataset with the given name.
+     *
+     * @param databaseName the name of the database
+     * @param version the version of the dataset files, determined before they are read
+     * @return the materialized graph of the given version
+     * @throws Exception if loading fails
+     */
+    CachedGraph load(String databaseName, long version) throws Exception;
+  }
+
+  /**
+   * The cached graphs in access order, i.e., the least recently used graph comes first.
+   */
+  private final LinkedHashMap<String, CachedGraph> graphs = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * The running loads, so concurrent requests of the same dataset load it only once.
+   */
+  private final SingleFlight<CachedGraph> loads = new SingleFlight<>();
+
+  /**
+   * Maximal number of cached datasets.
+   */
+  private final int maxDatasets;
+
+  /**
+   * Maximal number of cached elements over all datasets.
+   */
+  private final long maxElements;
+
+  /**
+   * The loader used on cache misses.
+   */
+  private final DatasetLoader loader;
+
+  /**
+   * Returns the current version of the files of a dataset.
+   */
+  private final ToLongFunction<String> versions;
+
+  /**
+   * Number of currently cached elements.
+   */
+  private long cachedElements;
+
+  /**
+   * Number of requests served from the cache.
+   */
+  private final AtomicLong hits = new AtomicLong();
+
+  /**
+   * Number of requests that had to load the dataset.
+   */
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Number of evicted datasets.
+   */
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Creates a new dataset cache.
+   *
+   * @param maxDatasets maximal number of cached datasets
+   * @param maxElements maximal number of cached elements over all datasets
+   * @param loader the loader used on cache misses
+   * @param versions returns the current version of the files of a dataset, e.g., their latest modification
+   *                 time
+   */
+  public DatasetCache(int maxDatasets, long maxElements, DatasetLoader loader, ToLongFunction<String> versions) {
+    this.maxDatasets = maxDatasets;
+    this.maxElements = maxElements;
+    this.loader = loader;
+    this.versions = versions;
+  }
+
+  /**
+   * Returns the materialized graph of the current version of the given database. Loads it if it is not
+   * cached or its files changed since it was loaded. Concurrent requests of the same uncached version wait for
+   * a single load.
+   *
+   * @param databaseName the name of the database
+   * @return the materialized graph
+   * @throws Exception if loading fails
+   */
+  public CachedGraph get(String databaseName) throws Exception {
+    long version = versions.applyAsLong(databaseName);
+    CachedGraph cached = getIfCurrent(databaseName, version);
+    if (cached != null) {
+      hits.incrementAndGet();
+      return cached;
+    }
+    return loads.execute(databaseName + "|" + version, () -> {
+      // the graph may have been cached since the lookup above
+      CachedGraph current = getIfCurrent(databaseName, version);
+      if (current != null) {
+        hits.incrementAndGet();
+        return current;
+      }
+      misses.incrementAndGet();
+      CachedGraph loaded = loader.load(databaseName, version);
+      put(loaded);
+      return loaded;
+    });
+  }
+
+  /**
+   * Returns the materialized graph of the current version of the given database, if it is cached. Does not
+   * count as hit or miss.
+   *
+   * @param databaseName the name of the database
+   * @return the materialized graph or {@code null}, if it is not cached or its files changed
+   */
+  public CachedGraph getIfCurrent(String databaseName) {
+    return getIfCurrent(databaseName, versions.applyAsLong(databaseName));
+  }
+
+  /**
+   * Returns the cached graph of the given database, if it was loaded from the given version.
+   *
+   * @param databaseName the name of the database
+   * @param version the version of the dataset files
+   * @return the materialized graph or {@code null}, if it is not cached or of another version
+   */
+  private CachedGraph getIfCurrent(String databaseName, long version) {
+    synchronized (graphs) {
+      CachedGraph cached = graphs.get(databaseName);
+      return cached != null && cached.getVersion() == version ? cached : null;
+    }
+  }
+
+  /**
+   * Adds a graph to the cache, replacing an older version of the graph, and evicts the least recently used
+   * graphs if a bound is exceeded. Graphs that exceed the element bound on their own are not cached at all.
+   *
+   * @param graph the graph to add
+   */
+  private void put(CachedGraph graph) {
+    if (graph.getElementCount() > maxElements || maxDatasets <= 0) {
+      return;
+    }
+    synchronized (graphs) {
+      CachedGraph previous = graphs.get(graph.getDatabaseName());
+      if (previous != null && previous.getVersion() > graph.getVersion()) {
+        // a load of a newer version finished first
+        return;
+      }
+      graphs.put(graph.getDatabaseName(), graph);
+      if (previous != null) {
+        cachedElements -= previous.getElementCount();
+      }
+      cachedElements += graph.getElementCount();
+
+      Iterator<Map.Entry<String, CachedGraph>> iterator = graphs.entrySet().iterator();
+      while ((graphs.size() > maxDatasets || cachedElements > maxElements) && iterator.hasNext()) {
+        Map.Entry<String, CachedGraph> eldest = iterator.next();
+        if (eldest.getValue() == graph) {
+          continue;
+        }
+        cachedElements -= eldest.getValue().getElementCount();
+        iterator.remove();
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public long getCoalesced() {
+    return loads.getCoalesced();
+  }
+
+  public int getMaxDatasets() {
+    return maxDatasets;
+  }
+
+  public long getMaxElements() {
+    return maxElements;
+  }
+
+  /**
+   * Returns the number of cached datasets.
+   *
+   * @return the number of cached datasets
+   */
+  public int getDatasetCount() {
+    synchronized (graphs) {
+      return graphs.size();
+    }
+  }
+
+  /**
+   * Returns the number of cached elements over all datasets.
+   *
+   * @return the number of cached elements
+   */
+  public long getElementCount() {
+    synchronized (graphs) {
+      return cachedElements;
+    }
+  }
+}
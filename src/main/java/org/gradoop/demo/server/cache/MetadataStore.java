@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.cache;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Stores the computed metadata (property keys, labels and spatial bounds) of each dataset as
+ * {@code <directory>/<databaseName>/metadata.json} in a writable directory outside of the classpath.
+ */
+public class MetadataStore {
+
+  /**
+   * The filename of the metadata json.
+   */
+  public static final String META_FILENAME = "metadata.json";
+
+  /**
+   * The directory containing the metadata of all datasets.
+   */
+  private final File directory;
+
+  /**
+   * Creates a new store.
+   *
+   * @param directory the directory containing the metadata of all datasets, created on first write
+   */
+  public MetadataStore(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Reads the stored metadata of a dataset.
+   *
+   * @param databaseName the name of the database
+   * @param datasetVersion the last modification time of the dataset, used to detect stale metadata
+   * @return the stored metadata or {@code null}, if there is no metadata or it is older than the dataset
+   * @throws IOException if reading fails
+   * @throws JSONException if the stored metadata can not be parsed
+   */
+  public JSONObject read(String databaseName, long datasetVersion) throws IOException, JSONException {
+    File file = getFile(databaseName);
+    if (!file.isFile() || file.lastModified() < datasetVersion) {
+      return null;
+    }
+    return new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Stores the metadata of a dataset. The file is replaced atomically, so concurrent readers never see a
+   * partially written file. Its modification time is set to the version of the dataset the metadata was
+   * computed from, so it becomes stale as soon as the dataset is modified after that version.
+   *
+   * @param databaseName the name of the database
+   * @param datasetVersion the last modification time of the dataset the metadata was computed from
+   * @param metadata the metadata to store
+   * @throws IOException if writing fails
+   * @throws JSONException if the metadata can not be serialized
+   */
+  public void write(String databaseName, long datasetVersion, JSONObject metadata)
+    throws IOException, JSONException {
+    File file = getFile(databaseName);
+    Files.createDirectories(file.getParentFile().toPath());
+    Path temporary = Files.createTempFile(file.getParentFile().toPath(), META_FILENAME, ".tmp");
+    try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+      metadata.write(writer);
+    }
+    Files.setLastModifiedTime(temporary, FileTime.fromMillis(datasetVersion));
+    Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Returns the metadata file of a dataset.
+   *
+   * @param databaseName the name of the database
+   * @return the metadata file
+   */
+  public File getFile(String databaseName) {
+    return new File(new File(directory, databaseName), META_FILENAME);
+  }
+}
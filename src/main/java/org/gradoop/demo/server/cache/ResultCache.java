@@ -0,0 +1,384 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.cache;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An LRU cache of rendered query responses, bounded by the total size of the cached response bodies. The
+ * cache key is a canonical form of the query including the version of the queried dataset, so results of
+ * modified datasets are never served. Computed bodies are rendered once, directly to the client, and copied
+ * into the cache while they are written, unless they turn out to be too large to be cached.
+ */
+public class ResultCache {
+
+  /**
+   * Computes a response that is not cached yet.
+   */
+  @FunctionalInterface
+  public interface ResultComputation {
+    /**
+     * Computes the response.
+     *
+     * @return a streaming entity writing the response body
+     * @throws Exception if the computation fails
+     */
+    StreamingOutput compute() throws Exception;
+  }
+
+  /**
+   * The cached response bodies in access order, i.e., the least recently used body comes first.
+   */
+  private final LinkedHashMap<String, byte[]> results = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * The running computations, so concurrent requests of the same query compute it only once.
+   */
+  private final SingleFlight<Object> computations = new SingleFlight<>();
+
+  /**
+   * Maximal number of cached bytes.
+   */
+  private final long maxBytes;
+
+  /**
+   * Number of currently cached bytes.
+   */
+  private long cachedBytes;
+
+  /**
+   * Number of requests served from the cache.
+   */
+  private final AtomicLong hits = new AtomicLong();
+
+  /**
+   * Number of requests that had to compute the response.
+   */
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Number of evicted responses.
+   */
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Creates a new result cache.
+   *
+   * @param maxBytes maximal number of cached bytes
+   */
+  public ResultCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the entity tag of the response of a query. Responses of equal keys are equivalent, but not
+   * necessarily byte-identical (e.g., grouping results get new ids), so the tag is a weak one.
+   *
+   * @param key the canonical key of the query
+   * @return the entity tag
+   */
+  public static EntityTag getEntityTag(String key) {
+    return new EntityTag(DigestUtils.sha1Hex(key), true);
+  }
+
+  /**
+   * Checks if the value of an {@code If-None-Match} header matches the given tag. Uses the weak comparison,
+   * as defined for {@code If-None-Match}.
+   *
+   * @param ifNoneMatch the header value, may be {@code null}
+   * @param tag the entity tag of the current response
+   * @return true, if the client already knows an equivalent response
+   */
+  public static boolean matches(String ifNoneMatch, EntityTag tag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.equals("*")) {
+        return true;
+      }
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("\"" + tag.getValue() + "\"")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the cached response body of a query. Computes and caches it if it is not cached. Concurrent
+   * requests of the same uncached query wait for a single computation.
+   *
+   * @param key the canonical key of the query
+   * @param computation the computation of the response
+   * @return the response entity, i.e., the cached response body as byte array or, if it is not cached yet, the
+   * streaming entity writing it and caching it on the way
+   * @throws Exception if the computation fails
+   */
+  public Object get(String key, ResultComputation computation) throws Exception {
+    return get(key, computation, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns the cached response body of a query. Computes and caches it if it is not cached. Concurrent
+   * requests of the same uncached query wait for a single computation, but at most for the given time.
+   *
+   * @param key the canonical key of the query
+   * @param computation the computation of the response
+   * @param timeout the maximal time to wait for the computation of a concurrent request in milliseconds
+   * @return the response entity, i.e., the cached response body as byte array or, if it is not cached yet, the
+   * streaming entity writing it and caching it on the way
+   * @throws java.util.concurrent.TimeoutException if the computation of a concurrent request did not finish
+   * in time
+   * @throws Exception if the computation fails
+   */
+  public Object get(String key, ResultComputation computation, long timeout) throws Exception {
+    synchronized (results) {
+      byte[] cached = results.get(key);
+      if (cached != null) {
+        hits.incrementAndGet();
+        return cached;
+      }
+    }
+    return computations.execute(key, () -> {
+      // the result may have been cached since the lookup above
+      synchronized (results) {
+        byte[] cached = results.get(key);
+        if (cached != null) {
+          hits.incrementAndGet();
+          return cached;
+        }
+      }
+      misses.incrementAndGet();
+      return render(key, computation.compute());
+    }, timeout);
+  }
+
+  /**
+   * Wraps a computed response body, so that it is cached while it is written to the client. The copy is
+   * abandoned as soon as the body exceeds the size of cacheable bodies, i.e., a quarter of the bound, the
+   * rest of the body is only written to the client. If the body was cached by another request in the
+   * meantime, the cached body is written instead.
+   *
+   * @param key the canonical key of the query
+   * @param rendering the streaming entity writing the response body
+   * @return the streaming entity writing the response body to the client and to the cache
+   */
+  private StreamingOutput render(String key, StreamingOutput rendering) {
+    return output -> {
+      byte[] cached;
+      synchronized (results) {
+        cached = results.get(key);
+      }
+      if (cached != null) {
+        output.write(cached);
+        return;
+      }
+      CachingOutputStream body = new CachingOutputStream(output, maxBytes / 4);
+      rendering.write(body);
+      if (body.isCacheable()) {
+        put(key, body.toByteArray());
+      }
+    };
+  }
+
+  /**
+   * Returns the cached response body of a query, without computing it.
+   *
+   * @param key the canonical key of the query
+   * @return the response body or {@code null}, if it is not cached
+   */
+  public byte[] getIfPresent(String key) {
+    synchronized (results) {
+      byte[] cached = results.get(key);
+      if (cached != null) {
+        hits.incrementAndGet();
+      }
+      return cached;
+    }
+  }
+
+  /**
+   * Adds a response body to the cache and evicts the least recently used bodies if the size bound is
+   * exceeded. Bodies larger than a quarter of the bound are not cached at all.
+   *
+   * @param key the canonical key of the query
+   * @param body the response body
+   */
+  private void put(String key, byte[] body) {
+    if (body.length > maxBytes / 4) {
+      return;
+    }
+    synchronized (results) {
+      byte[] previous = results.put(key, body);
+      if (previous != null) {
+        cachedBytes -= previous.length;
+      }
+      cachedBytes += body.length;
+
+      Iterator<Map.Entry<String, byte[]>> iterator = results.entrySet().iterator();
+      while (cachedBytes > maxBytes && iterator.hasNext()) {
+        Map.Entry<String, byte[]> eldest = iterator.next();
+        if (eldest.getValue() == body) {
+          continue;
+        }
+        cachedBytes -= eldest.getValue().length;
+        iterator.remove();
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public long getCoalesced() {
+    return computations.getCoalesced();
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns the number of cached responses.
+   *
+   * @return the number of cached responses
+   */
+  public int getResultCount() {
+    synchronized (results) {
+      return results.size();
+    }
+  }
+
+  /**
+   * Returns the number of cached bytes.
+   *
+   * @return the number of cached bytes
+   */
+  public long getByteCount() {
+    synchronized (results) {
+      return cachedBytes;
+    }
+  }
+
+  /**
+   * An output stream writing to the client and copying the written bytes into memory, until they exceed a
+   * limit.
+   */
+  private static final class CachingOutputStream extends OutputStream {
+
+    /**
+     * The stream to the client.
+     */
+    private final OutputStream output;
+
+    /**
+     * The copy of the written bytes, {@code null} once they exceeded the limit.
+     */
+    private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    /**
+     * The maximal number of copied bytes.
+     */
+    private final long limit;
+
+    /**
+     * Creates a stream.
+     *
+     * @param output the stream to the client
+     * @param limit the maximal number of copied bytes
+     */
+    CachingOutputStream(OutputStream output, long limit) {
+      this.output = output;
+      this.limit = limit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      output.write(b);
+      if (checkLimit(1)) {
+        bytes.write(b);
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      output.write(b, off, len);
+      if (checkLimit(len)) {
+        bytes.write(b, off, len);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      output.flush();
+    }
+
+    /**
+     * Checks if the complete body was copied.
+     *
+     * @return true, if the body did not exceed the limit
+     */
+    boolean isCacheable() {
+      return bytes != null;
+    }
+
+    /**
+     * Returns the copied bytes.
+     *
+     * @return the copied bytes
+     */
+    byte[] toByteArray() {
+      return bytes.toByteArray();
+    }
+
+    /**
+     * Checks if more bytes may be copied and drops the copy if they would exceed the limit.
+     *
+     * @param length the number of bytes to copy
+     * @return true, if the bytes are copied
+     */
+    private boolean checkLimit(int length) {
+      if (bytes != null && bytes.size() + (long) length > limit) {
+        bytes = null;
+      }
+      return bytes != null;
+    }
+  }
+}
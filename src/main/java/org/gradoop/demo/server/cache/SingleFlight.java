@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.cache;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deduplicates concurrent computations with the same key. The first caller of a key runs the computation,
+ * callers arriving while it runs wait for it and share its result or failure. Nothing is kept once the
+ * computation is finished. If the computation is cancelled, e.g., because its caller disconnected, the
+ * waiting callers start a new one instead of failing.
+ *
+ * @param <V> the type of the computed values
+ */
+public class SingleFlight<V> {
+
+  /**
+   * A computation that may be shared.
+   *
+   * @param <V> the type of the computed value
+   */
+  @FunctionalInterface
+  public interface Computation<V> {
+    /**
+     * Computes the value.
+     *
+     * @return the value
+     * @throws Exception if the computation fails
+     */
+    V compute() throws Exception;
+  }
+
+  /**
+   * The results of the running computations by key.
+   */
+  private final ConcurrentHashMap<String, CompletableFuture<V>> running = new ConcurrentHashMap<>();
+
+  /**
+   * Number of callers that shared the result of a running computation.
+   */
+  private final AtomicLong coalesced = new AtomicLong();
+
+  /**
+   * Runs the computation, unless a computation with the same key is already running. In this case, waits
+   * for the running computation and returns its result.
+   *
+   * @param key the key identifying the computation
+   * @param computation the computation
+   * @return the computed value
+   * @throws Exception if the computation fails
+   */
+  public V execute(String key, Computation<V> computation) throws Exception {
+    return execute(key, computation, Long.MAX_VALUE);
+  }
+
+  /**
+   * Runs the computation, unless a computation with the same key is already running. In this case, waits
+   * for the running computation and returns its result, but at most for the given time. The computation
+   * itself is not bounded by the timeout.
+   *
+   * @param key the key identifying the computation
+   * @param computation the computation
+   * @param timeout the maximal time to wait for a running computation in milliseconds
+   * @return the computed value
+   * @throws TimeoutException if the running computation did not finish in time
+   * @throws Exception if the computation fails
+   */
+  public V execute(String key, Computation<V> computation, long timeout) throws Exception {
+    long start = System.currentTimeMillis();
+    while (true) {
+      CompletableFuture<V> result = new CompletableFuture<>();
+      CompletableFuture<V> other = running.putIfAbsent(key, result);
+      if (other == null) {
+        return compute(key, computation, result);
+      }
+      coalesced.incrementAndGet();
+      try {
+        long remaining = timeout - (System.currentTimeMillis() - start);
+        return other.get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+      } catch (CancellationException e) {
+        // the computation was abandoned by its caller, but this caller still needs the value
+        running.remove(key, other);
+        continue;
+      } catch (TimeoutException e) {
+        throw new TimeoutException("Waiting for the running computation exceeded the timeout of " + timeout +
+          " ms.");
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw (Exception) e.getCause();
+      }
+    }
+  }
+
+  /**
+   * Runs the computation and publishes its result to the waiting callers.
+   *
+   * @param key the key identifying the computation
+   * @param computation the computation
+   * @param result the result shared with the waiting callers
+   * @return the computed value
+   * @throws Exception if the computation fails
+   */
+  private V compute(String key, Computation<V> computation, CompletableFuture<V> result) throws Exception {
+    try {
+      V value = computation.compute();
+      result.complete(value);
+      return value;
+    } catch (Throwable t) {
+      result.completeExceptionally(t);
+      throw t;
+    } finally {
+      running.remove(key, result);
+    }
+  }
+
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.engine;
+
+import org.gradoop.common.model.impl.id.GradoopId;
+import org.gradoop.demo.server.cache.CachedGraph;
+import org.gradoop.demo.server.index.BoundingBox;
+import org.gradoop.demo.server.index.SpatialIndex;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdgeFactory;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+import org.gradoop.temporal.model.impl.pojo.TemporalGraphHead;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertexFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A multi-resolution clustering of the vertex coordinates of a cached graph for map rendering. Level
+ * {@code l} is a quadtree level, it divides the bounds of the coordinates, i.e., the {@code spatialData} of
+ * the metadata, into {@code 2^l} by {@code 2^l} cells. Each non-empty cell is a cluster vertex at the
+ * centroid of its vertices with their {@value #COUNT} and the number of {@value #INTERNAL_EDGES} between them.
+ * The edges between the vertices of two cells are a cluster edge with their {@value #COUNT} as weight. The
+ * cells are addressed by Morton codes, so the levels are built bottom-up by dropping two bits per level. The
+ * finest level is the first one keeping all distinct coordinates apart. Vertices without coordinates and their
+ * edges are part of no level.
+ */
+public class ClusterPyramid {
+
+  /**
+   * The key of the number of elements of a cluster.
+   */
+  static final String COUNT = "count";
+
+  /**
+   * The key of the number of edges within a cluster vertex.
+   */
+  static final String INTERNAL_EDGES = "internalEdges";
+
+  /**
+   * The label of clusters of elements with different labels.
+   */
+  static final String MIXED_LABEL = "Cluster";
+
+  /**
+   * Factory of the cluster vertices.
+   */
+  private static final TemporalVertexFactory VERTEX_FACTORY = new TemporalVertexFactory();
+
+  /**
+   * Factory of the cluster edges.
+   */
+  private static final TemporalEdgeFactory EDGE_FACTORY = new TemporalEdgeFactory();
+
+  /**
+   * The coordinates covered by the single cell of level {@code 0}, the larger of both extents.
+   */
+  private final double extent;
+
+  /**
+   * The clustered graphs from the coarsest to the finest level.
+   */
+  private final List<CachedGraph> levels = new ArrayList<>();
+
+  /**
+   * Builds all levels of the pyramid.
+   *
+   * @param graph the graph
+   * @param maxLevel the finest level to consider, at most {@code 31}
+   */
+  public ClusterPyramid(CachedGraph graph, int maxLevel) {
+    List<TemporalVertex> vertices = graph.getVertices();
+    double[] longitudes = new double[vertices.size()];
+    double[] latitudes = new double[vertices.size()];
+    double minLongitude = Double.POSITIVE_INFINITY;
+    double minLatitude = Double.POSITIVE_INFINITY;
+    double maxLongitude = Double.NEGATIVE_INFINITY;
+    double maxLatitude = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < vertices.size(); i++) {
+      longitudes[i] = SpatialIndex.getCoordinate(vertices.get(i), "long");
+      latitudes[i] = SpatialIndex.getCoordinate(vertices.get(i), "lat");
+      if (!Double.isNaN(longitudes[i]) && !Double.isNaN(latitudes[i])) {
+        minLongitude = Math.min(minLongitude, longitudes[i]);
+        minLatitude = Math.min(minLatitude, latitudes[i]);
+        maxLongitude = Math.max(maxLongitude, longitudes[i]);
+        maxLatitude = Math.max(maxLatitude, latitudes[i]);
+      }
+    }
+    extent = Math.max(0., Math.max(maxLongitude - minLongitude, maxLatitude - minLatitude));
+
+    // the cells of the finest level considered, by vertex
+    int finest = Math.max(0, Math.min(maxLevel, 31));
+    long sides = 1L << finest;
+    Map<GradoopId, Long> vertexCells = new HashMap<>(vertices.size() * 2);
+    for (int i = 0; i < vertices.size(); i++) {
+      if (!Double.isNaN(longitudes[i]) && !Double.isNaN(latitudes[i])) {
+        long column = Math.min(sides - 1, (long) ((longitudes[i] - minLongitude) / extent * sides));
+        long row = Math.min(sides - 1, (long) ((latitudes[i] - minLatitude) / extent * sides));
+        vertexCells.put(vertices.get(i).getId(), extent > 0 ? interleave(column, row) : 0L);
+      }
+    }
+
+    // the finest level needed is the first one with as many distinct cells as the finest one considered
+    long[] cells = vertexCells.values().stream().mapToLong(Long::longValue).sorted().toArray();
+    int distinct = countDistinct(cells, 0);
+    int top = 0;
+    while (top < finest && countDistinct(cells, 2 * (finest - top)) < distinct) {
+      top++;
+    }
+
+    // aggregate the finest level needed from the elements, each coarser one from the level below
+    int shift = 2 * (finest - top);
+    Map<Long, Cluster> vertexClusters = new HashMap<>();
+    for (int i = 0; i < vertices.size(); i++) {
+      Long cell = vertexCells.get(vertices.get(i).getId());
+      if (cell != null) {
+        vertexClusters.computeIfAbsent(cell >>> shift, c -> new Cluster())
+          .add(vertices.get(i), longitudes[i], latitudes[i]);
+      }
+    }
+    Map<CellPair, Cluster> edgeClusters = new HashMap<>();
+    for (TemporalEdge edge : graph.getEdges()) {
+      Long source = vertexCells.get(edge.getSourceId());
+      Long target = vertexCells.get(edge.getTargetId());
+      if (source != null && target != null) {
+        addEdge(vertexClusters, edgeClusters, source >>> shift, target >>> shift, edge, null);
+      }
+    }
+    List<CachedGraph> reversed = new ArrayList<>();
+    for (int level = top; level >= 0; level--) {
+      reversed.add(toGraph(graph.getDatabaseName(), graph.getGraphHeads(), vertexClusters, edgeClusters));
+      if (level > 0) {
+        Map<Long, Cluster> parentVertices = new HashMap<>();
+        for (Map.Entry<Long, Cluster> cluster : vertexClusters.entrySet()) {
+          parentVertices.computeIfAbsent(cluster.getKey() >>> 2, c -> new Cluster()).merge(cluster.getValue());
+        }
+        Map<CellPair, Cluster> parentEdges = new HashMap<>();
+        for (Map.Entry<CellPair, Cluster> cluster : edgeClusters.entrySet()) {
+          addEdge(parentVertices, parentEdges, cluster.getKey().source >>> 2, cluster.getKey().target >>> 2, null,
+            cluster.getValue());
+        }
+        vertexClusters = parentVertices;
+        edgeClusters = parentEdges;
+      }
+    }
+    for (int level = reversed.size() - 1; level >= 0; level--) {
+      levels.add(reversed.get(level));
+    }
+  }
+
+  /**
+   * Returns the number of levels.
+   *
+   * @return the number of levels, the finest one is {@code getLevels() - 1}
+   */
+  public int getLevels() {
+    return levels.size();
+  }
+
+  /**
+   * Returns the finest level whose cells are at least as large as the given number of pixels on a Leaflet map
+   * at the given zoom level. Leaflet shows 360 degrees of longitude on {@code 256 * 2^zoom} pixels.
+   *
+   * @param zoom the zoom level of the map
+   * @param cellPixels the minimal width of a cell in pixels
+   * @return the level fitting the zoom level
+   */
+  public int getLevel(int zoom, int cellPixels) {
+    double pixels = extent * 256 * Math.pow(2, zoom) / 360;
+    if (!(pixels > cellPixels)) {
+      return 0;
+    }
+    int level = (int) Math.floor(Math.log(pixels / cellPixels) / Math.log(2));
+    return Math.min(level, levels.size() - 1);
+  }
+
+  /**
+   * Returns the clusters of a level, optionally restricted to a viewport.
+   *
+   * @param level the level
+   * @param box the viewport, only the cluster vertices with the centroid inside it, the cluster edges
+   *            touching them and the cluster vertices these edges lead to are returned, {@code null} returns
+   *            all clusters
+   * @return the clustered graph
+   */
+  public CachedGraph getClusters(int level, BoundingBox box) {
+    CachedGraph clusters = levels.get(level);
+    if (box == null) {
+      return clusters;
+    }
+    Set<GradoopId> visible = new HashSet<>();
+    for (TemporalVertex vertex : clusters.getVertices()) {
+      if (box.contains(SpatialIndex.getCoordinate(vertex, "long"), SpatialIndex.getCoordinate(vertex, "lat"))) {
+        visible.add(vertex.getId());
+      }
+    }
+    return clusters.restrictToVertices(visible);
+  }
+
+  /**
+   * Adds an edge or a cluster of edges to the clusters of a level. Edges within a cell are counted by the
+   * cluster vertex of the cell.
+   *
+   * @param vertexClusters the vertex clusters of the level by cell
+   * @param edgeClusters the edge clusters of the level by cells
+   * @param source the cell of the source vertices
+   * @param target the cell of the target vertices
+   * @param edge the edge to add, {@code null} if a cluster is added
+   * @param cluster the cluster to add, {@code null} if an edge is added
+   */
+  private static void addEdge(Map<Long, Cluster> vertexClusters, Map<CellPair, Cluster> edgeClusters,
+    long source, long target, TemporalEdge edge, Cluster cluster) {
+    if (source == target) {
+      vertexClusters.get(source).internalEdges += edge != null ? 1 : cluster.count + cluster.internalEdges;
+      return;
+    }
+    Cluster edgeCluster = edgeClusters.computeIfAbsent(new CellPair(source, target), c -> new Cluster());
+    if (edge != null) {
+      edgeCluster.add(edge, 0., 0.);
+    } else {
+      edgeCluster.merge(cluster);
+    }
+  }
+
+  /**
+   * Creates the clustered graph of a level.
+   *
+   * @param databaseName the name of the database
+   * @param graphHeads the graph heads
+   * @param vertexClusters the vertex clusters by cell
+   * @param edgeClusters the edge clusters by cells
+   * @return the clustered graph
+   */
+  private static CachedGraph toGraph(String databaseName, List<TemporalGraphHead> graphHeads,
+    Map<Long, Cluster> vertexClusters, Map<CellPair, Cluster> edgeClusters) {
+    Map<Long, TemporalVertex> clusterVertices = new HashMap<>();
+    for (Map.Entry<Long, Cluster> entry : vertexClusters.entrySet()) {
+      Cluster cluster = entry.getValue();
+      TemporalVertex vertex = VERTEX_FACTORY.createVertex(cluster.label);
+      vertex.setProperty("long", cluster.sumLongitude / cluster.count);
+      vertex.setProperty("lat", cluster.sumLatitude / cluster.count);
+      vertex.setProperty(COUNT, cluster.count);
+      vertex.setProperty(INTERNAL_EDGES, cluster.internalEdges);
+      cluster.setTime(vertex);
+      clusterVertices.put(entry.getKey(), vertex);
+    }
+    List<TemporalEdge> edges = new ArrayList<>(edgeClusters.size());
+    for (Map.Entry<CellPair, Cluster> entry : edgeClusters.entrySet()) {
+      Cluster cluster = entry.getValue();
+      TemporalEdge edge = EDGE_FACTORY.createEdge(cluster.label,
+        clusterVertices.get(entry.getKey().source).getId(), clusterVertices.get(entry.getKey().target).getId());
+      edge.setProperty(COUNT, cluster.count);
+      cluster.setTime(edge);
+      edges.add(edge);
+    }
+    return new CachedGraph(databaseName, graphHeads, new ArrayList<>(clusterVertices.values()), edges);
+  }
+
+  /**
+   * Returns the number of distinct cells of a coarser level.
+   *
+   * @param cells the sorted cells of the finest level
+   * @param shift the bits to drop to get the cells of the coarser level
+   * @return the number of distinct cells
+   */
+  private static int countDistinct(long[] cells, int shift) {
+    int count = 0;
+    for (int i = 0; i < cells.length; i++) {
+      if (i == 0 || cells[i] >>> shift != cells[i - 1] >>> shift) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Interleaves the bits of a column and a row to the Morton code of a cell, so the code of the enclosing
+   * cell of the next coarser level drops the last two bits.
+   *
+   * @param column the column of the cell
+   * @param row the row of the cell
+   * @return the Morton code of the cell
+   */
+  private static long interleave(long column, long row) {
+    long code = 0L;
+    for (int bit = 0; bit < 31; bit++) {
+      code |= ((column >>> bit) & 1L) << (2 * bit) | ((row >>> bit) & 1L) << (2 * bit + 1);
+    }
+    return code;
+  }
+
+  /**
+   * The aggregates of the elements of a cluster.
+   */
+  private static final class Cluster {
+
+    /**
+     * The number of elements.
+     */
+    private long count;
+
+    /**
+     * The number of edges within a cluster vertex.
+     */
+    private long internalEdges;
+
+    /**
+     * The sum of the longitudes of the vertices.
+     */
+    private double sumLongitude;
+
+    /**
+     * The sum of the latitudes of the vertices.
+     */
+    private double sumLatitude;
+
+    /**
+     * The label of the elements, {@value #MIXED_LABEL} if they differ.
+     */
+    private String label;
+
+    /**
+     * The earliest start and the latest end of the valid time and the transaction time of the elements.
+     */
+    private final long[] times = {Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+
+    /**
+     * Adds an element.
+     *
+     * @param element the element
+     * @param longitude the longitude of a vertex
+     * @param latitude the latitude of a vertex
+     */
+    void add(TemporalElement element, double longitude, double latitude) {
+      merge(1L, 0L, longitude, latitude, element.getLabel(),
+        new long[] {element.getValidFrom(), element.getValidTo(), element.getTxFrom(), element.getTxTo()});
+    }
+
+    /**
+     * Adds the elements of another cluster.
+     *
+     * @param other the other cluster
+     */
+    void merge(Cluster other) {
+      merge(other.count, other.internalEdges, other.sumLongitude, other.sumLatitude, other.label, other.times);
+    }
+
+    /**
+     * Adds aggregates of elements.
+     *
+     * @param otherCount the number of elements
+     * @param otherInternalEdges the number of edges within vertices
+     * @param otherLongitude the sum of the longitudes
+     * @param otherLatitude the sum of the latitudes
+     * @param otherLabel the label of the elements
+     * @param otherTimes the time bounds of the elements
+     */
+    private void merge(long otherCount, long otherInternalEdges, double otherLongitude, double otherLatitude,
+      String otherLabel, long[] otherTimes) {
+      label = count == 0 || Objects.equals(label, otherLabel) ? otherLabel : MIXED_LABEL;
+      count += otherCount;
+      internalEdges += otherInternalEdges;
+      sumLongitude += otherLongitude;
+      sumLatitude += otherLatitude;
+      for (int i = 0; i < times.length; i += 2) {
+        times[i] = Math.min(times[i], otherTimes[i]);
+        times[i + 1] = Math.max(times[i + 1], otherTimes[i + 1]);
+      }
+    }
+
+    /**
+     * Sets the time bounds of the cluster as valid and transaction time of its element.
+     *
+     * @param element the element representing the cluster
+     */
+    void setTime(TemporalElement element) {
+      element.setValidFrom(times[0]);
+      element.setValidTo(times[1]);
+      element.setTxFrom(times[2]);
+      element.setTxTo(times[3]);
+    }
+  }
+
+  /**
+   * The cells of the source and the target vertices of a cluster edge.
+   */
+  private static final class CellPair {
+
+    /**
+     * The cell of the source vertices.
+     */
+    private final long source;
+
+    /**
+     * The cell of the target vertices.
+     */
+    private final long target;
+
+    /**
+     * Creates a pair of cells.
+     *
+     * @param source the cell of the source vertices
+     * @param target the cell of the target vertices
+     */
+    CellPair(long source, long target) {
+      this.source = source;
+      this.target = target;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof CellPair && ((CellPair) o).source == source && ((CellPair) o).target == target;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Long.hashCode(source) + Long.hashCode(target);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.engine;
+
+import org.apache.flink.util.InstantiationUtil;
+import org.gradoop.common.model.api.entities.Element;
+import org.gradoop.common.model.impl.properties.Properties;
+import org.gradoop.common.model.impl.properties.PropertyValue;
+import org.gradoop.flink.model.api.functions.AggregateFunction;
+import org.gradoop.flink.model.api.functions.KeyFunction;
+import org.gradoop.flink.model.impl.operators.aggregation.functions.AggregateUtil;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The key and aggregate functions of an element kind. Key functions reuse their key tuples and aggregate
+ * functions may hold formatters, so every thread of a grouping works on its own {@link #copy()}.
+ *
+ * @param <E> the element type
+ */
+class GroupingFunctions<E> implements Serializable {
+
+  /**
+   * The key functions.
+   */
+  private final List<KeyFunction<E, ?>> keys;
+
+  /**
+   * The aggregate functions.
+   */
+  private final List<AggregateFunction> aggregates;
+
+  /**
+   * Creates the functions of an element kind.
+   *
+   * @param keys the key functions
+   * @param aggregates the aggregate functions
+   */
+  GroupingFunctions(List<KeyFunction<E, ?>> keys, List<AggregateFunction> aggregates) {
+    this.keys = new ArrayList<>(keys);
+    this.aggregates = new ArrayList<>(aggregates);
+  }
+
+  List<KeyFunction<E, ?>> getKeys() {
+    return keys;
+  }
+
+  List<AggregateFunction> getAggregates() {
+    return aggregates;
+  }
+
+  /**
+   * Returns a deep copy of the functions, as Flink would ship them to a task.
+   *
+   * @return the copy
+   */
+  GroupingFunctions<E> copy() {
+    try {
+      return InstantiationUtil.clone(this);
+    } catch (Exception e) {
+      throw new IllegalStateException("Unable to copy the grouping functions.", e);
+    }
+  }
+
+  /**
+   * Resets the label and properties of a new super element, like {@code BuildSuperElementFromTuple} of
+   * Gradoop. The keys are added by the caller.
+   *
+   * @param superElement the super element
+   */
+  static void initSuperElement(Element superElement) {
+    superElement.setLabel("");
+    superElement.setProperties(Properties.create());
+  }
+
+  /**
+   * Sets the aggregated values of a group as properties of its super element, like
+   * {@code BuildSuperElementFromTuple} of Gradoop.
+   *
+   * @param superElement the super element
+   * @param values the aggregated values, {@link PropertyValue#NULL_VALUE} if no element has a value
+   */
+  void setAggregates(Element superElement, PropertyValue[] values) {
+    for (int a = 0; a < aggregates.size(); a++) {
+      AggregateFunction aggregateFunction = aggregates.get(a);
+      PropertyValue value = aggregateFunction.postAggregate(values[a]);
+      if (value != null) {
+        superElement.setProperty(aggregateFunction.getAggregatePropertyKey(),
+          value.isNull() ? AggregateUtil.getDefaultAggregate(aggregateFunction) : value);
+      }
+    }
+  }
+}
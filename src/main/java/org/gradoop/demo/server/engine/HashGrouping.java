@@ -0,0 +1,1161 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.engine;
+
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.gradoop.common.model.impl.properties.PropertyValue;
+import org.gradoop.flink.model.api.functions.AggregateFunction;
+import org.gradoop.flink.model.api.functions.KeyFunction;
+import org.gradoop.flink.model.impl.operators.aggregation.functions.count.Count;
+import org.gradoop.flink.model.impl.operators.aggregation.functions.max.Max;
+import org.gradoop.flink.model.impl.operators.aggregation.functions.min.Min;
+import org.gradoop.flink.model.impl.operators.aggregation.functions.sum.Sum;
+import org.gradoop.flink.model.impl.operators.keyedgrouping.keys.LabelKeyFunction;
+import org.gradoop.temporal.model.api.TimeDimension;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalField;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Groups the elements of one kind by hash tables of primitive keys. The keys of an element are encoded
+ * into a row of {@code long} values: labels and property values by a dictionary, time stamps and intervals
+ * by their values. Counts, sums, minima and maxima of numbers are aggregated in primitive arrays, so the
+ * elements are grouped without creating key or aggregate objects. Other keys and aggregates are encoded by
+ * their objects.
+ * <p>
+ * The elements are split into chunks grouped by a hash table each, the tables are merged afterwards.
+ *
+ * @param <E> the element type
+ */
+class HashGrouping<E extends TemporalElement> {
+
+  /**
+   * The number of elements grouped by a single task.
+   */
+  private static final int CHUNK_SIZE = 1 << 14;
+
+  /**
+   * The copies of the key and aggregate functions of the current thread.
+   */
+  private final ThreadLocal<GroupingFunctions<E>> functions;
+
+  /**
+   * The encoding of each key function.
+   */
+  private final List<KeyColumn<E>> columns = new ArrayList<>();
+
+  /**
+   * The number of values at the start of a row, set by the caller.
+   */
+  private final int prefixWidth;
+
+  /**
+   * The number of values of a row.
+   */
+  private final int width;
+
+  /**
+   * The aggregate functions, used to select the accumulators.
+   */
+  private final List<AggregateFunction> aggregates;
+
+  /**
+   * The groups of all elements.
+   */
+  private GroupTable<E> table;
+
+  /**
+   * The group of each element, {@code -1} if the element is skipped.
+   */
+  private int[] groups;
+
+  /**
+   * Creates a new grouping of an element kind.
+   *
+   * @param keys the key functions
+   * @param aggregates the aggregate functions
+   * @param prefixWidth the number of values at the start of a row, set by the caller
+   */
+  HashGrouping(List<KeyFunction<E, ?>> keys, List<AggregateFunction> aggregates, int prefixWidth) {
+    GroupingFunctions<E> original = new GroupingFunctions<>(keys, aggregates);
+    this.functions = ThreadLocal.withInitial(original::copy);
+    this.aggregates = aggregates;
+    this.prefixWidth = prefixWidth;
+    int rowWidth = prefixWidth;
+    for (KeyFunction<E, ?> key : keys) {
+      KeyColumn<E> column = createColumn(key);
+      columns.add(column);
+      rowWidth += column.getWidth();
+    }
+    this.width = rowWidth;
+  }
+
+  /**
+   * Groups the elements.
+   *
+   * @param elements the elements
+   * @param prefix writes the first values of the row of an element
+   * @throws UnsupportedValueException if an aggregate function returns a value not supported by its
+   * accumulator
+   */
+  void group(List<E> elements, RowPrefix<E> prefix) {
+    int chunks = (elements.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    groups = new int[elements.size()];
+    List<GroupTable<E>> tables = IntStream.range(0, chunks).parallel()
+      .mapToObj(chunk -> groupChunk(elements, chunk * CHUNK_SIZE,
+        Math.min(elements.size(), (chunk + 1) * CHUNK_SIZE), prefix))
+      .collect(Collectors.toList());
+
+    // merge the tables of the chunks into the first one and translate the groups of their elements
+    table = tables.isEmpty() ? createTable() : tables.get(0);
+    int[][] mappings = new int[chunks][];
+    for (int chunk = 1; chunk < chunks; chunk++) {
+      mappings[chunk] = table.merge(tables.get(chunk), functions.get().getAggregates());
+    }
+    IntStream.range(1, chunks).parallel().forEach(chunk -> {
+      int[] mapping = mappings[chunk];
+      for (int i = chunk * CHUNK_SIZE; i < Math.min(elements.size(), (chunk + 1) * CHUNK_SIZE); i++) {
+        if (groups[i] >= 0) {
+          groups[i] = mapping[groups[i]];
+        }
+      }
+    });
+  }
+
+  /**
+   * Groups a chunk of the elements by a new table.
+   *
+   * @param elements the elements
+   * @param from the index of the first element of the chunk
+   * @param to the index after the last element of the chunk
+   * @param prefix writes the first values of the row of an element
+   * @return the table of the chunk
+   */
+  private GroupTable<E> groupChunk(List<E> elements, int from, int to, RowPrefix<E> prefix) {
+    GroupingFunctions<E> current = functions.get();
+    List<KeyFunction<E, ?>> keyFunctions = current.getKeys();
+    List<AggregateFunction> aggregateFunctions = current.getAggregates();
+    GroupTable<E> chunkTable = createTable();
+    long[] row = new long[width];
+    for (int i = from; i < to; i++) {
+      E element = elements.get(i);
+      if (!prefix.encode(element, row)) {
+        groups[i] = -1;
+        continue;
+      }
+      int offset = prefixWidth;
+      for (int k = 0; k < columns.size(); k++) {
+        KeyColumn<E> column = columns.get(k);
+        column.encode(element, keyFunctions.get(k), row, offset);
+        offset += column.getWidth();
+      }
+      int group = chunkTable.findOrInsert(row);
+      for (int a = 0; a < aggregateFunctions.size(); a++) {
+        chunkTable.accumulators.get(a).add(group, element, aggregateFunctions.get(a));
+      }
+      groups[i] = group;
+    }
+    return chunkTable;
+  }
+
+  /**
+   * Returns the group of an element.
+   *
+   * @param index the index of the element
+   * @return the group, {@code -1} if the element was skipped
+   */
+  int getGroup(int index) {
+    return groups[index];
+  }
+
+  /**
+   * Creates the super elements of the groups and sets their keys and aggregates. The super element of a
+   * group is at the index of the group.
+   *
+   * @param factory creates the super element of a group
+   * @return the super elements
+   */
+  List<E> build(SuperElementFactory<E> factory) {
+    GroupingFunctions<E> current = functions.get();
+    List<KeyFunction<E, ?>> keyFunctions = current.getKeys();
+    PropertyValue[] values = new PropertyValue[current.getAggregates().size()];
+    List<E> superElements = new ArrayList<>(table.size);
+    for (int group = 0; group < table.size; group++) {
+      long[] row = Arrays.copyOfRange(table.rows, group * width, (group + 1) * width);
+      E superElement = factory.create(row);
+      GroupingFunctions.initSuperElement(superElement);
+      int offset = prefixWidth;
+      for (int k = 0; k < columns.size(); k++) {
+        KeyColumn<E> column = columns.get(k);
+        keyFunctions.get(k).addKeyToElement(superElement, column.decode(row, offset, keyFunctions.get(k)));
+        offset += column.getWidth();
+      }
+      for (int a = 0; a < values.length; a++) {
+        values[a] = table.accumulators.get(a).get(group);
+      }
+      current.setAggregates(superElement, values);
+      superElements.add(superElement);
+    }
+    return superElements;
+  }
+
+  /**
+   * Creates an empty table with an accumulator per aggregate function.
+   *
+   * @return the table
+   */
+  private GroupTable<E> createTable() {
+    List<Accumulator<E>> accumulators = new ArrayList<>(aggregates.size());
+    for (AggregateFunction aggregate : aggregates) {
+      if (aggregate instanceof Count) {
+        accumulators.add(new CountAccumulator<>());
+      } else if (aggregate instanceof Sum) {
+        accumulators.add(new NumberAccumulator<>(NumberAccumulator.SUM));
+      } else if (aggregate instanceof Min) {
+        accumulators.add(new NumberAccumulator<>(NumberAccumulator.MIN));
+      } else if (aggregate instanceof Max) {
+        accumulators.add(new NumberAccumulator<>(NumberAccumulator.MAX));
+      } else {
+        accumulators.add(new ValueAccumulator<>());
+      }
+    }
+    return new GroupTable<>(width, accumulators);
+  }
+
+  /**
+   * Selects the encoding of a key function.
+   *
+   * @param key the key function
+   * @param <E> the element type
+   * @return the encoding
+   */
+  static <E extends TemporalElement> KeyColumn<E> createColumn(KeyFunction<E, ?> key) {
+    if (key instanceof LabelKeyFunction) {
+      return new LabelColumn<>();
+    } else if (key instanceof NativeGroupingKeys.PropertyKey) {
+      return new PropertyColumn<>(((NativeGroupingKeys.PropertyKey<?>) key).getPropertyKey());
+    } else if (key instanceof NativeGroupingKeys.TimeStampKey) {
+      return new TimeStampColumn<>((NativeGroupingKeys.TimeStampKey<?>) key);
+    } else if (key instanceof NativeGroupingKeys.TimeIntervalKey) {
+      return new TimeIntervalColumn<>(((NativeGroupingKeys.TimeIntervalKey<?>) key).getDimension());
+    }
+    return new ObjectColumn<>();
+  }
+
+  /**
+   * Returns a time of an element.
+   *
+   * @param element the element
+   * @param dimension the time dimension
+   * @param bound the bound of the time interval
+   * @return the time
+   */
+  static long getTime(TemporalElement element, TimeDimension dimension, TimeDimension.Field bound) {
+    if (dimension == TimeDimension.VALID_TIME) {
+      return bound == TimeDimension.Field.FROM ? element.getValidFrom() : element.getValidTo();
+    }
+    return bound == TimeDimension.Field.FROM ? element.getTxFrom() : element.getTxTo();
+  }
+
+  /**
+   * Thrown if an aggregate function returns a value its primitive accumulator does not support. The
+   * elements are grouped by their objects instead.
+   */
+  static class UnsupportedValueException extends RuntimeException {
+
+    /**
+     * Creates a new exception.
+     *
+     * @param value the unsupported value
+     */
+    UnsupportedValueException(PropertyValue value) {
+      super("Unsupported aggregate value: " + value);
+    }
+  }
+
+  /**
+   * Writes the first values of the row of an element, e.g., the groups of the vertices of an edge.
+   *
+   * @param <E> the element type
+   */
+  @FunctionalInterface
+  interface RowPrefix<E> {
+    /**
+     * Writes the first values of the row of an element.
+     *
+     * @param element the element
+     * @param row the row
+     * @return {@code false} if the element is skipped
+     */
+    boolean encode(E element, long[] row);
+  }
+
+  /**
+   * Creates the super element of a group.
+   *
+   * @param <E> the element type
+   */
+  @FunctionalInterface
+  interface SuperElementFactory<E> {
+    /**
+     * Creates the super element of a group, without keys and aggregates.
+     *
+     * @param row the row of the group
+     * @return the super element
+     */
+    E create(long[] row);
+  }
+
+  /**
+   * An open addressing hash table of rows, assigning consecutive numbers to the groups.
+   *
+   * @param <E> the element type
+   */
+  private static final class GroupTable<E extends TemporalElement> {
+
+    /**
+     * The number of values of a row.
+     */
+    private final int width;
+
+    /**
+     * The accumulators of the aggregate functions.
+     */
+    private final List<Accumulator<E>> accumulators;
+
+    /**
+     * The number of groups the rows and accumulators can hold.
+     */
+    private int capacity = 16;
+
+    /**
+     * The rows of the groups, ordered by group.
+     */
+    private long[] rows;
+
+    /**
+     * The group of each slot plus one, {@code 0} for an empty slot.
+     */
+    private int[] slots = new int[2 * capacity];
+
+    /**
+     * The number of groups.
+     */
+    private int size;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param width the number of values of a row
+     * @param accumulators the accumulators of the aggregate functions
+     */
+    GroupTable(int width, List<Accumulator<E>> accumulators) {
+      this.width = width;
+      this.accumulators = accumulators;
+      this.rows = new long[capacity * width];
+      for (Accumulator<E> accumulator : accumulators) {
+        accumulator.resize(capacity);
+      }
+    }
+
+    /**
+     * Returns the group of a row, a new group is added if the row is unknown.
+     *
+     * @param row the row
+     * @return the group
+     */
+    int findOrInsert(long[] row) {
+      int mask = slots.length - 1;
+      int slot = hash(row, 0) & mask;
+      while (slots[slot] != 0) {
+        int group = slots[slot] - 1;
+        if (equals(group, row)) {
+          return group;
+        }
+        slot = (slot + 1) & mask;
+      }
+      if (size == capacity) {
+        capacity *= 2;
+        rows = Arrays.copyOf(rows, capacity * width);
+        for (Accumulator<E> accumulator : accumulators) {
+          accumulator.resize(capacity);
+        }
+      }
+      int group = size++;
+      System.arraycopy(row, 0, rows, group * width, width);
+      slots[slot] = group + 1;
+      if (size * 2 > slots.length) {
+        rehash();
+      }
+      return group;
+    }
+
+    /**
+     * Doubles the number of slots.
+     */
+    private void rehash() {
+      slots = new int[slots.length * 2];
+      int mask = slots.length - 1;
+      for (int group = 0; group < size; group++) {
+        int slot = hash(rows, group * width) & mask;
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = group + 1;
+      }
+    }
+
+    /**
+     * Hashes a row.
+     *
+     * @param values the array containing the row
+     * @param offset the index of the first value of the row
+     * @return the hash
+     */
+    private int hash(long[] values, int offset) {
+      long hash = 0x9E3779B97F4A7C15L;
+      for (int i = offset; i < offset + width; i++) {
+        hash = (hash ^ values[i]) * 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 31;
+      }
+      return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Compares the row of a group to a row.
+     *
+     * @param group the group
+     * @param row the row
+     * @return {@code true} if the rows are equal
+     */
+    private boolean equals(int group, long[] row) {
+      int offset = group * width;
+      for (int i = 0; i < width; i++) {
+        if (rows[offset + i] != row[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Adds the groups of another table to this table.
+     *
+     * @param other the other table
+     * @param aggregateFunctions the aggregate functions
+     * @return the group in this table of each group of the other table
+     */
+    int[] merge(GroupTable<E> other, List<AggregateFunction> aggregateFunctions) {
+      int[] mapping = new int[other.size];
+      long[] row = new long[width];
+      for (int group = 0; group < other.size; group++) {
+        System.arraycopy(other.rows, group * width, row, 0, width);
+        mapping[group] = findOrInsert(row);
+        for (int a = 0; a < accumulators.size(); a++) {
+          accumulators.get(a).merge(mapping[group], other.accumulators.get(a), group, aggregateFunctions.get(a));
+        }
+      }
+      return mapping;
+    }
+  }
+
+  /**
+   * The aggregated values of an aggregate function for each group of a table.
+   *
+   * @param <E> the element type
+   */
+  private abstract static class Accumulator<E extends TemporalElement> {
+
+    /**
+     * Changes the number of groups the accumulator can hold.
+     *
+     * @param capacity the new number of groups
+     */
+    abstract void resize(int capacity);
+
+    /**
+     * Adds the increment of an element to a group.
+     *
+     * @param group the group
+     * @param element the element
+     * @param function the aggregate function
+     */
+    abstract void add(int group, E element, AggregateFunction function);
+
+    /**
+     * Adds the aggregated value of a group of another accumulator to a group.
+     *
+     * @param group the group
+     * @param other the other accumulator
+     * @param otherGroup the group of the other accumulator
+     * @param function the aggregate function
+     */
+    abstract void merge(int group, Accumulator<E> other, int otherGroup, AggregateFunction function);
+
+    /**
+     * Returns the aggregated value of a group, before {@link AggregateFunction#postAggregate}.
+     *
+     * @param group the group
+     * @return the aggregated value, {@link PropertyValue#NULL_VALUE} if no element has a value
+     */
+    abstract PropertyValue get(int group);
+  }
+
+  /**
+   * Counts the elements of each group, for {@link Count}.
+   *
+   * @param <E> the element type
+   */
+  private static final class CountAccumulator<E extends TemporalElement> extends Accumulator<E> {
+
+    /**
+     * The count of each group.
+     */
+    private long[] counts = new long[0];
+
+    @Override
+    void resize(int capacity) {
+      counts = Arrays.copyOf(counts, capacity);
+    }
+
+    @Override
+    void add(int group, E element, AggregateFunction function) {
+      counts[group]++;
+    }
+
+    @Override
+    void merge(int group, Accumulator<E> other, int otherGroup, AggregateFunction function) {
+      counts[group] += ((CountAccumulator<E>) other).counts[otherGroup];
+    }
+
+    @Override
+    PropertyValue get(int group) {
+      return counts[group] == 0 ? PropertyValue.NULL_VALUE : PropertyValue.create(counts[group]);
+    }
+  }
+
+  /**
+   * Aggregates numbers, for {@link Sum}, {@link Min} and {@link Max}. Like {@code PropertyValueUtils.Numeric},
+   * the result has the widest type of the aggregated numbers for sums and the type of the selected number
+   * for minima and maxima.
+   *
+   * @param <E> the element type
+   */
+  private static final class NumberAccumulator<E extends TemporalElement> extends Accumulator<E> {
+
+    /**
+     * Mode of sums.
+     */
+    static final int SUM = 0;
+
+    /**
+     * Mode of minima.
+     */
+    static final int MIN = 1;
+
+    /**
+     * Mode of maxima.
+     */
+    static final int MAX = 2;
+
+    /**
+     * Type of a group without a value.
+     */
+    private static final byte NONE = 0;
+
+    /**
+     * Type of integers.
+     */
+    private static final byte INT = 1;
+
+    /**
+     * Type of longs.
+     */
+    private static final byte LONG = 2;
+
+    /**
+     * Type of floats.
+     */
+    private static final byte FLOAT = 3;
+
+    /**
+     * Type of doubles.
+     */
+    private static final byte DOUBLE = 4;
+
+    /**
+     * The mode, {@link #SUM}, {@link #MIN} or {@link #MAX}.
+     */
+    private final int mode;
+
+    /**
+     * The type of the value of each group.
+     */
+    private byte[] types = new byte[0];
+
+    /**
+     * The integral part of the value of each group.
+     */
+    private long[] longs = new long[0];
+
+    /**
+     * The floating point part of the value of each group.
+     */
+    private double[] doubles = new double[0];
+
+    /**
+     * Creates a new accumulator.
+     *
+     * @param mode the mode, {@link #SUM}, {@link #MIN} or {@link #MAX}
+     */
+    NumberAccumulator(int mode) {
+      this.mode = mode;
+    }
+
+    @Override
+    void resize(int capacity) {
+      types = Arrays.copyOf(types, capacity);
+      longs = Arrays.copyOf(longs, capacity);
+      doubles = Arrays.copyOf(doubles, capacity);
+    }
+
+    @Override
+    void add(int group, E element, AggregateFunction function) {
+      PropertyValue increment = function.getIncrement(element);
+      if (increment == null || increment.isNull()) {
+        return;
+      }
+      if (increment.isInt()) {
+        update(group, INT, increment.getInt(), 0);
+      } else if (increment.isLong()) {
+        update(group, LONG, increment.getLong(), 0);
+      } else if (increment.isFloat()) {
+        update(group, FLOAT, 0, increment.getFloat());
+      } else if (increment.isDouble()) {
+        update(group, DOUBLE, 0, increment.getDouble());
+      } else {
+        throw new UnsupportedValueException(increment);
+      }
+    }
+
+    @Override
+    void merge(int group, Accumulator<E> other, int otherGroup, AggregateFunction function) {
+      NumberAccumulator<E> numbers = (NumberAccumulator<E>) other;
+      if (numbers.types[otherGroup] != NONE) {
+        update(group, numbers.types[otherGroup], numbers.longs[otherGroup], numbers.doubles[otherGroup]);
+      }
+    }
+
+    /**
+     * Adds a number to a group.
+     *
+     * @param group the group
+     * @param type the type of the number
+     * @param integral the integral part of the number
+     * @param floatingPoint the floating point part of the number
+     */
+    private void update(int group, byte type, long integral, double floatingPoint) {
+      byte current = types[group];
+      if (mode == SUM) {
+        types[group] = (byte) Math.max(current, type);
+        longs[group] += integral;
+        doubles[group] += floatingPoint;
+        return;
+      }
+      if (current != NONE) {
+        boolean less;
+        boolean greater;
+        if (type <= LONG && current <= LONG) {
+          less = integral < longs[group];
+          greater = integral > longs[group];
+        } else {
+          double value = integral + floatingPoint;
+          double currentValue = longs[group] + doubles[group];
+          less = value < currentValue;
+          greater = value > currentValue;
+        }
+        if (mode == MIN ? !less : !greater) {
+          return;
+        }
+      }
+      types[group] = type;
+      longs[group] = integral;
+      doubles[group] = floatingPoint;
+    }
+
+    @Override
+    PropertyValue get(int group) {
+      switch (types[group]) {
+      case INT:
+        return PropertyValue.create((int) longs[group]);
+      case LONG:
+        return PropertyValue.create(longs[group]);
+      case FLOAT:
+        return PropertyValue.create((float) (longs[group] + doubles[group]));
+      case DOUBLE:
+        return PropertyValue.create(longs[group] + doubles[group]);
+      default:
+        return PropertyValue.NULL_VALUE;
+      }
+    }
+  }
+
+  /**
+   * Aggregates the values returned by an aggregate function, for all other aggregate functions.
+   *
+   * @param <E> the element type
+   */
+  private static final class ValueAccumulator<E extends TemporalElement> extends Accumulator<E> {
+
+    /**
+     * The value of each group, {@code null} if no element has a value.
+     */
+    private PropertyValue[] values = new PropertyValue[0];
+
+    @Override
+    void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void add(int group, E element, AggregateFunction function) {
+      PropertyValue increment = function.getIncrement(element);
+      if (increment == null || increment.isNull()) {
+        return;
+      }
+      // aggregate functions may update their arguments, which must not be values of the cached graph
+      values[group] = values[group] == null ? increment.copy() :
+        function.aggregate(values[group], increment.copy());
+    }
+
+    @Override
+    void merge(int group, Accumulator<E> other, int otherGroup, AggregateFunction function) {
+      PropertyValue value = ((ValueAccumulator<E>) other).values[otherGroup];
+      if (value != null) {
+        values[group] = values[group] == null ? value : function.aggregate(values[group], value);
+      }
+    }
+
+    @Override
+    PropertyValue get(int group) {
+      return values[group] == null ? PropertyValue.NULL_VALUE : values[group];
+    }
+  }
+
+  /**
+   * Assigns consecutive codes to keys. Codes are looked up concurrently, new keys are added under a lock.
+   */
+  private static final class Dictionary {
+
+    /**
+     * Replaces {@code null} keys.
+     */
+    private static final Object NULL_KEY = new Object();
+
+    /**
+     * The code of each key.
+     */
+    private final ConcurrentHashMap<Object, Integer> codes = new ConcurrentHashMap<>();
+
+    /**
+     * The value stored for each code.
+     */
+    private final List<Object> values = new ArrayList<>();
+
+    /**
+     * Returns the code of a key, a new code is assigned if the key is unknown.
+     *
+     * @param key the key, may be {@code null}
+     * @param value the value stored for a new code
+     * @return the code
+     */
+    int encode(Object key, Object value) {
+      Object mapKey = key == null ? NULL_KEY : key;
+      Integer code = codes.get(mapKey);
+      if (code == null) {
+        synchronized (values) {
+          code = codes.get(mapKey);
+          if (code == null) {
+            code = values.size();
+            values.add(value);
+            codes.put(mapKey, code);
+          }
+        }
+      }
+      return code;
+    }
+
+    /**
+     * Returns the value stored for a code.
+     *
+     * @param code the code
+     * @return the value
+     */
+    Object decode(long code) {
+      return values.get((int) code);
+    }
+  }
+
+  /**
+   * Encodes the keys of a key function into a row.
+   *
+   * @param <E> the element type
+   */
+  interface KeyColumn<E> {
+
+    /**
+     * Returns the number of values of a key.
+     *
+     * @return the number of values
+     */
+    int getWidth();
+
+    /**
+     * Writes the key of an element into a row.
+     *
+     * @param element the element
+     * @param function the key function of the current thread
+     * @param row the row
+     * @param offset the index of the first value of the key
+     */
+    void encode(E element, KeyFunction<E, ?> function, long[] row, int offset);
+
+    /**
+     * Returns the key written into a row, as returned by the key function.
+     *
+     * @param row the row
+     * @param offset the index of the first value of the key
+     * @param function the key function of the current thread
+     * @return the key
+     */
+    Object decode(long[] row, int offset, KeyFunction<E, ?> function);
+  }
+
+  /**
+   * Encodes labels by a dictionary.
+   *
+   * @param <E> the element type
+   */
+  private static final class LabelColumn<E extends TemporalElement> implements KeyColumn<E> {
+
+    /**
+     * The codes of the labels.
+     */
+    private final Dictionary labels = new Dictionary();
+
+    @Override
+    public int getWidth() {
+      return 1;
+    }
+
+    @Override
+    public void encode(E element, KeyFunction<E, ?> function, long[] row, int offset) {
+      row[offset] = labels.encode(element.getLabel(), element.getLabel());
+    }
+
+    @Override
+    public Object decode(long[] row, int offset, KeyFunction<E, ?> function) {
+      return labels.decode(row[offset]);
+    }
+  }
+
+  /**
+   * Encodes property values by a dictionary of their objects.
+   *
+   * @param <E> the element type
+   */
+  private static final class PropertyColumn<E extends TemporalElement> implements KeyColumn<E> {
+
+    /**
+     * The property key.
+     */
+    private final String propertyKey;
+
+    /**
+     * The codes of the property values.
+     */
+    private final Dictionary values = new Dictionary();
+
+    /**
+     * Creates a new column.
+     *
+     * @param propertyKey the property key
+     */
+    PropertyColumn(String propertyKey) {
+      this.propertyKey = propertyKey;
+    }
+
+    @Override
+    public int getWidth() {
+      return 1;
+    }
+
+    @Override
+    public void encode(E element, KeyFunction<E, ?> function, long[] row, int offset) {
+      PropertyValue value = element.getPropertyValue(propertyKey);
+      if (value == null || value.isNull()) {
+        row[offset] = values.encode(null, PropertyValue.NULL_VALUE);
+      } else {
+        row[offset] = values.encode(value.getObject(), value);
+      }
+    }
+
+    @Override
+    public Object decode(long[] row, int offset, KeyFunction<E, ?> function) {
+      return ((PropertyValue) values.decode(row[offset])).getRawBytes().clone();
+    }
+  }
+
+  /**
+   * Encodes a time stamp or a field of it by its value.
+   *
+   * @param <E> the element type
+   */
+  private static final class TimeStampColumn<E extends TemporalElement> implements KeyColumn<E> {
+
+    /**
+     * The number of seconds of a day.
+     */
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    /**
+     * The number of days of a 400 year cycle.
+     */
+    private static final long DAYS_PER_CYCLE = 146_097L;
+
+    /**
+     * The number of days from 0000-01-01 to 1970-01-01.
+     */
+    private static final long DAYS_0000_TO_1970 = DAYS_PER_CYCLE * 5L - (30L * 365L + 7L);
+
+    /**
+     * The day of the year before the first day of each month, in a year that is not a leap year.
+     */
+    private static final int[] DAYS_BEFORE_MONTH = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+
+    /**
+     * The time dimension.
+     */
+    private final TimeDimension dimension;
+
+    /**
+     * The bound of the time interval.
+     */
+    private final TimeDimension.Field periodBound;
+
+    /**
+     * The field of the time stamp, {@code null} to group by the time stamp itself.
+     */
+    private final TemporalField field;
+
+    /**
+     * The time of an unbounded interval.
+     */
+    private final long defaultTime;
+
+    /**
+     * The key of an unbounded interval, if a field is given.
+     */
+    private final long defaultKey;
+
+    /**
+     * Creates a new column.
+     *
+     * @param key the key function
+     */
+    TimeStampColumn(NativeGroupingKeys.TimeStampKey<?> key) {
+      this.dimension = key.getDimension();
+      this.periodBound = key.getPeriodBound();
+      this.field = key.getField();
+      this.defaultTime = periodBound == TimeDimension.Field.FROM ? TemporalElement.DEFAULT_TIME_FROM :
+        TemporalElement.DEFAULT_TIME_TO;
+      this.defaultKey = key.getDefaultKey();
+    }
+
+    @Override
+    public int getWidth() {
+      return 1;
+    }
+
+    @Override
+    public void encode(E element, KeyFunction<E, ?> function, long[] row, int offset) {
+      long time = getTime(element, dimension, periodBound);
+      if (field == null) {
+        row[offset] = time;
+      } else {
+        row[offset] = time == defaultTime ? defaultKey : getField(time);
+      }
+    }
+
+    @Override
+    public Object decode(long[] row, int offset, KeyFunction<E, ?> function) {
+      return row[offset];
+    }
+
+    /**
+     * Returns the field of a time stamp in UTC, like {@link TemporalField#getFrom} of a
+     * {@link LocalDateTime}. The fields of the grouping keys are computed without creating objects.
+     *
+     * @param time the time stamp in milliseconds since the epoch
+     * @return the value of the field
+     */
+    private long getField(long time) {
+      if (field instanceof ChronoField) {
+        long epochSecond = Math.floorDiv(time, 1000L);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+        switch ((ChronoField) field) {
+        case HOUR_OF_DAY:
+          return secondOfDay / 3600;
+        case MINUTE_OF_HOUR:
+          return secondOfDay / 60 % 60;
+        case SECOND_OF_MINUTE:
+          return secondOfDay % 60;
+        case YEAR:
+        case MONTH_OF_YEAR:
+        case DAY_OF_MONTH:
+        case DAY_OF_YEAR:
+        case ALIGNED_WEEK_OF_MONTH:
+        case ALIGNED_WEEK_OF_YEAR:
+          return getDateField(Math.floorDiv(epochSecond, SECONDS_PER_DAY));
+        default:
+          break;
+        }
+      }
+      return field.getFrom(LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC));
+    }
+
+    /**
+     * Returns a date based field of a day, computed like {@code LocalDate.ofEpochDay}.
+     *
+     * @param epochDay the day since the epoch
+     * @return the value of the field
+     */
+    private long getDateField(long epochDay) {
+      long zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+      long adjust = 0;
+      if (zeroDay < 0) {
+        long adjustCycles = (zeroDay + 1) / DAYS_PER_CYCLE - 1;
+        adjust = adjustCycles * 400;
+        zeroDay += -adjustCycles * DAYS_PER_CYCLE;
+      }
+      long year = (400 * zeroDay + 591) / DAYS_PER_CYCLE;
+      long dayOfYear = zeroDay - (365 * year + year / 4 - year / 100 + year / 400);
+      if (dayOfYear < 0) {
+        year--;
+        dayOfYear = zeroDay - (365 * year + year / 4 - year / 100 + year / 400);
+      }
+      year += adjust;
+      int marchDayOfYear = (int) dayOfYear;
+      int marchMonth = (marchDayOfYear * 5 + 2) / 153;
+      int month = (marchMonth + 2) % 12 + 1;
+      int dayOfMonth = marchDayOfYear - (marchMonth * 306 + 5) / 10 + 1;
+      year += marchMonth / 10;
+
+      switch ((ChronoField) field) {
+      case YEAR:
+        return year;
+      case MONTH_OF_YEAR:
+        return month;
+      case DAY_OF_MONTH:
+        return dayOfMonth;
+      case ALIGNED_WEEK_OF_MONTH:
+        return (dayOfMonth - 1) / 7 + 1;
+      default:
+        boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+        int day = DAYS_BEFORE_MONTH[month - 1] + dayOfMonth + (leap && month > 2 ? 1 : 0);
+        return field == ChronoField.DAY_OF_YEAR ? day : (day - 1) / 7 + 1;
+      }
+    }
+  }
+
+  /**
+   * Encodes a time interval by its bounds.
+   *
+   * @param <E> the element type
+   */
+  private static final class TimeIntervalColumn<E extends TemporalElement> implements KeyColumn<E> {
+
+    /**
+     * The time dimension.
+     */
+    private final TimeDimension dimension;
+
+    /**
+     * Creates a new column.
+     *
+     * @param dimension the time dimension
+     */
+    TimeIntervalColumn(TimeDimension dimension) {
+      this.dimension = dimension;
+    }
+
+    @Override
+    public int getWidth() {
+      return 2;
+    }
+
+    @Override
+    public void encode(E element, KeyFunction<E, ?> function, long[] row, int offset) {
+      row[offset] = getTime(element, dimension, TimeDimension.Field.FROM);
+      row[offset + 1] = getTime(element, dimension, TimeDimension.Field.TO);
+    }
+
+    @Override
+    public Object decode(long[] row, int offset, KeyFunction<E, ?> function) {
+      return Tuple2.of(row[offset], row[offset + 1]);
+    }
+  }
+
+  /**
+   * Encodes the keys returned by any key function by a dictionary. The first element of each key is stored
+   * to compute the key again for the super element.
+   *
+   * @param <E> the element type
+   */
+  private static final class ObjectColumn<E extends TemporalElement> implements KeyColumn<E> {
+
+    /**
+     * The codes of the normalized keys.
+     */
+    private final Dictionary keys = new Dictionary();
+
+    @Override
+    public int getWidth() {
+      return 1;
+    }
+
+    @Override
+    public void encode(E element, KeyFunction<E, ?> function, long[] row, int offset) {
+      row[offset] = keys.encode(NativeKeyedGrouping.normalize(function.getKey(element)), element);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object decode(long[] row, int offset, KeyFunction<E, ?> function) {
+      return function.getKey((E) keys.decode(row[offset]));
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.engine;
+
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.gradoop.common.model.impl.properties.Properties;
+import org.gradoop.common.model.impl.properties.Property;
+import org.gradoop.common.model.impl.properties.PropertyValue;
+import org.gradoop.demo.server.cache.CachedGraph;
+import org.gradoop.temporal.model.api.TimeDimension;
+import org.gradoop.temporal.model.api.functions.TemporalPredicate;
+import org.gradoop.temporal.model.impl.operators.diff.Diff;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdgeFactory;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertexFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * The difference operator of Gradoop, {@link Diff}, evaluated on a graph in memory instead of by a Flink
+ * job. Every vertex and edge satisfying at least one of the predicates is copied and annotated by the
+ * {@value Diff#PROPERTY_KEY} property, the elements are processed by a parallel stream.
+ */
+public class NativeDiff {
+
+  /**
+   * The factory of the annotated vertices.
+   */
+  private static final TemporalVertexFactory VERTEX_FACTORY = new TemporalVertexFactory();
+
+  /**
+   * The factory of the annotated edges.
+   */
+  private static final TemporalEdgeFactory EDGE_FACTORY = new TemporalEdgeFactory();
+
+  /**
+   * The predicate of the first snapshot.
+   */
+  private final TemporalPredicate firstPredicate;
+
+  /**
+   * The predicate of the second snapshot.
+   */
+  private final TemporalPredicate secondPredicate;
+
+  /**
+   * The time dimension the predicates are evaluated on.
+   */
+  private final TimeDimension dimension;
+
+  /**
+   * Creates a new difference operator.
+   *
+   * @param firstPredicate the predicate of the first snapshot
+   * @param secondPredicate the predicate of the second snapshot
+   * @param dimension the time dimension the predicates are evaluated on
+   */
+  public NativeDiff(TemporalPredicate firstPredicate, TemporalPredicate secondPredicate, TimeDimension dimension) {
+    this.firstPredicate = Objects.requireNonNull(firstPredicate, "No first predicate given.");
+    this.secondPredicate = Objects.requireNonNull(secondPredicate, "No second predicate given.");
+    this.dimension = Objects.requireNonNull(dimension, "No time dimension given.");
+  }
+
+  /**
+   * Computes the difference graph. The elements of the input graph are not modified, the copies share their
+   * graph ids.
+   *
+   * @param graph the input graph
+   * @return the difference graph, sharing the graph heads with the input graph
+   */
+  public CachedGraph execute(CachedGraph graph) {
+    List<TemporalVertex> vertices = graph.getVertices().parallelStream()
+      .map(vertex -> {
+        PropertyValue diff = getDiff(vertex);
+        return diff == null ? null : copyTimes(vertex, VERTEX_FACTORY.initVertex(vertex.getId(), vertex.getLabel(),
+          annotate(vertex, diff), vertex.getGraphIds()));
+      })
+      .filter(Objects::nonNull)
+      .collect(Collectors.toList());
+    List<TemporalEdge> edges = graph.getEdges().parallelStream()
+      .map(edge -> {
+        PropertyValue diff = getDiff(edge);
+        return diff == null ? null : copyTimes(edge, EDGE_FACTORY.initEdge(edge.getId(), edge.getLabel(),
+          edge.getSourceId(), edge.getTargetId(), annotate(edge, diff), edge.getGraphIds()));
+      })
+      .filter(Objects::nonNull)
+      .collect(Collectors.toList());
+    return new CachedGraph(graph.getDatabaseName(), graph.getGraphHeads(), vertices, edges);
+  }
+
+  /**
+   * Evaluates the predicates on an element, like {@code DiffPerElement} of Gradoop.
+   *
+   * @param element the element
+   * @return the value of the {@value Diff#PROPERTY_KEY} property, or {@code null} if the element satisfies
+   * neither predicate
+   */
+  private PropertyValue getDiff(TemporalElement element) {
+    Tuple2<Long, Long> interval = element.getTimeByDimension(dimension);
+    boolean first = firstPredicate.test(interval.f0, interval.f1);
+    boolean second = secondPredicate.test(interval.f0, interval.f1);
+    if (first && second) {
+      return Diff.VALUE_EQUAL;
+    } else if (first) {
+      return Diff.VALUE_REMOVED;
+    } else if (second) {
+      return Diff.VALUE_ADDED;
+    }
+    return null;
+  }
+
+  /**
+   * Returns a copy of the properties of an element with the {@value Diff#PROPERTY_KEY} property added.
+   *
+   * @param element the element
+   * @param diff the value of the {@value Diff#PROPERTY_KEY} property
+   * @return the copied properties
+   */
+  private static Properties annotate(TemporalElement element, PropertyValue diff) {
+    Properties properties = element.getProperties();
+    Properties annotated = Properties.createWithCapacity(properties == null ? 1 : properties.size() + 1);
+    if (properties != null) {
+      for (Property property : properties) {
+        annotated.set(property);
+      }
+    }
+    annotated.set(Diff.PROPERTY_KEY, diff);
+    return annotated;
+  }
+
+  /**
+   * Copies the valid and transaction time of an element to its copy.
+   *
+   * @param element the element
+   * @param copy the copy of the element
+   * @param <E> the element type
+   * @return the copy
+   */
+  private static <E extends TemporalElement> E copyTimes(TemporalElement element, E copy) {
+    copy.setValidFrom(element.getValidFrom());
+    copy.setValidTo(element.getValidTo());
+    copy.setTxFrom(element.getTxFrom());
+    copy.setTxTo(element.getTxTo());
+    return copy;
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.engine;
+
+import org.gradoop.common.model.api.entities.Attributed;
+import org.gradoop.flink.model.impl.operators.keyedgrouping.GroupingKeys;
+import org.gradoop.flink.model.impl.operators.keyedgrouping.keys.PropertyKeyFunction;
+import org.gradoop.temporal.model.api.TimeDimension;
+import org.gradoop.temporal.model.impl.operators.keyedgrouping.TemporalGroupingKeys;
+import org.gradoop.temporal.model.impl.operators.keyedgrouping.keys.TimeIntervalKeyFunction;
+import org.gradoop.temporal.model.impl.operators.keyedgrouping.keys.TimeStampKeyFunction;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+
+import java.time.temporal.TemporalField;
+
+/**
+ * Grouping keys equal to the ones of {@link GroupingKeys} and {@link TemporalGroupingKeys}, which in addition
+ * expose their parameters. The native grouping uses them to encode the keys of an element as primitive
+ * values without creating the key objects. Flink treats them like the keys they extend.
+ */
+public final class NativeGroupingKeys {
+
+  /**
+   * No instances of this class.
+   */
+  private NativeGroupingKeys() {
+  }
+
+  /**
+   * Groups by the value of a property, like {@link GroupingKeys#property(String)}.
+   *
+   * @param key the property key
+   * @param <T> the element type
+   * @return the key function
+   */
+  public static <T extends Attributed> PropertyKey<T> property(String key) {
+    return new PropertyKey<>(key);
+  }
+
+  /**
+   * Groups by a time stamp or a field of it, like {@link TemporalGroupingKeys#timeStamp}.
+   *
+   * @param dimension the time dimension
+   * @param periodBound the bound of the time interval
+   * @param field the field of the time stamp, {@code null} to group by the time stamp itself
+   * @param <T> the element type
+   * @return the key function
+   */
+  public static <T extends TemporalElement> TimeStampKey<T> timeStamp(TimeDimension dimension,
+    TimeDimension.Field periodBound, TemporalField field) {
+    return new TimeStampKey<>(dimension, periodBound, field);
+  }
+
+  /**
+   * Groups by a time interval, like {@link TemporalGroupingKeys#timeInterval(TimeDimension)}.
+   *
+   * @param dimension the time dimension
+   * @param <T> the element type
+   * @return the key function
+   */
+  public static <T extends TemporalElement> TimeIntervalKey<T> timeInterval(TimeDimension dimension) {
+    return new TimeIntervalKey<>(dimension);
+  }
+
+  /**
+   * A {@link PropertyKeyFunction} exposing its property key.
+   *
+   * @param <T> the element type
+   */
+  public static class PropertyKey<T extends Attributed> extends PropertyKeyFunction<T> {
+
+    /**
+     * The property key.
+     */
+    private final String propertyKey;
+
+    /**
+     * Creates a new key function.
+     *
+     * @param propertyKey the property key
+     */
+    PropertyKey(String propertyKey) {
+      super(propertyKey);
+      this.propertyKey = propertyKey;
+    }
+
+    public String getPropertyKey() {
+      return propertyKey;
+    }
+  }
+
+  /**
+   * A {@link TimeStampKeyFunction} exposing its parameters.
+   *
+   * @param <T> the element type
+   */
+  public static class TimeStampKey<T extends TemporalElement> extends TimeStampKeyFunction<T> {
+
+    /**
+     * The time dimension.
+     */
+    private final TimeDimension dimension;
+
+    /**
+     * The bound of the time interval.
+     */
+    private final TimeDimension.Field periodBound;
+
+    /**
+     * The field of the time stamp, {@code null} to group by the time stamp itself.
+     */
+    private final TemporalField field;
+
+    /**
+     * Creates a new key function.
+     *
+     * @param dimension the time dimension
+     * @param periodBound the bound of the time interval
+     * @param field the field of the time stamp, {@code null} to group by the time stamp itself
+     */
+    TimeStampKey(TimeDimension dimension, TimeDimension.Field periodBound, TemporalField field) {
+      super(dimension, periodBound, field);
+      this.dimension = dimension;
+      this.periodBound = periodBound;
+      this.field = field;
+    }
+
+    public TimeDimension getDimension() {
+      return dimension;
+    }
+
+    public TimeDimension.Field getPeriodBound() {
+      return periodBound;
+    }
+
+    public TemporalField getField() {
+      return field;
+    }
+  }
+
+  /**
+   * A {@link TimeIntervalKeyFunction} exposing its time dimension.
+   *
+   * @param <T> the element type
+   */
+  public static class TimeIntervalKey<T extends TemporalElement> extends TimeIntervalKeyFunction<T> {
+
+    /**
+     * The time dimension.
+     */
+    private final TimeDimension dimension;
+
+    /**
+     * Creates a new key function.
+     *
+     * @param dimension the time dimension
+     */
+    TimeIntervalKey(TimeDimension dimension) {
+      super(dimension);
+      this.dimension = dimension;
+    }
+
+    public TimeDimension getDimension() {
+      return dimension;
+    }
+  }
+}
@@ -0,0 +1,648 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.engine;
+
+import org.apache.flink.api.java.tuple.Tuple;
+import org.gradoop.common.model.api.entities.Element;
+import org.gradoop.common.model.impl.id.GradoopId;
+import org.gradoop.common.model.impl.properties.PropertyValue;
+import org.gradoop.demo.server.cache.CachedGraph;
+import org.gradoop.flink.model.api.functions.AggregateFunction;
+import org.gradoop.flink.model.api.functions.KeyFunction;
+import org.gradoop.flink.model.impl.operators.keyedgrouping.GroupingKeys;
+import org.gradoop.flink.model.impl.operators.keyedgrouping.KeyedGrouping;
+import org.gradoop.flink.model.impl.operators.keyedgrouping.keys.ConstantKeyFunction;
+import org.gradoop.flink.model.impl.operators.keyedgrouping.keys.LabelKeyFunction;
+import org.gradoop.temporal.model.impl.TemporalGraph;
+import org.gradoop.temporal.model.impl.TemporalGraphCollection;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdgeFactory;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+import org.gradoop.temporal.model.impl.pojo.TemporalGraphHead;
+import org.gradoop.temporal.model.impl.pojo.TemporalGraphHeadFactory;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertexFactory;
+
+import java.nio.ByteBuffer;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The keyed grouping operator of Gradoop, {@link KeyedGrouping}, evaluated on a graph in memory instead of
+ * by a Flink job. It uses the same key and aggregate functions and builds the same super vertices and super
+ * edges. The elements are grouped by a {@link HashGrouping} of primitive keys and aggregates. Values it does
+ * not support, e.g., non-numerical values of a sum, are grouped by parallel streams of key and aggregate
+ * objects instead.
+ */
+public class NativeKeyedGrouping {
+
+  /**
+   * The factory of the graph head of the grouped graph.
+   */
+  private static final TemporalGraphHeadFactory GRAPH_HEAD_FACTORY = new TemporalGraphHeadFactory();
+
+  /**
+   * The factory of the super vertices.
+   */
+  private static final TemporalVertexFactory VERTEX_FACTORY = new TemporalVertexFactory();
+
+  /**
+   * The factory of the super edges.
+   */
+  private static final TemporalEdgeFactory EDGE_FACTORY = new TemporalEdgeFactory();
+
+  /**
+   * The key functions of the vertices.
+   */
+  private final List<KeyFunction<TemporalVertex, ?>> vertexKeys;
+
+  /**
+   * The aggregate functions of the vertices.
+   */
+  private final List<AggregateFunction> vertexAggregates;
+
+  /**
+   * The key functions of the edges.
+   */
+  private final List<KeyFunction<TemporalEdge, ?>> edgeKeys;
+
+  /**
+   * The aggregate functions of the edges.
+   */
+  private final List<AggregateFunction> edgeAggregates;
+
+  /**
+   * Creates a new grouping operator. Like {@link KeyedGrouping}, all vertices form a single group if no
+   * vertex key function is given.
+   *
+   * @param vertexKeys the key functions of the vertices
+   * @param vertexAggregates the aggregate functions of the vertices
+   * @param edgeKeys the key functions of the edges
+   * @param edgeAggregates the aggregate functions of the edges
+   */
+  public NativeKeyedGrouping(List<KeyFunction<TemporalVertex, ?>> vertexKeys,
+    List<AggregateFunction> vertexAggregates, List<KeyFunction<TemporalEdge, ?>> edgeKeys,
+    List<AggregateFunction> edgeAggregates) {
+    this.vertexKeys = vertexKeys == null || vertexKeys.isEmpty() ?
+      Collections.singletonList(GroupingKeys.nothing()) : vertexKeys;
+    this.vertexAggregates = vertexAggregates == null ? Collections.emptyList() : vertexAggregates;
+    this.edgeKeys = edgeKeys == null ? Collections.emptyList() : edgeKeys;
+    this.edgeAggregates = edgeAggregates == null ? Collections.emptyList() : edgeAggregates;
+  }
+
+  /**
+   * Returns the same grouping as Flink operator.
+   *
+   * @return the grouping operator
+   */
+  public KeyedGrouping<TemporalGraphHead, TemporalVertex, TemporalEdge, TemporalGraph, TemporalGraphCollection>
+    toKeyedGrouping() {
+    return new KeyedGrouping<>(vertexKeys, vertexAggregates, edgeKeys, edgeAggregates);
+  }
+
+  /**
+   * Computes the grouped graph. The elements of the input graph are not modified.
+   *
+   * @param graph the input graph
+   * @return the grouped graph
+   */
+  public CachedGraph execute(CachedGraph graph) {
+    try {
+      return executeHashed(graph);
+    } catch (HashGrouping.UnsupportedValueException e) {
+      return executeGeneric(graph);
+    }
+  }
+
+  /**
+   * Computes the grouped graph by hash tables of primitive keys and aggregates.
+   *
+   * @param graph the input graph
+   * @return the grouped graph
+   * @throws HashGrouping.UnsupportedValueException if an aggregate function returns an unsupported value
+   */
+  private CachedGraph executeHashed(CachedGraph graph) {
+    TemporalGraphHead graphHead = GRAPH_HEAD_FACTORY.createGraphHead();
+
+    List<TemporalVertex> vertices = graph.getVertices();
+    HashGrouping<TemporalVertex> vertexGrouping = new HashGrouping<>(vertexKeys, vertexAggregates, 0);
+    vertexGrouping.group(vertices, (vertex, row) -> true);
+    List<TemporalVertex> superVertices = vertexGrouping.build(row -> {
+      TemporalVertex superVertex = VERTEX_FACTORY.createVertex();
+      superVertex.addGraphId(graphHead.getId());
+      return superVertex;
+    });
+    Map<GradoopId, Integer> vertexGroups = new HashMap<>(vertices.size() * 2);
+    for (int i = 0; i < vertices.size(); i++) {
+      vertexGroups.put(vertices.get(i).getId(), vertexGrouping.getGroup(i));
+    }
+
+    // the key of an edge starts with the groups of its vertices, edges of missing vertices are dropped
+    HashGrouping<TemporalEdge> edgeGrouping = new HashGrouping<>(edgeKeys, edgeAggregates, 2);
+    edgeGrouping.group(graph.getEdges(), (edge, row) -> {
+      Integer sourceGroup = vertexGroups.get(edge.getSourceId());
+      Integer targetGroup = vertexGroups.get(edge.getTargetId());
+      if (sourceGroup == null || targetGroup == null) {
+        return false;
+      }
+      row[0] = sourceGroup;
+      row[1] = targetGroup;
+      return true;
+    });
+    List<TemporalEdge> superEdges = edgeGrouping.build(row -> {
+      TemporalEdge superEdge = EDGE_FACTORY.createEdge(superVertices.get((int) row[0]).getId(),
+        superVertices.get((int) row[1]).getId());
+      superEdge.addGraphId(graphHead.getId());
+      return superEdge;
+    });
+
+    return new CachedGraph(graph.getDatabaseName(), Collections.singletonList(graphHead), superVertices,
+      superEdges);
+  }
+
+  /**
+   * Computes the grouped graph by parallel streams of key and aggregate objects.
+   *
+   * @param graph the input graph
+   * @return the grouped graph
+   */
+  private CachedGraph executeGeneric(CachedGraph graph) {
+    TemporalGraphHead graphHead = GRAPH_HEAD_FACTORY.createGraphHead();
+
+    List<TemporalVertex> vertices = graph.getVertices();
+    Groups<TemporalVertex> vertexGroups = new Groups<>(vertexKeys, vertexAggregates);
+    Object[] vertexGroupKeys = vertexGroups.group(vertices, vertex -> new ArrayList<>(vertexKeys.size()));
+
+    // create the super vertices and assign each vertex to its super vertex
+    Map<Object, TemporalVertex> superVertices = new HashMap<>();
+    vertexGroups.build(vertices, (key, group) -> {
+      TemporalVertex superVertex = VERTEX_FACTORY.createVertex();
+      superVertex.addGraphId(graphHead.getId());
+      superVertices.put(key, superVertex);
+      return superVertex;
+    });
+    Map<GradoopId, GradoopId> superVertexIds = new HashMap<>(vertices.size() * 2);
+    for (int i = 0; i < vertices.size(); i++) {
+      superVertexIds.put(vertices.get(i).getId(), superVertices.get(vertexGroupKeys[i]).getId());
+    }
+
+    // group the edges by their super vertices and keys, edges of missing vertices are dropped
+    List<TemporalEdge> edges = graph.getEdges().parallelStream()
+      .filter(edge -> superVertexIds.containsKey(edge.getSourceId()) &&
+        superVertexIds.containsKey(edge.getTargetId()))
+      .collect(Collectors.toList());
+    Groups<TemporalEdge> edgeGroups = new Groups<>(edgeKeys, edgeAggregates);
+    edgeGroups.group(edges, edge -> {
+      List<Object> key = new ArrayList<>(edgeKeys.size() + 2);
+      key.add(superVertexIds.get(edge.getSourceId()));
+      key.add(superVertexIds.get(edge.getTargetId()));
+      return key;
+    });
+    List<TemporalEdge> superEdges = edgeGroups.build(edges, (key, group) -> {
+      TemporalEdge superEdge = EDGE_FACTORY.createEdge(superVertexIds.get(group.representative.getSourceId()),
+        superVertexIds.get(group.representative.getTargetId()));
+      superEdge.addGraphId(graphHead.getId());
+      return superEdge;
+    });
+
+    return new CachedGraph(graph.getDatabaseName(), Collections.singletonList(graphHead),
+      new ArrayList<>(superVertices.values()), superEdges);
+  }
+
+  /**
+   * Returns the time stamps a {@link RollupCube} must be bucketed by to answer this grouping. A grouping is
+   * answered from a cube if it groups by labels and time stamp fields constant within a time bucket only,
+   * and all time stamp keys of an element kind use the same time stamp.
+   *
+   * @param granularity the length of the time buckets of the cube
+   * @return the time stamps, {@code null} if the grouping can not be answered from a cube
+   */
+  public RollupCube.Spec getRollupSpec(ChronoUnit granularity) {
+    if (!isRollupKeys(vertexKeys, granularity) || !isRollupKeys(edgeKeys, granularity)) {
+      return null;
+    }
+    return new RollupCube.Spec(getTimeStampKey(vertexKeys), getTimeStampKey(edgeKeys));
+  }
+
+  /**
+   * Computes the grouped graph by merging the partial aggregates of a cube, restricted to the subgraph
+   * induced by the given labels like {@link CachedGraph#subgraph(String[], String[], boolean)}.
+   *
+   * @param cube the cube of the input graph, covering {@link #getRollupSpec(ChronoUnit)}
+   * @param vertexLabels the labels of the vertices to keep, all vertices are kept if empty or {@code null}
+   * @param edgeLabels the labels of the edges to keep, all edges are kept if empty or {@code null}
+   * @param includeEdges false, if the subgraph should not contain any edges
+   * @return the grouped graph
+   */
+  public CachedGraph execute(RollupCube cube, String[] vertexLabels, String[] edgeLabels,
+    boolean includeEdges) {
+    TemporalGraphHead graphHead = GRAPH_HEAD_FACTORY.createGraphHead();
+
+    RollupCube.Partitions<TemporalVertex> vertexPartitions = cube.getVertexPartitions();
+    Set<String> vertexLabelSet = getLabels(vertexLabels);
+    RolledUpGroups<TemporalVertex> vertexGroups = new RolledUpGroups<>(vertexKeys, vertexAggregates,
+      vertexPartitions);
+    int[] vertexGroupOf = new int[vertexPartitions.size()];
+    for (int partition = 0; partition < vertexPartitions.size(); partition++) {
+      vertexGroupOf[partition] = vertexLabelSet == null ||
+        vertexLabelSet.contains(vertexPartitions.getRepresentative(partition).getLabel()) ?
+        vertexGroups.add(partition, new ArrayList<>(vertexKeys.size())) : -1;
+    }
+    List<TemporalVertex> superVertices = vertexGroups.build(key -> {
+      TemporalVertex superVertex = VERTEX_FACTORY.createVertex();
+      superVertex.addGraphId(graphHead.getId());
+      return superVertex;
+    });
+
+    RollupCube.Partitions<TemporalEdge> edgePartitions = cube.getEdgePartitions();
+    Set<String> edgeLabelSet = getLabels(edgeLabels);
+    RolledUpGroups<TemporalEdge> edgeGroups = new RolledUpGroups<>(edgeKeys, edgeAggregates, edgePartitions);
+    for (int partition = 0; includeEdges && partition < edgePartitions.size(); partition++) {
+      int sourceGroup = vertexGroupOf[edgePartitions.getSource(partition)];
+      int targetGroup = vertexGroupOf[edgePartitions.getTarget(partition)];
+      if (sourceGroup >= 0 && targetGroup >= 0 && (edgeLabelSet == null ||
+        edgeLabelSet.contains(edgePartitions.getRepresentative(partition).getLabel()))) {
+        List<Object> prefix = new ArrayList<>(edgeKeys.size() + 2);
+        prefix.add(sourceGroup);
+        prefix.add(targetGroup);
+        edgeGroups.add(partition, prefix);
+      }
+    }
+    List<TemporalEdge> superEdges = edgeGroups.build(key -> {
+      TemporalEdge superEdge = EDGE_FACTORY.createEdge(superVertices.get((int) key.get(0)).getId(),
+        superVertices.get((int) key.get(1)).getId());
+      superEdge.addGraphId(graphHead.getId());
+      return superEdge;
+    });
+
+    return new CachedGraph(cube.getDatabaseName(), Collections.singletonList(graphHead), superVertices,
+      superEdges);
+  }
+
+  /**
+   * Checks if the keys of an element kind are constant within the partitions of a {@link RollupCube}.
+   *
+   * @param keys the key functions
+   * @param granularity the length of the time buckets of the cube
+   * @return {@code true} if the keys are constant within a partition
+   */
+  private static boolean isRollupKeys(List<? extends KeyFunction<?, ?>> keys, ChronoUnit granularity) {
+    NativeGroupingKeys.TimeStampKey<?> time = getTimeStampKey(keys);
+    for (KeyFunction<?, ?> key : keys) {
+      if (key instanceof NativeGroupingKeys.TimeStampKey) {
+        NativeGroupingKeys.TimeStampKey<?> timeStamp = (NativeGroupingKeys.TimeStampKey<?>) key;
+        if (timeStamp.getDimension() != time.getDimension() ||
+          timeStamp.getPeriodBound() != time.getPeriodBound() ||
+          !RollupCube.isConstantWithin(timeStamp.getField(), granularity)) {
+          return false;
+        }
+      } else if (!(key instanceof LabelKeyFunction) && !(key instanceof ConstantKeyFunction)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the first time stamp key of an element kind.
+   *
+   * @param keys the key functions
+   * @return the time stamp key, {@code null} if there is none
+   */
+  private static NativeGroupingKeys.TimeStampKey<?> getTimeStampKey(List<? extends KeyFunction<?, ?>> keys) {
+    for (KeyFunction<?, ?> key : keys) {
+      if (key instanceof NativeGroupingKeys.TimeStampKey) {
+        return (NativeGroupingKeys.TimeStampKey<?>) key;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the set of labels of a label filter.
+   *
+   * @param labels the labels, all labels are kept if empty or {@code null}
+   * @return the set of labels, {@code null} if all labels are kept
+   */
+  private static Set<String> getLabels(String[] labels) {
+    return labels == null || labels.length == 0 ? null : new HashSet<>(Arrays.asList(labels));
+  }
+
+  /**
+   * Normalizes a grouping key, so keys of equal values are equal objects. Tuples may be reused by the key
+   * functions and arrays do not implement {@link Object#equals(Object)}.
+   *
+   * @param key the key returned by a key function
+   * @return the normalized key
+   */
+  static Object normalize(Object key) {
+    if (key instanceof Tuple) {
+      Tuple tuple = (Tuple) key;
+      List<Object> fields = new ArrayList<>(tuple.getArity());
+      for (int i = 0; i < tuple.getArity(); i++) {
+        fields.add(normalize(tuple.getField(i)));
+      }
+      return fields;
+    }
+    if (key instanceof byte[]) {
+      return ByteBuffer.wrap(((byte[]) key).clone());
+    }
+    return key;
+  }
+
+  /**
+   * Creates a super element of a group.
+   *
+   * @param <E> the element type
+   */
+  @FunctionalInterface
+  private interface SuperElementFactory<E> {
+    /**
+     * Creates the super element of a group, without keys and aggregates.
+     *
+     * @param key the normalized key of the group
+     * @param group the group
+     * @return the super element
+     */
+    E create(Object key, Group<E> group);
+  }
+
+  /**
+   * The elements of a group, represented by the first element and the aggregates of all elements.
+   *
+   * @param <E> the element type
+   */
+  private static class Group<E> {
+
+    /**
+     * An element of the group, used to compute the keys of the super element.
+     */
+    private final E representative;
+
+    /**
+     * The aggregated values, {@link PropertyValue#NULL_VALUE} if no element has a value.
+     */
+    private final PropertyValue[] aggregates;
+
+    /**
+     * Creates a group of a single element.
+     *
+     * @param representative the element
+     * @param aggregates the increments of the element
+     */
+    Group(E representative, PropertyValue[] aggregates) {
+      this.representative = representative;
+      this.aggregates = aggregates;
+    }
+  }
+
+  /**
+   * Groups the partitions of a {@link RollupCube} by their keys and merges their partial aggregates.
+   *
+   * @param <E> the element type
+   */
+  private static class RolledUpGroups<E extends TemporalElement> {
+
+    /**
+     * The key and aggregate functions.
+     */
+    private final GroupingFunctions<E> functions;
+
+    /**
+     * The grouped partitions.
+     */
+    private final RollupCube.Partitions<E> partitions;
+
+    /**
+     * The partial aggregates of the partitions, by aggregate function.
+     */
+    private final PropertyValue[][] partials;
+
+    /**
+     * The groups by normalized key.
+     */
+    private final Map<List<Object>, Integer> groups = new HashMap<>();
+
+    /**
+     * The normalized key of each group.
+     */
+    private final List<List<Object>> keys = new ArrayList<>();
+
+    /**
+     * The first partition of each group, used to compute the keys of the super element.
+     */
+    private final List<Integer> representatives = new ArrayList<>();
+
+    /**
+     * The aggregated values of each group, {@code null} if no element has a value.
+     */
+    private final List<PropertyValue[]> aggregates = new ArrayList<>();
+
+    /**
+     * Creates the groups of an element kind.
+     *
+     * @param keys the key functions
+     * @param aggregates the aggregate functions
+     * @param partitions the partitions to group
+     */
+    RolledUpGroups(List<KeyFunction<E, ?>> keys, List<AggregateFunction> aggregates,
+      RollupCube.Partitions<E> partitions) {
+      this.functions = new GroupingFunctions<>(keys, aggregates);
+      this.partitions = partitions;
+      this.partials = new PropertyValue[aggregates.size()][];
+      for (int a = 0; a < partials.length; a++) {
+        partials[a] = partitions.getAggregates(aggregates.get(a));
+      }
+    }
+
+    /**
+     * Adds a partition to its group.
+     *
+     * @param partition the partition
+     * @param prefix the prefix of the key of the partition, the keys of the key functions are appended
+     * @return the group
+     */
+    int add(int partition, List<Object> prefix) {
+      E representative = partitions.getRepresentative(partition);
+      for (KeyFunction<E, ?> keyFunction : functions.getKeys()) {
+        prefix.add(normalize(keyFunction.getKey(representative)));
+      }
+      Integer group = groups.get(prefix);
+      if (group == null) {
+        group = keys.size();
+        groups.put(prefix, group);
+        keys.add(prefix);
+        representatives.add(partition);
+        aggregates.add(new PropertyValue[partials.length]);
+      }
+      PropertyValue[] values = aggregates.get(group);
+      for (int a = 0; a < partials.length; a++) {
+        PropertyValue partial = partials[a][partition];
+        if (partial != null) {
+          // the partial aggregates of the cube are reused by later groupings and must not be updated
+          values[a] = values[a] == null ? partial.copy() :
+            functions.getAggregates().get(a).aggregate(values[a], partial.copy());
+        }
+      }
+      return group;
+    }
+
+    /**
+     * Creates the super elements of the groups and sets their keys and aggregates. The super element of a
+     * group is at the index of the group.
+     *
+     * @param factory creates the super element of a group from its normalized key
+     * @return the super elements
+     */
+    List<E> build(Function<List<Object>, E> factory) {
+      List<E> superElements = new ArrayList<>(keys.size());
+      for (int group = 0; group < keys.size(); group++) {
+        E superElement = factory.apply(keys.get(group));
+        GroupingFunctions.initSuperElement(superElement);
+        E representative = partitions.getRepresentative(representatives.get(group));
+        for (KeyFunction<E, ?> keyFunction : functions.getKeys()) {
+          keyFunction.addKeyToElement(superElement, keyFunction.getKey(representative));
+        }
+        PropertyValue[] values = aggregates.get(group);
+        for (int a = 0; a < values.length; a++) {
+          if (values[a] == null) {
+            values[a] = PropertyValue.NULL_VALUE;
+          }
+        }
+        functions.setAggregates(superElement, values);
+        superElements.add(superElement);
+      }
+      return superElements;
+    }
+  }
+
+  /**
+   * Groups the elements of one kind by their keys and aggregates the groups.
+   *
+   * @param <E> the element type
+   */
+  private static class Groups<E extends Element> {
+
+    /**
+     * The copies of the key and aggregate functions of the current thread.
+     */
+    private final ThreadLocal<GroupingFunctions<E>> functions;
+
+    /**
+     * The groups by normalized key.
+     */
+    private Map<Object, Group<E>> groups;
+
+    /**
+     * Creates the groups of an element kind.
+     *
+     * @param keys the key functions
+     * @param aggregates the aggregate functions
+     */
+    Groups(List<KeyFunction<E, ?>> keys, List<AggregateFunction> aggregates) {
+      GroupingFunctions<E> original = new GroupingFunctions<>(keys, aggregates);
+      this.functions = ThreadLocal.withInitial(() -> original.copy());
+    }
+
+    /**
+     * Groups the elements.
+     *
+     * @param elements the elements
+     * @param prefix the prefix of the key of an element, the keys of the key functions are appended
+     * @return the normalized key of each element
+     */
+    Object[] group(List<E> elements, Function<E, List<Object>> prefix) {
+      Object[] keys = new Object[elements.size()];
+      groups = IntStream.range(0, elements.size()).parallel().boxed().collect(Collectors.toMap(
+        i -> {
+          E element = elements.get(i);
+          List<Object> key = prefix.apply(element);
+          for (KeyFunction<E, ?> keyFunction : functions.get().getKeys()) {
+            key.add(normalize(keyFunction.getKey(element)));
+          }
+          keys[i] = key;
+          return key;
+        },
+        i -> {
+          E element = elements.get(i);
+          List<AggregateFunction> aggregateFunctions = functions.get().getAggregates();
+          PropertyValue[] increments = new PropertyValue[aggregateFunctions.size()];
+          for (int a = 0; a < increments.length; a++) {
+            PropertyValue increment = aggregateFunctions.get(a).getIncrement(element);
+            // aggregate functions may update their first argument, which must not be a value of the cached graph
+            increments[a] = increment == null ? PropertyValue.NULL_VALUE : increment.copy();
+          }
+          return new Group<>(element, increments);
+        },
+        this::merge));
+      return keys;
+    }
+
+    /**
+     * Merges two groups of the same key, like {@code ReduceElementTuples} of Gradoop.
+     *
+     * @param left the first group, updated by the second one
+     * @param right the second group
+     * @return the merged group
+     */
+    private Group<E> merge(Group<E> left, Group<E> right) {
+      List<AggregateFunction> aggregateFunctions = functions.get().getAggregates();
+      for (int a = 0; a < left.aggregates.length; a++) {
+        PropertyValue value = right.aggregates[a];
+        if (value.equals(PropertyValue.NULL_VALUE)) {
+          continue;
+        }
+        left.aggregates[a] = left.aggregates[a].equals(PropertyValue.NULL_VALUE) ? value :
+          aggregateFunctions.get(a).aggregate(left.aggregates[a], value);
+      }
+      return left;
+    }
+
+    /**
+     * Creates the super elements of the groups and sets their keys and aggregates, like
+     * {@code BuildSuperElementFromTuple} of Gradoop.
+     *
+     * @param elements the grouped elements
+     * @param factory creates the super element of a group
+     * @return the super elements
+     */
+    List<E> build(List<E> elements, SuperElementFactory<E> factory) {
+      GroupingFunctions<E> current = functions.get();
+      List<E> superElements = new ArrayList<>(groups.size());
+      for (Map.Entry<Object, Group<E>> entry : groups.entrySet()) {
+        Group<E> group = entry.getValue();
+        E superElement = factory.create(entry.getKey(), group);
+        GroupingFunctions.initSuperElement(superElement);
+        for (KeyFunction<E, ?> keyFunction : current.getKeys()) {
+          keyFunction.addKeyToElement(superElement, keyFunction.getKey(group.representative));
+        }
+        current.setAggregates(superElement, group.aggregates);
+        superElements.add(superElement);
+      }
+      return superElements;
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.engine;
+
+import org.gradoop.common.model.impl.id.GradoopId;
+import org.gradoop.common.model.impl.properties.Properties;
+import org.gradoop.common.model.impl.properties.Property;
+import org.gradoop.common.model.impl.properties.PropertyValue;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdgeFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * How parallel edges are rendered. Parallel edges have the same source, target and label and, in a
+ * difference, the same {@value #DIFF} state. Collapsed edges keep the identifier of the first of their edges,
+ * carry the {@value #COUNT} of their edges and span the valid and transaction times of all of them.
+ */
+public enum ParallelEdges {
+
+  /**
+   * Every edge is rendered.
+   */
+  KEEP,
+
+  /**
+   * Parallel edges are collapsed into one edge with their count.
+   */
+  COUNT,
+
+  /**
+   * Parallel edges are collapsed into one edge with their count and the minimum, maximum and average of each
+   * numerical property, stored as number or as string, e.g., {@code min_tripduration}, {@code max_tripduration}
+   * and {@code avg_tripduration}.
+   */
+  AGGREGATE;
+
+  /**
+   * The key of the number of collapsed edges.
+   */
+  static final String COUNT_KEY = "count";
+
+  /**
+   * The key of the state of an element in a difference, which is kept by collapsed edges.
+   */
+  static final String DIFF = "_diff";
+
+  /**
+   * Factory of the collapsed edges.
+   */
+  private static final TemporalEdgeFactory EDGE_FACTORY = new TemporalEdgeFactory();
+
+  /**
+   * Parses the mode of a request.
+   *
+   * @param name the name of the mode, {@code count} or {@code aggregate}, {@code null} or empty for
+   *             {@link #KEEP}
+   * @return the mode
+   * @throws IllegalArgumentException if the name is unknown
+   */
+  public static ParallelEdges of(String name) {
+    if (name == null || name.isEmpty()) {
+      return KEEP;
+    }
+    return valueOf(name.toUpperCase());
+  }
+
+  /**
+   * Applies the mode to edges.
+   *
+   * @param edges the edges
+   * @return the edges to render, in the order of their first parallel edge
+   */
+  public List<TemporalEdge> apply(List<TemporalEdge> edges) {
+    if (this == KEEP) {
+      return edges;
+    }
+    Map<Key, Collapsed> collapsed = new LinkedHashMap<>();
+    for (TemporalEdge edge : edges) {
+      collapsed.computeIfAbsent(new Key(edge), key -> new Collapsed(edge)).add(edge, this == AGGREGATE);
+    }
+    List<TemporalEdge> result = new ArrayList<>(collapsed.size());
+    for (Collapsed edge : collapsed.values()) {
+      result.add(edge.toEdge());
+    }
+    return result;
+  }
+
+  /**
+   * The properties identifying parallel edges.
+   */
+  private static final class Key {
+
+    /**
+     * The source vertex.
+     */
+    private final GradoopId source;
+
+    /**
+     * The target vertex.
+     */
+    private final GradoopId target;
+
+    /**
+     * The label.
+     */
+    private final String label;
+
+    /**
+     * The state in a difference, {@code null} outside of differences.
+     */
+    private final PropertyValue diff;
+
+    /**
+     * Creates the key of an edge.
+     *
+     * @param edge the edge
+     */
+    Key(TemporalEdge edge) {
+      source = edge.getSourceId();
+      target = edge.getTargetId();
+      label = edge.getLabel();
+      diff = edge.getProperties() == null ? null : edge.getPropertyValue(DIFF);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return source.equals(other.source) && target.equals(other.target) && Objects.equals(label, other.label) &&
+        Objects.equals(diff, other.diff);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(source, target, label, diff);
+    }
+  }
+
+  /**
+   * The aggregates of parallel edges.
+   */
+  private static final class Collapsed {
+
+    /**
+     * The first of the edges.
+     */
+    private final TemporalEdge first;
+
+    /**
+     * The number of edges.
+     */
+    private long count;
+
+    /**
+     * The earliest start and the latest end of the valid time and the transaction time of the edges.
+     */
+    private final long[] times = {Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+
+    /**
+     * The minimum, maximum, sum and count of each numerical property, by key.
+     */
+    private final Map<String, double[]> aggregates = new TreeMap<>();
+
+    /**
+     * Creates the aggregates of parallel edges.
+     *
+     * @param first the first of the edges
+     */
+    Collapsed(TemporalEdge first) {
+      this.first = first;
+    }
+
+    /**
+     * Adds an edge.
+     *
+     * @param edge the edge
+     * @param aggregate true, if the numerical properties are aggregated
+     */
+    void add(TemporalEdge edge, boolean aggregate) {
+      count++;
+      times[0] = Math.min(times[0], edge.getValidFrom());
+      times[1] = Math.max(times[1], edge.getValidTo());
+      times[2] = Math.min(times[2], edge.getTxFrom());
+      times[3] = Math.max(times[3], edge.getTxTo());
+      if (aggregate && edge.getProperties() != null) {
+        for (Property property : edge.getProperties()) {
+          double value = getNumber(property.getValue());
+          if (!Double.isNaN(value) && !property.getKey().equals(DIFF)) {
+            double[] values = aggregates.computeIfAbsent(property.getKey(),
+              key -> new double[] {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0., 0.});
+            values[0] = Math.min(values[0], value);
+            values[1] = Math.max(values[1], value);
+            values[2] += value;
+            values[3]++;
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the value of a numerical property, stored as number or as string.
+     *
+     * @param value the property value
+     * @return the number, {@link Double#NaN} if the value is not a number
+     */
+    private static double getNumber(PropertyValue value) {
+      if (value.isNumber()) {
+        return ((Number) value.getObject()).doubleValue();
+      } else if (value.isString()) {
+        try {
+          return Double.parseDouble(value.getString());
+        } catch (NumberFormatException e) {
+          return Double.NaN;
+        }
+      }
+      return Double.NaN;
+    }
+
+    /**
+     * Creates the collapsed edge.
+     *
+     * @return the collapsed edge
+     */
+    TemporalEdge toEdge() {
+      Properties properties = Properties.create();
+      properties.set(COUNT_KEY, count);
+      if (first.getProperties() != null && first.hasProperty(DIFF)) {
+        properties.set(DIFF, first.getPropertyValue(DIFF));
+      }
+      for (Map.Entry<String, double[]> aggregate : aggregates.entrySet()) {
+        double[] values = aggregate.getValue();
+        properties.set("min_" + aggregate.getKey(), values[0]);
+        properties.set("max_" + aggregate.getKey(), values[1]);
+        properties.set("avg_" + aggregate.getKey(), values[2] / values[3]);
+      }
+      TemporalEdge edge = EDGE_FACTORY.initEdge(first.getId(), first.getLabel(), first.getSourceId(),
+        first.getTargetId(), properties, first.getGraphIds());
+      edge.setValidFrom(times[0]);
+      edge.setValidTo(times[1]);
+      edge.setTxFrom(times[2]);
+      edge.setTxTo(times[3]);
+      return edge;
+    }
+  }
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.engine;
+
+import org.gradoop.common.model.impl.id.GradoopId;
+import org.gradoop.common.model.impl.properties.PropertyValue;
+import org.gradoop.demo.server.cache.CachedGraph;
+import org.gradoop.flink.model.api.functions.AggregateFunction;
+import org.gradoop.temporal.model.api.TimeDimension;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+
+import java.time.Duration;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalField;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A rollup of a cached graph for groupings by label and time stamp fields. The vertices are partitioned by
+ * label and time bucket, e.g., the hour their valid time starts in, the edges in addition by the partitions
+ * of their source and target vertices. For each aggregate function used by a grouping, the partial
+ * aggregate of every partition is computed once and kept. A grouping whose keys are constant within a
+ * partition, e.g., the label and the month of the time stamp, is answered by merging the partial aggregates
+ * of the partitions instead of aggregating the elements again, see
+ * {@link NativeKeyedGrouping#execute(RollupCube, String[], String[], boolean)}.
+ */
+public class RollupCube {
+
+  /**
+   * The bucket of the elements whose time is the default time of an unbounded interval.
+   */
+  private static final long DEFAULT_BUCKET = Long.MIN_VALUE;
+
+  /**
+   * The name of the database of the graph.
+   */
+  private final String databaseName;
+
+  /**
+   * The time stamps the partitions are bucketed by.
+   */
+  private final Spec spec;
+
+  /**
+   * The partitions of the vertices.
+   */
+  private final Partitions<TemporalVertex> vertexPartitions;
+
+  /**
+   * The partitions of the edges.
+   */
+  private final Partitions<TemporalEdge> edgePartitions;
+
+  /**
+   * Partitions a graph. The partial aggregates are computed when they are used first.
+   *
+   * @param graph the graph
+   * @param spec the time stamps the partitions are bucketed by
+   * @param granularity the length of a time bucket
+   * @throws IllegalArgumentException if the granularity does not divide a day into buckets of at least a
+   * millisecond
+   */
+  public RollupCube(CachedGraph graph, Spec spec, ChronoUnit granularity) {
+    long bucketMillis = granularity.getDuration().toMillis();
+    if (granularity.isDurationEstimated() || bucketMillis == 0 ||
+      ChronoUnit.DAYS.getDuration().toMillis() % bucketMillis != 0) {
+      throw new IllegalArgumentException("Unsupported rollup granularity: " + granularity);
+    }
+    this.databaseName = graph.getDatabaseName();
+    this.spec = spec;
+
+    List<TemporalVertex> vertices = graph.getVertices();
+    vertexPartitions = new Partitions<>(vertices, null, null, spec.vertexDimension, spec.vertexBound,
+      bucketMillis);
+    Map<GradoopId, Integer> vertexPartition = new HashMap<>(vertices.size() * 2);
+    for (int i = 0; i < vertices.size(); i++) {
+      vertexPartition.put(vertices.get(i).getId(), vertexPartitions.getPartition(i));
+    }
+
+    // edges of missing vertices are dropped, like by the grouping
+    List<TemporalEdge> edges = graph.getEdges();
+    int[] sources = new int[edges.size()];
+    int[] targets = new int[edges.size()];
+    for (int i = 0; i < edges.size(); i++) {
+      sources[i] = vertexPartition.getOrDefault(edges.get(i).getSourceId(), -1);
+      targets[i] = vertexPartition.getOrDefault(edges.get(i).getTargetId(), -1);
+    }
+    edgePartitions = new Partitions<>(edges, sources, targets, spec.edgeDimension, spec.edgeBound,
+      bucketMillis);
+  }
+
+  /**
+   * Checks if the partitions of this cube are fine enough to answer a grouping.
+   *
+   * @param requested the time stamps the grouping needs the partitions to be bucketed by
+   * @return {@code true} if the grouping can be answered from this cube
+   */
+  public boolean covers(Spec requested) {
+    return (requested.vertexDimension == null ||
+      (requested.vertexDimension == spec.vertexDimension && requested.vertexBound == spec.vertexBound)) &&
+      (requested.edgeDimension == null ||
+        (requested.edgeDimension == spec.edgeDimension && requested.edgeBound == spec.edgeBound));
+  }
+
+  public String getDatabaseName() {
+    return databaseName;
+  }
+
+  Partitions<TemporalVertex> getVertexPartitions() {
+    return vertexPartitions;
+  }
+
+  Partitions<TemporalEdge> getEdgePartitions() {
+    return edgePartitions;
+  }
+
+  /**
+   * Checks if a time stamp field is constant within a time bucket, e.g., the month within an hour.
+   *
+   * @param field the field, {@code null} for the time stamp itself
+   * @param granularity the length of a time bucket
+   * @return {@code true} if the field is constant within a bucket
+   */
+  static boolean isConstantWithin(TemporalField field, ChronoUnit granularity) {
+    if (!(field instanceof ChronoField)) {
+      return false;
+    }
+    Duration unit = field.getBaseUnit().getDuration();
+    return unit.compareTo(granularity.getDuration()) >= 0;
+  }
+
+  /**
+   * The time stamps the partitions of a cube are bucketed by. A kind of elements is not bucketed if no time
+   * stamp is given.
+   */
+  public static final class Spec {
+
+    /**
+     * The time dimension of the vertices, {@code null} if they are not bucketed.
+     */
+    private final TimeDimension vertexDimension;
+
+    /**
+     * The bound of the time interval of the vertices, {@code null} if they are not bucketed.
+     */
+    private final TimeDimension.Field vertexBound;
+
+    /**
+     * The time dimension of the edges, {@code null} if they are not bucketed.
+     */
+    private final TimeDimension edgeDimension;
+
+    /**
+     * The bound of the time interval of the edges, {@code null} if they are not bucketed.
+     */
+    private final TimeDimension.Field edgeBound;
+
+    /**
+     * Creates a new specification.
+     *
+     * @param vertexTime the time stamp of the vertices, {@code null} if they are not bucketed
+     * @param edgeTime the time stamp of the edges, {@code null} if they are not bucketed
+     */
+    Spec(NativeGroupingKeys.TimeStampKey<?> vertexTime, NativeGroupingKeys.TimeStampKey<?> edgeTime) {
+      this.vertexDimension = vertexTime == null ? null : vertexTime.getDimension();
+      this.vertexBound = vertexTime == null ? null : vertexTime.getPeriodBound();
+      this.edgeDimension = edgeTime == null ? null : edgeTime.getDimension();
+      this.edgeBound = edgeTime == null ? null : edgeTime.getPeriodBound();
+    }
+
+  }
+
+  /**
+   * The partitions of the elements of one kind and their partial aggregates.
+   *
+   * @param <E> the element type
+   */
+  static final class Partitions<E extends TemporalElement> {
+
+    /**
+     * The partitioned elements.
+     */
+    private final List<E> elements;
+
+    /**
+     * The partition of each element, {@code -1} if the element is dropped.
+     */
+    private final int[] partitionOf;
+
+    /**
+     * The first element of each partition. All elements of a partition have its label and time bucket.
+     */
+    private final List<E> representatives = new ArrayList<>();
+
+    /**
+     * The source vertex partition of each edge partition, empty for vertices.
+     */
+    private final int[] sources;
+
+    /**
+     * The target vertex partition of each edge partition, empty for vertices.
+     */
+    private final int[] targets;
+
+    /**
+     * The partial aggregates of each partition, by aggregate function.
+     */
+    private final Map<String, PropertyValue[]> aggregates = new ConcurrentHashMap<>();
+
+    /**
+     * Partitions the elements by label, time bucket and the partitions of their vertices.
+     *
+     * @param elements the elements
+     * @param sources the partition of the source vertex of each element, {@code null} for vertices
+     * @param targets the partition of the target vertex of each element, {@code null} for vertices
+     * @param dimension the time dimension of the time buckets, {@code null} if not bucketed
+     * @param bound the bound of the time interval of the time buckets, {@code null} if not bucketed
+     * @param bucketMillis the length of a time bucket
+     */
+    Partitions(List<E> elements, int[] sources, int[] targets, TimeDimension dimension,
+      TimeDimension.Field bound, long bucketMillis) {
+      this.elements = elements;
+      this.partitionOf = new int[elements.size()];
+      long defaultTime = bound == TimeDimension.Field.TO ? TemporalElement.DEFAULT_TIME_TO :
+        TemporalElement.DEFAULT_TIME_FROM;
+      Map<PartitionKey, Integer> partitions = new HashMap<>();
+      List<Integer> partitionSources = new ArrayList<>();
+      List<Integer> partitionTargets = new ArrayList<>();
+      for (int i = 0; i < elements.size(); i++) {
+        E element = elements.get(i);
+        int source = sources == null ? -1 : sources[i];
+        int target = targets == null ? -1 : targets[i];
+        if (sources != null && (source < 0 || target < 0)) {
+          partitionOf[i] = -1;
+          continue;
+        }
+        long bucket = 0;
+        if (dimension != null) {
+          long time = HashGrouping.getTime(element, dimension, bound);
+          bucket = time == defaultTime ? DEFAULT_BUCKET : Math.floorDiv(time, bucketMillis);
+        }
+        PartitionKey key = new PartitionKey(source, target, element.getLabel(), bucket);
+        Integer partition = partitions.get(key);
+        if (partition == null) {
+          partition = representatives.size();
+          partitions.put(key, partition);
+          representatives.add(element);
+          partitionSources.add(source);
+          partitionTargets.add(target);
+        }
+        partitionOf[i] = partition;
+      }
+      this.sources = partitionSources.stream().mapToInt(Integer::intValue).toArray();
+      this.targets = partitionTargets.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    int size() {
+      return representatives.size();
+    }
+
+    int getPartition(int index) {
+      return partitionOf[index];
+    }
+
+    E getRepresentative(int partition) {
+      return representatives.get(partition);
+    }
+
+    int getSource(int partition) {
+      return sources[partition];
+    }
+
+    int getTarget(int partition) {
+      return targets[partition];
+    }
+
+    /**
+     * Returns the partial aggregates of an aggregate function, before {@link AggregateFunction#postAggregate}.
+     * They are computed on first use and must not be modified.
+     *
+     * @param function the aggregate function
+     * @return the partial aggregate of each partition, {@code null} if no element has a value
+     */
+    PropertyValue[] getAggregates(AggregateFunction function) {
+      // the property key of an aggregate contains its parameters, e.g., the property or time dimension
+      return aggregates.computeIfAbsent(function.getClass().getName() + ':' +
+        function.getAggregatePropertyKey(), key -> aggregate(function));
+    }
+
+    /**
+     * Computes the partial aggregates of an aggregate function.
+     *
+     * @param function the aggregate function
+     * @return the partial aggregate of each partition, {@code null} if no element has a value
+     */
+    private PropertyValue[] aggregate(AggregateFunction function) {
+      PropertyValue[] values = new PropertyValue[size()];
+      for (int i = 0; i < elements.size(); i++) {
+        int partition = partitionOf[i];
+        if (partition < 0) {
+          continue;
+        }
+        PropertyValue increment = function.getIncrement(elements.get(i));
+        if (increment == null || increment.isNull()) {
+          continue;
+        }
+        // aggregate functions may update their arguments, which must not be values of the cached graph
+        values[partition] = values[partition] == null ? increment.copy() :
+          function.aggregate(values[partition], increment.copy());
+      }
+      return values;
+    }
+  }
+
+  /**
+   * The label, time bucket and vertex partitions shared by the elements of a partition.
+   */
+  private static final class PartitionKey {
+
+    /**
+     * The partition of the source vertex, {@code -1} for vertices.
+     */
+    private final int source;
+
+    /**
+     * The partition of the target vertex, {@code -1} for vertices.
+     */
+    private final int target;
+
+    /**
+     * The label.
+     */
+    private final String label;
+
+    /**
+     * The time bucket.
+     */
+    private final long bucket;
+
+    /**
+     * Creates a new key.
+     *
+     * @param source the partition of the source vertex, {@code -1} for vertices
+     * @param target the partition of the target vertex, {@code -1} for vertices
+     * @param label the label
+     * @param bucket the time bucket
+     */
+    PartitionKey(int source, int target, String label, long bucket) {
+      this.source = source;
+      this.target = target;
+      this.label = label;
+      this.bucket = bucket;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      PartitionKey other = (PartitionKey) o;
+      return source == other.source && target == other.target && bucket == other.bucket &&
+        Objects.equals(label, other.label);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(source, target, label, bucket);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.execution;
+
+import org.apache.flink.api.common.JobExecutionResult;
+import org.apache.flink.api.common.accumulators.SerializedListAccumulator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.DataSet;
+import org.apache.flink.api.java.ExecutionEnvironment;
+import org.apache.flink.api.java.Utils;
+import org.apache.flink.util.AbstractID;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The collected elements of a data set. Unlike {@link DataSet#collect()}, creating an instance only adds
+ * the sink to the plan, so several data sets are collected by a single execution. The elements are
+ * returned as accumulator of the job, so they are also collected from jobs running on a remote cluster.
+ *
+ * @param <T> the type of the elements
+ */
+public class CollectedDataSet<T> {
+
+  /**
+   * The execution environment of the data set.
+   */
+  private final ExecutionEnvironment env;
+
+  /**
+   * The name of the accumulator containing the elements.
+   */
+  private final String accumulatorName = new AbstractID().toString();
+
+  /**
+   * The serializer of the elements.
+   */
+  private final TypeSerializer<T> serializer;
+
+  /**
+   * Adds the sink collecting the elements of the data set to the plan.
+   *
+   * @param dataSet the data set to collect
+   */
+  public CollectedDataSet(DataSet<T> dataSet) {
+    this.env = dataSet.getExecutionEnvironment();
+    this.serializer = dataSet.getType().createSerializer(env.getConfig());
+    dataSet.output(new Utils.CollectHelper<>(accumulatorName, serializer)).name("collect()");
+  }
+
+  /**
+   * Returns the collected elements. Must not be called before the plan is executed.
+   *
+   * @return the collected elements
+   * @throws IOException if the elements can not be deserialized
+   */
+  public List<T> get() throws IOException {
+    JobExecutionResult result = env.getLastJobExecutionResult();
+    ArrayList<byte[]> serialized = result == null ? null : result.getAccumulatorResult(accumulatorName);
+    if (serialized == null) {
+      throw new IllegalStateException("The plan collecting the data set was not executed.");
+    }
+    try {
+      return SerializedListAccumulator.deserializeList(serialized, serializer);
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Unable to deserialize the collected elements.", e);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.execution;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.java.ExecutionEnvironment;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobmaster.JobResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A Flink cluster shared by all requests, either embedded into the server ({@link LocalJobCluster}) or
+ * running elsewhere ({@link RemoteJobCluster}). Each request gets its own {@link ExecutionEnvironment} from
+ * {@link #createEnvironment()}, several jobs run concurrently on the task slots of the cluster.
+ */
+public abstract class JobCluster implements AutoCloseable {
+
+  /**
+   * The maximal parallelism of a job.
+   */
+  private final int parallelism;
+
+  /**
+   * The number of input elements processed by a single parallel task.
+   */
+  private final long elementsPerTask;
+
+  /**
+   * The configuration used to compile the jobs.
+   */
+  protected final Configuration configuration = new Configuration();
+
+  /**
+   * Creates a new cluster.
+   *
+   * @param parallelism the maximal parallelism of a job
+   * @param elementsPerTask the number of input elements processed by a single parallel task
+   */
+  protected JobCluster(int parallelism, long elementsPerTask) {
+    this.parallelism = Math.max(1, parallelism);
+    this.elementsPerTask = Math.max(1, elementsPerTask);
+  }
+
+  /**
+   * Starts the cluster or connects to it.
+   *
+   * @throws Exception if the cluster is not available
+   */
+  public abstract void start() throws Exception;
+
+  /**
+   * Submits a job to the cluster.
+   *
+   * @param jobGraph the job to submit
+   * @return completes once the job is accepted by the cluster
+   */
+  abstract CompletableFuture<?> submitJob(JobGraph jobGraph);
+
+  /**
+   * Requests the result of a submitted job.
+   *
+   * @param jobId the id of the job
+   * @return completes with the result once the job is finished
+   */
+  abstract CompletableFuture<JobResult> requestJobResult(JobID jobId);
+
+  /**
+   * Cancels a submitted job, if it is still running.
+   *
+   * @param jobId the id of the job
+   */
+  abstract void cancelJob(JobID jobId);
+
+  /**
+   * Creates a new execution environment whose jobs run on this cluster. Starts the cluster if necessary.
+   * The parallelism of the environment is the maximal parallelism of a job.
+   *
+   * @return a new execution environment
+   */
+  public JobClusterEnvironment createEnvironment() {
+    try {
+      start();
+    } catch (Exception e) {
+      throw new IllegalStateException("Unable to start the Flink cluster.", e);
+    }
+    JobClusterEnvironment env = new JobClusterEnvironment(this, configuration);
+    env.setParallelism(parallelism);
+    return env;
+  }
+
+  /**
+   * Returns the parallelism of a job processing the given number of input elements. Small inputs do not
+   * benefit from many parallel tasks, but their jobs would occupy task slots other jobs could use.
+   *
+   * @param elementCount the number of input elements
+   * @return the parallelism, between one and the maximal parallelism of a job
+   */
+  public int getParallelism(long elementCount) {
+    long tasks = (elementCount + elementsPerTask - 1) / elementsPerTask;
+    return (int) Math.max(1, Math.min(parallelism, tasks));
+  }
+
+  /**
+   * Returns the path the jobs read the files of a dataset from, if the cluster can read them.
+   *
+   * @param databaseName the name of the dataset
+   * @return the path of the dataset, or {@code null} if the jobs can not read it
+   */
+  public String getDatasetPath(String databaseName) {
+    return null;
+  }
+
+  /**
+   * Returns the maximal number of elements of a graph shipped to the cluster within a job.
+   *
+   * @return the maximal number of shipped elements
+   */
+  public long getMaxShippedElements() {
+    return Long.MAX_VALUE;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.execution;
+
+import org.apache.flink.api.common.JobExecutionResult;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.Plan;
+import org.apache.flink.api.java.ExecutionEnvironment;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.optimizer.DataStatistics;
+import org.apache.flink.optimizer.Optimizer;
+import org.apache.flink.optimizer.plan.OptimizedPlan;
+import org.apache.flink.optimizer.plandump.PlanJSONDumpGenerator;
+import org.apache.flink.optimizer.plantranslate.JobGraphGenerator;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobmaster.JobResult;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * An execution environment that submits its jobs to a shared {@link JobCluster}. Every request uses its
+ * own instance, so the data sinks of one request never end up in the job of another request, while all
+ * jobs share the task slots of the cluster. The running job of an environment can be cancelled from any
+ * thread by {@link #cancel()}.
+ */
+public class JobClusterEnvironment extends ExecutionEnvironment {
+
+  /**
+   * The cluster the jobs are submitted to.
+   */
+  private final JobCluster cluster;
+
+  /**
+   * The configuration used to compile the jobs.
+   */
+  private final Configuration configuration;
+
+  /**
+   * The id of the running job, {@code null} if no job is running.
+   */
+  private volatile JobID runningJob;
+
+  /**
+   * True, if the environment is cancelled. No further jobs are executed.
+   */
+  private volatile boolean cancelled;
+
+  /**
+   * Creates a new environment.
+   *
+   * @param cluster the cluster the jobs are submitted to
+   * @param configuration the configuration used to compile the jobs
+   */
+  JobClusterEnvironment(JobCluster cluster, Configuration configuration) {
+    this.cluster = cluster;
+    this.configuration = configuration;
+  }
+
+  @Override
+  public JobExecutionResult execute(String jobName) throws Exception {
+    JobGraph jobGraph = new JobGraphGenerator(configuration).compileJobGraph(compile(createProgramPlan(jobName)));
+    runningJob = jobGraph.getJobID();
+    try {
+      checkCancelled();
+      cluster.submitJob(jobGraph).get();
+      // the job may have been cancelled before it was known to the cluster
+      if (cancelled) {
+        cluster.cancelJob(jobGraph.getJobID());
+      }
+      JobResult result = cluster.requestJobResult(jobGraph.getJobID()).get();
+      checkCancelled();
+      lastJobExecutionResult = result.toJobExecutionResult(getClass().getClassLoader());
+      return lastJobExecutionResult;
+    } finally {
+      runningJob = null;
+    }
+  }
+
+  /**
+   * Cancels the running job and all further jobs of this environment. Their executions fail with a
+   * {@link CancellationException}.
+   */
+  public void cancel() {
+    cancelled = true;
+    JobID job = runningJob;
+    if (job != null) {
+      cluster.cancelJob(job);
+    }
+  }
+
+  /**
+   * Throws a {@link CancellationException} if the environment is cancelled.
+   */
+  private void checkCancelled() {
+    if (cancelled) {
+      throw new CancellationException("The job was cancelled.");
+    }
+  }
+
+  @Override
+  public String getExecutionPlan() throws Exception {
+    OptimizedPlan optimizedPlan = compile(createProgramPlan("unnamed job", false));
+    return new PlanJSONDumpGenerator().getOptimizerPlanAsJSON(optimizedPlan);
+  }
+
+  @Override
+  public void startNewSession() {
+    jobID = JobID.generate();
+  }
+
+  /**
+   * Optimizes the given program plan.
+   *
+   * @param plan the program plan
+   * @return the optimized plan
+   */
+  private OptimizedPlan compile(Plan plan) {
+    return new Optimizer(new DataStatistics(), configuration).compile(plan);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.execution;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.configuration.CoreOptions;
+import org.apache.flink.configuration.RestOptions;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobmaster.JobResult;
+import org.apache.flink.runtime.minicluster.MiniCluster;
+import org.apache.flink.runtime.minicluster.MiniClusterConfiguration;
+import org.apache.flink.runtime.minicluster.RpcServiceSharing;
+import org.gradoop.demo.server.ServerConfig;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A Flink cluster embedded into the server. Its REST endpoint can be bound to a fixed port, so it can also
+ * serve as a stand-in for a remote cluster, see {@link #main(String[])}.
+ */
+public class LocalJobCluster extends JobCluster {
+
+  /**
+   * The number of task slots of the cluster.
+   */
+  private final int taskSlots;
+
+  /**
+   * The running cluster.
+   */
+  private MiniCluster miniCluster;
+
+  /**
+   * Creates a new cluster. The cluster is started by {@link #start()}.
+   *
+   * @param taskSlots the number of task slots of the cluster
+   * @param parallelism the maximal parallelism of a job, at most the number of task slots
+   * @param elementsPerTask the number of input elements processed by a single parallel task
+   * @param managedMemory the size of the managed memory of the task slots, e.g., {@code 512m}, or
+   * {@code null} to use a fraction of the free heap
+   * @param restPort the port of the REST endpoint, {@code 0} for a random port
+   */
+  public LocalJobCluster(int taskSlots, int parallelism, long elementsPerTask, String managedMemory,
+    int restPort) {
+    super(Math.min(parallelism, Math.max(1, taskSlots)), elementsPerTask);
+    this.taskSlots = Math.max(1, taskSlots);
+
+    configuration.setInteger(TaskManagerOptions.NUM_TASK_SLOTS, this.taskSlots);
+    configuration.setInteger(CoreOptions.DEFAULT_PARALLELISM, getParallelism());
+    if (managedMemory != null) {
+      configuration.setString(TaskManagerOptions.MANAGED_MEMORY_SIZE, managedMemory);
+    }
+    configuration.setString(RestOptions.BIND_PORT, String.valueOf(restPort));
+  }
+
+  /**
+   * Starts the cluster.
+   *
+   * @throws Exception if the cluster can not be started
+   */
+  @Override
+  public synchronized void start() throws Exception {
+    if (miniCluster != null) {
+      return;
+    }
+    MiniClusterConfiguration clusterConfiguration = new MiniClusterConfiguration.Builder()
+      .setConfiguration(configuration)
+      .setNumTaskManagers(1)
+      .setNumSlotsPerTaskManager(taskSlots)
+      .setRpcServiceSharing(RpcServiceSharing.SHARED)
+      .build();
+    MiniCluster cluster = new MiniCluster(clusterConfiguration);
+    cluster.start();
+    miniCluster = cluster;
+  }
+
+  @Override
+  CompletableFuture<?> submitJob(JobGraph jobGraph) {
+    return miniCluster.submitJob(jobGraph);
+  }
+
+  @Override
+  CompletableFuture<JobResult> requestJobResult(JobID jobId) {
+    return miniCluster.requestJobResult(jobId);
+  }
+
+  @Override
+  void cancelJob(JobID jobId) {
+    miniCluster.cancelJob(jobId);
+  }
+
+  public int getTaskSlots() {
+    return taskSlots;
+  }
+
+  @Override
+  public synchronized void close() throws Exception {
+    if (miniCluster != null) {
+      miniCluster.close();
+      miniCluster = null;
+    }
+  }
+
+  /**
+   * Runs a cluster on its own, e.g., as stand-in for a remote cluster. The cluster is configured by the
+   * {@code tge.flink.*} system properties of the server, its REST endpoint listens on
+   * {@code tge.flink.restPort} or 8081.
+   *
+   * @param args unused
+   * @throws Exception if the cluster can not be started
+   */
+  public static void main(String[] args) throws Exception {
+    int restPort = ServerConfig.FLINK_REST_PORT == 0 ? RestOptions.PORT.defaultValue() : ServerConfig.FLINK_REST_PORT;
+    try (LocalJobCluster cluster = new LocalJobCluster(ServerConfig.FLINK_TASK_SLOTS, ServerConfig.FLINK_PARALLELISM,
+      ServerConfig.FLINK_ELEMENTS_PER_TASK, ServerConfig.FLINK_MANAGED_MEMORY, restPort)) {
+      cluster.start();
+      System.out.printf("Flink cluster started at %s%nPress any key to stop it.%n",
+        cluster.miniCluster.getRestAddress().get());
+      System.in.read();
+    }
+  }
+}
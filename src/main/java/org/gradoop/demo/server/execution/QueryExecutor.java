@@ -0,0 +1,464 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.execution;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Runs the queries of the requests on a bounded number of threads. Whenever a thread is free, the waiting
+ * query with the highest {@link QueryPriority} is started, as long as the limits of running queries per
+ * endpoint and per dataset allow it. Among queries of the same priority, the session with the fewest
+ * running queries goes first, so a single session can not monopolize the threads, and ties are broken by
+ * arrival order. Waiting queries gain priority over time, so no query starves. Interactive queries may
+ * use additional reserved threads and are not limited per dataset, so they never wait for long running
+ * queries to finish. The number of waiting queries per endpoint is bounded, further queries are rejected.
+ *
+ * <p>The thread of a request waits for its query until the query is finished, its timeout expires or the
+ * client cancels it by its id. In the latter two cases, the query is cancelled, including its running
+ * Flink job.
+ */
+public class QueryExecutor implements AutoCloseable {
+
+  /**
+   * Time after which a waiting query is promoted to the next priority class, in milliseconds.
+   */
+  private static final long PRIORITY_AGING = 30_000;
+
+  /**
+   * An admitted query.
+   */
+  private static final class Query {
+
+    /**
+     * The session of the client, may be {@code null}.
+     */
+    private final String session;
+
+    /**
+     * The endpoint of the query.
+     */
+    private final String endpoint;
+
+    /**
+     * The queried dataset, may be {@code null}.
+     */
+    private final String dataset;
+
+    /**
+     * The priority class of the query.
+     */
+    private final QueryPriority priority;
+
+    /**
+     * The computation of the query.
+     */
+    private final FutureTask<?> task;
+
+    /**
+     * The arrival time of the query.
+     */
+    private final long arrival = System.currentTimeMillis();
+
+    /**
+     * Creates a new query.
+     *
+     * @param session the session of the client, may be {@code null}
+     * @param endpoint the endpoint of the query
+     * @param dataset the queried dataset, may be {@code null}
+     * @param priority the priority class of the query
+     * @param task the computation of the query
+     */
+    private Query(String session, String endpoint, String dataset, QueryPriority priority, FutureTask<?> task) {
+      this.session = session == null ? "" : session;
+      this.endpoint = endpoint;
+      this.dataset = dataset;
+      this.priority = priority;
+      this.task = task;
+    }
+
+    /**
+     * Returns the priority of the query, increased by the time the query is waiting.
+     *
+     * @param now the current time
+     * @return the priority, lower values are more urgent
+     */
+    private long getEffectivePriority(long now) {
+      return Math.max(0, priority.ordinal() - (now - arrival) / PRIORITY_AGING);
+    }
+  }
+
+  /**
+   * The threads running the queries. The number of busy threads is bounded by {@link #maxRunning}.
+   */
+  private final ExecutorService threads;
+
+  /**
+   * Maximal number of running queries.
+   */
+  private final int maxRunning;
+
+  /**
+   * Number of additional threads reserved for interactive queries.
+   */
+  private final int interactiveReserve;
+
+  /**
+   * Maximal number of running queries of an endpoint.
+   */
+  private final ToIntFunction<String> maxRunningPerEndpoint;
+
+  /**
+   * Maximal number of running queries of a dataset.
+   */
+  private final int maxRunningPerDataset;
+
+  /**
+   * Maximal number of waiting queries of an endpoint.
+   */
+  private final int maxQueuedPerEndpoint;
+
+  /**
+   * Number of running queries by session.
+   */
+  private final Map<String, Integer> runningBySession = new HashMap<>();
+
+  /**
+   * The waiting queries in arrival order.
+   */
+  private final List<Query> queue = new LinkedList<>();
+
+  /**
+   * Number of running queries.
+   */
+  private int running;
+
+  /**
+   * Number of running queries by endpoint.
+   */
+  private final Map<String, Integer> runningByEndpoint = new HashMap<>();
+
+  /**
+   * Number of running queries by dataset.
+   */
+  private final Map<String, Integer> runningByDataset = new HashMap<>();
+
+  /**
+   * Moving average of the run time of a query in milliseconds.
+   */
+  private double averageRunTime;
+
+  /**
+   * The cancellations of the running queries by query id.
+   */
+  private final ConcurrentHashMap<String, Runnable> cancellations = new ConcurrentHashMap<>();
+
+  /**
+   * Number of queries rejected because too many queries were waiting.
+   */
+  private final AtomicLong rejected = new AtomicLong();
+
+  /**
+   * Number of queries cancelled because of an expired timeout.
+   */
+  private final AtomicLong timeouts = new AtomicLong();
+
+  /**
+   * Number of queries cancelled by their clients.
+   */
+  private final AtomicLong cancelled = new AtomicLong();
+
+  /**
+   * Creates a new executor.
+   *
+   * @param maxRunning the maximal number of running queries
+   * @param interactiveReserve the number of additional threads reserved for interactive queries
+   * @param maxRunningPerEndpoint the maximal number of running queries of an endpoint
+   * @param maxRunningPerDataset the maximal number of running queries of a dataset
+   * @param maxQueuedPerEndpoint the maximal number of waiting queries of an endpoint
+   */
+  public QueryExecutor(int maxRunning, int interactiveReserve, ToIntFunction<String> maxRunningPerEndpoint,
+    int maxRunningPerDataset, int maxQueuedPerEndpoint) {
+    this.maxRunning = Math.max(1, maxRunning);
+    this.interactiveReserve = Math.max(0, interactiveReserve);
+    this.maxRunningPerEndpoint = maxRunningPerEndpoint;
+    this.maxRunningPerDataset = Math.max(1, maxRunningPerDataset);
+    this.maxQueuedPerEndpoint = Math.max(0, maxQueuedPerEndpoint);
+    AtomicInteger threadCount = new AtomicInteger();
+    this.threads = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "query-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Runs a query and waits for its result.
+   *
+   * @param id the id of the query chosen by the client, used to cancel it, may be {@code null}
+   * @param session the session of the client, may be {@code null}
+   * @param endpoint the endpoint of the query
+   * @param dataset the queried dataset, may be {@code null}
+   * @param priority the priority class of the query
+   * @param query the query
+   * @param timeout the timeout of the query in milliseconds, including the time waiting for a free thread
+   * @param cancellation cancels the running query, e.g., its Flink job
+   * @param <V> the type of the result
+   * @return the result of the query
+   * @throws RejectedExecutionException if too many queries of the endpoint are waiting
+   * @throws TimeoutException if the timeout expired
+   * @throws CancellationException if the client cancelled the query
+   * @throws Exception if the query fails
+   */
+  public <V> V execute(String id, String session, String endpoint, String dataset, QueryPriority priority,
+    Callable<V> query, long timeout, Runnable cancellation) throws Exception {
+    FutureTask<V> result = new FutureTask<>(query);
+    Query admitted = new Query(session, endpoint, dataset, priority, result);
+    synchronized (this) {
+      queue.add(admitted);
+      dispatch();
+      if (queue.contains(admitted) && getQueued(endpoint) > maxQueuedPerEndpoint) {
+        queue.remove(admitted);
+        rejected.incrementAndGet();
+        throw new RejectedExecutionException("Too many queries of the endpoint " + endpoint + " are waiting.");
+      }
+    }
+    Runnable cancel = () -> {
+      // a query still waiting for a thread is never started
+      synchronized (this) {
+        queue.remove(admitted);
+      }
+      result.cancel(false);
+      cancellation.run();
+    };
+    if (id != null) {
+      cancellations.put(id, cancel);
+    }
+    try {
+      return result.get(timeout, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      timeouts.incrementAndGet();
+      cancel.run();
+      throw new TimeoutException("The query exceeded its timeout of " + timeout + " ms.");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw (Exception) e.getCause();
+    } catch (InterruptedException e) {
+      cancel.run();
+      throw e;
+    } finally {
+      if (id != null) {
+        cancellations.remove(id, cancel);
+      }
+    }
+  }
+
+  /**
+   * Starts the most urgent waiting queries that are within the limits. Must hold the lock.
+   */
+  private void dispatch() {
+    long now = System.currentTimeMillis();
+    while (true) {
+      Query next = null;
+      for (Query query : queue) {
+        if (canStart(query) && (next == null || compare(query, next, now) < 0)) {
+          next = query;
+        }
+      }
+      if (next == null) {
+        return;
+      }
+      queue.remove(next);
+      start(next);
+    }
+  }
+
+  /**
+   * Checks if a query can be started without exceeding a limit. The limit per dataset does not apply to
+   * interactive queries, so they are never blocked by long running queries of the same dataset. Must hold
+   * the lock.
+   *
+   * @param query the query
+   * @return true, if the query can be started
+   */
+  private boolean canStart(Query query) {
+    boolean interactive = query.priority == QueryPriority.INTERACTIVE;
+    return running < (interactive ? maxRunning + interactiveReserve : maxRunning) &&
+      runningByEndpoint.getOrDefault(query.endpoint, 0) < maxRunningPerEndpoint.applyAsInt(query.endpoint) &&
+      (interactive || query.dataset == null ||
+        runningByDataset.getOrDefault(query.dataset, 0) < maxRunningPerDataset);
+  }
+
+  /**
+   * Compares the urgency of two waiting queries. Must hold the lock.
+   *
+   * @param first the first query
+   * @param second the second query
+   * @param now the current time
+   * @return a negative value, if the first query is more urgent, a positive value, if the second query is
+   * more urgent, zero otherwise
+   */
+  private int compare(Query first, Query second, long now) {
+    int priority = Long.compare(first.getEffectivePriority(now), second.getEffectivePriority(now));
+    if (priority != 0) {
+      return priority;
+    }
+    return Integer.compare(runningBySession.getOrDefault(first.session, 0),
+      runningBySession.getOrDefault(second.session, 0));
+  }
+
+  /**
+   * Starts a query on a free thread. Must hold the lock.
+   *
+   * @param query the query
+   */
+  private void start(Query query) {
+    running++;
+    runningBySession.merge(query.session, 1, Integer::sum);
+    runningByEndpoint.merge(query.endpoint, 1, Integer::sum);
+    if (query.dataset != null) {
+      runningByDataset.merge(query.dataset, 1, Integer::sum);
+    }
+    threads.execute(() -> {
+      long start = System.currentTimeMillis();
+      try {
+        query.task.run();
+      } finally {
+        finished(query, System.currentTimeMillis() - start);
+      }
+    });
+  }
+
+  /**
+   * Releases the thread of a finished query and starts the next waiting queries.
+   *
+   * @param query the finished query
+   * @param runTime the run time of the query in milliseconds
+   */
+  private synchronized void finished(Query query, long runTime) {
+    running--;
+    runningBySession.computeIfPresent(query.session, (session, count) -> count == 1 ? null : count - 1);
+    runningByEndpoint.merge(query.endpoint, -1, Integer::sum);
+    if (query.dataset != null) {
+      runningByDataset.merge(query.dataset, -1, Integer::sum);
+    }
+    averageRunTime = averageRunTime == 0 ? runTime : 0.8 * averageRunTime + 0.2 * runTime;
+    dispatch();
+  }
+
+  /**
+   * Returns the number of waiting queries of an endpoint. Must hold the lock.
+   *
+   * @param endpoint the endpoint
+   * @return the number of waiting queries
+   */
+  private int getQueued(String endpoint) {
+    int queued = 0;
+    for (Query query : queue) {
+      if (query.endpoint.equals(endpoint)) {
+        queued++;
+      }
+    }
+    return queued;
+  }
+
+  /**
+   * Cancels a running query. The waiting request is answered immediately.
+   *
+   * @param id the id of the query
+   * @return true, if the query was running
+   */
+  public boolean cancel(String id) {
+    Runnable cancel = cancellations.remove(id);
+    if (cancel == null) {
+      return false;
+    }
+    cancelled.incrementAndGet();
+    cancel.run();
+    return true;
+  }
+
+  /**
+   * Estimates the time until a rejected query may be admitted, based on the run time of recent queries
+   * and the number of waiting queries.
+   *
+   * @return the estimated time in seconds, at least one second
+   */
+  public synchronized long getRetryAfter() {
+    double waves = (double) (queue.size() + running) / maxRunning;
+    return Math.max(1L, (long) Math.ceil(averageRunTime * waves / 1000));
+  }
+
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  public long getTimeouts() {
+    return timeouts.get();
+  }
+
+  public long getCancelled() {
+    return cancelled.get();
+  }
+
+  public int getMaxRunning() {
+    return maxRunning;
+  }
+
+  public int getInteractiveReserve() {
+    return interactiveReserve;
+  }
+
+  /**
+   * Returns the number of running queries.
+   *
+   * @return the number of running queries
+   */
+  public synchronized int getRunning() {
+    return running;
+  }
+
+  /**
+   * Returns the number of queries waiting for a free thread.
+   *
+   * @return the number of waiting queries
+   */
+  public synchronized int getQueued() {
+    return queue.size();
+  }
+
+  @Override
+  public void close() {
+    threads.shutdownNow();
+  }
+}
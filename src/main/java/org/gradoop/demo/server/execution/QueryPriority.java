@@ -13,24 +13,22 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
-package org.gradoop.demo.server.functions;
-
-import org.apache.flink.api.common.functions.ReduceFunction;
-
-import java.util.Set;
+package org.gradoop.demo.server.execution;
 
 /**
- * Reduce the DEataset of labels to one set.
+ * Priority classes of queries, from the most to the least urgent.
  */
-public class LabelReducer implements ReduceFunction<Set<String>> {
-
+public enum QueryPriority {
+  /**
+   * Short queries a user waits for, e.g., snapshots while moving the time slider.
+   */
+  INTERACTIVE,
+  /**
+   * Long running analytical queries, e.g., groupings.
+   */
+  ANALYTICAL,
   /**
-   * {@inheritDoc}
+   * Work nobody waits for, e.g., the precomputation of metadata.
    */
-  @Override
-  public Set<String> reduce(Set<String> set1, Set<String> set2) throws Exception {
-    set1.addAll(set2);
-    return set1;
-  }
+  BACKGROUND
 }
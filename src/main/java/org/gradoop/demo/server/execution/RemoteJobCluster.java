@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.execution;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.client.deployment.StandaloneClusterId;
+import org.apache.flink.client.program.rest.RestClusterClient;
+import org.apache.flink.configuration.CoreOptions;
+import org.apache.flink.configuration.JobManagerOptions;
+import org.apache.flink.configuration.RestOptions;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobmaster.JobResult;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A Flink session cluster running outside of the server, e.g., a standalone cluster. The jobs are submitted
+ * to the REST endpoint of its JobManager, together with the jars containing the user code of the server.
+ */
+public class RemoteJobCluster extends JobCluster {
+
+  /**
+   * The jars shipped with every job.
+   */
+  private final List<Path> jars = new ArrayList<>();
+
+  /**
+   * The directory containing the datasets as seen by the cluster, or {@code null} if it can not read them.
+   */
+  private final String dataDirectory;
+
+  /**
+   * The maximal number of elements of a graph shipped within a job.
+   */
+  private final long maxShippedElements;
+
+  /**
+   * The client of the REST endpoint.
+   */
+  private RestClusterClient<StandaloneClusterId> client;
+
+  /**
+   * Creates a new cluster. The connection is established by {@link #start()}.
+   *
+   * @param host the host of the JobManager
+   * @param port the port of the REST endpoint of the JobManager
+   * @param jars the jars shipped with every job, usually the jar of the server
+   * @param dataDirectory the directory containing the datasets as seen by the cluster, or {@code null}
+   * @param maxShippedElements the maximal number of elements of a graph shipped within a job
+   * @param parallelism the maximal parallelism of a job
+   * @param elementsPerTask the number of input elements processed by a single parallel task
+   */
+  public RemoteJobCluster(String host, int port, List<File> jars, String dataDirectory, long maxShippedElements,
+    int parallelism, long elementsPerTask) {
+    super(parallelism, elementsPerTask);
+    this.dataDirectory = dataDirectory == null || dataDirectory.trim().isEmpty() ? null :
+      dataDirectory.trim().replaceAll("/+$", "");
+    this.maxShippedElements = maxShippedElements;
+    for (File jar : jars) {
+      this.jars.add(new Path(jar.getAbsoluteFile().toURI()));
+    }
+    configuration.setString(JobManagerOptions.ADDRESS, host);
+    configuration.setInteger(RestOptions.PORT, port);
+    configuration.setInteger(CoreOptions.DEFAULT_PARALLELISM, getParallelism());
+  }
+
+  /**
+   * Connects to the cluster.
+   *
+   * @throws Exception if a jar does not exist or the client can not be created
+   */
+  @Override
+  public synchronized void start() throws Exception {
+    if (client != null) {
+      return;
+    }
+    for (Path jar : jars) {
+      if (!new File(jar.toUri()).isFile()) {
+        throw new FileNotFoundException("The job jar " + jar + " does not exist.");
+      }
+    }
+    client = new RestClusterClient<>(configuration, StandaloneClusterId.getInstance());
+  }
+
+  @Override
+  public String getDatasetPath(String databaseName) {
+    return dataDirectory == null ? null : dataDirectory + "/" + databaseName;
+  }
+
+  @Override
+  public long getMaxShippedElements() {
+    return maxShippedElements;
+  }
+
+  @Override
+  CompletableFuture<?> submitJob(JobGraph jobGraph) {
+    for (Path jar : jars) {
+      jobGraph.addJar(jar);
+    }
+    return client.submitJob(jobGraph);
+  }
+
+  @Override
+  CompletableFuture<JobResult> requestJobResult(JobID jobId) {
+    return client.requestJobResult(jobId);
+  }
+
+  @Override
+  void cancelJob(JobID jobId) {
+    try {
+      client.cancel(jobId);
+    } catch (Exception e) {
+      // the job is finished or the cluster is not reachable, in both cases nothing is left to cancel
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (client != null) {
+      client.shutdown();
+      client = null;
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.functions;
+
+import org.apache.flink.api.common.functions.FlatMapFunction;
+import org.apache.flink.api.java.tuple.Tuple6;
+import org.apache.flink.util.Collector;
+import org.gradoop.common.model.api.entities.Element;
+import org.gradoop.common.model.impl.properties.Property;
+import org.gradoop.common.model.impl.properties.PropertyValue;
+
+/**
+ * Extracts all metadata of an EPGM element in a single pass: its label, the keys of its properties
+ * together with a flag specifying if the property has a numerical type and, optionally, its spatial
+ * coordinates. The result is collected as tuples {@code (category, name, label, numerical, min, max)}, which
+ * are combined by {@link MetadataReducer}.
+ *
+ * @param <E> EPGM element type
+ */
+public class ElementMetadataMapper<E extends Element>
+  implements FlatMapFunction<E, Tuple6<String, String, String, Boolean, Double, Double>> {
+
+  /**
+   * Category of vertex property keys.
+   */
+  public static final String VERTEX_KEY = "vertexKey";
+
+  /**
+   * Category of edge property keys.
+   */
+  public static final String EDGE_KEY = "edgeKey";
+
+  /**
+   * Category of vertex labels.
+   */
+  public static final String VERTEX_LABEL = "vertexLabel";
+
+  /**
+   * Category of edge labels.
+   */
+  public static final String EDGE_LABEL = "edgeLabel";
+
+  /**
+   * Category of spatial bounds.
+   */
+  public static final String SPATIAL = "spatial";
+
+  /**
+   * Property key of the latitude.
+   */
+  public static final String LAT = "lat";
+
+  /**
+   * Property key of the longitude.
+   */
+  public static final String LONG = "long";
+
+  /**
+   * The category of the emitted property keys.
+   */
+  private final String keyCategory;
+
+  /**
+   * The category of the emitted labels.
+   */
+  private final String labelCategory;
+
+  /**
+   * True, if the spatial coordinates shall be extracted.
+   */
+  private final boolean extractSpatial;
+
+  /**
+   * Reduce object instantiations.
+   */
+  private final Tuple6<String, String, String, Boolean, Double, Double> reuse = new Tuple6<>();
+
+  /**
+   * Constructor
+   *
+   * @param vertices true, if the mapped elements are vertices, false for edges
+   */
+  public ElementMetadataMapper(boolean vertices) {
+    this.keyCategory = vertices ? VERTEX_KEY : EDGE_KEY;
+    this.labelCategory = vertices ? VERTEX_LABEL : EDGE_LABEL;
+    this.extractSpatial = vertices;
+  }
+
+  @Override
+  public void flatMap(E element, Collector<Tuple6<String, String, String, Boolean, Double, Double>> out) {
+    collect(out, labelCategory, element.getLabel(), "", false, 0.);
+
+    if (element.getProperties() == null) {
+      return;
+    }
+    for (Property property : element.getProperties()) {
+      PropertyValue value = property.getValue();
+      boolean isNumerical = value.isInt() ||
+        value.isLong() ||
+        value.isDouble() ||
+        value.isFloat() ||
+        value.isBigDecimal();
+
+      collect(out, keyCategory, property.getKey(), element.getLabel(), isNumerical, 0.);
+
+      if (extractSpatial && value.isDouble() &&
+        (property.getKey().equals(LAT) || property.getKey().equals(LONG))) {
+        collect(out, SPATIAL, property.getKey(), "", true, value.getDouble());
+      }
+    }
+  }
+
+  /**
+   * Collects a single metadata tuple.
+   *
+   * @param out the collector
+   * @param category the metadata category
+   * @param name the label or property key
+   * @param label the label of the element, if the name is a property key
+   * @param numerical true, if the property is numerical
+   * @param value the minimum and maximum of a spatial coordinate
+   */
+  private void collect(Collector<Tuple6<String, String, String, Boolean, Double, Double>> out,
+    String category, String name, String label, boolean numerical, double value) {
+    reuse.f0 = category;
+    reuse.f1 = name;
+    reuse.f2 = label;
+    reuse.f3 = numerical;
+    reuse.f4 = value;
+    reuse.f5 = value;
+    out.collect(reuse);
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.functions;
+
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.java.tuple.Tuple6;
+
+/**
+ * Combines two metadata tuples of the same category, name and label, as created by
+ * {@link ElementMetadataMapper}. A property is numerical if it is numerical for all elements, the last two
+ * fields hold the minimum and the maximum value. Since this is a {@link ReduceFunction}, Flink combines the
+ * tuples before they are shuffled.
+ */
+public class MetadataReducer implements ReduceFunction<Tuple6<String, String, String, Boolean, Double, Double>> {
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Tuple6<String, String, String, Boolean, Double, Double> reduce(
+    Tuple6<String, String, String, Boolean, Double, Double> first,
+    Tuple6<String, String, String, Boolean, Double, Double> second) {
+    first.f3 = first.f3 && second.f3;
+    first.f4 = Math.min(first.f4, second.f4);
+    first.f5 = Math.max(first.f5, second.f5);
+    return first;
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.index;
+
+/**
+ * A rectangle of longitudes and latitudes, e.g., the viewport of a map. The bounds are inclusive.
+ */
+public class BoundingBox {
+
+  /**
+   * The smallest longitude.
+   */
+  private final double west;
+
+  /**
+   * The smallest latitude.
+   */
+  private final double south;
+
+  /**
+   * The largest longitude.
+   */
+  private final double east;
+
+  /**
+   * The largest latitude.
+   */
+  private final double north;
+
+  /**
+   * Creates a bounding box.
+   *
+   * @param west the smallest longitude
+   * @param south the smallest latitude
+   * @param east the largest longitude
+   * @param north the largest latitude
+   */
+  public BoundingBox(double west, double south, double east, double north) {
+    this.west = west;
+    this.south = south;
+    this.east = east;
+    this.north = north;
+  }
+
+  /**
+   * Parses a bounding box in the format {@code west,south,east,north}, as created by Leaflet's
+   * {@code LatLngBounds.toBBoxString()}.
+   *
+   * @param bounds the bounds
+   * @return the bounding box, {@code null} if the bounds are {@code null} or empty
+   * @throws IllegalArgumentException if the bounds are not four numbers or the west bound is east of the east
+   * bound or the south bound is north of the north bound, e.g., for a viewport crossing the antimeridian
+   */
+  public static BoundingBox parse(String bounds) {
+    if (bounds == null || bounds.trim().isEmpty()) {
+      return null;
+    }
+    String[] values = bounds.split(",");
+    if (values.length != 4) {
+      throw new IllegalArgumentException("A bounding box consists of west, south, east and north: " + bounds);
+    }
+    BoundingBox box = new BoundingBox(Double.parseDouble(values[0].trim()), Double.parseDouble(values[1].trim()),
+      Double.parseDouble(values[2].trim()), Double.parseDouble(values[3].trim()));
+    if (!(box.west <= box.east && box.south <= box.north)) {
+      // a box crossing the antimeridian has to be split into two boxes by the client
+      throw new IllegalArgumentException("A bounding box has to be west of its east and south of its north bound: " +
+        bounds);
+    }
+    return box;
+  }
+
+  /**
+   * Checks whether a point is inside the bounding box.
+   *
+   * @param longitude the longitude of the point
+   * @param latitude the latitude of the point
+   * @return true, if the point is inside or on the border of the bounding box
+   */
+  public boolean contains(double longitude, double latitude) {
+    return west <= longitude && longitude <= east && south <= latitude && latitude <= north;
+  }
+
+  public double getWest() {
+    return west;
+  }
+
+  public double getSouth() {
+    return south;
+  }
+
+  public double getEast() {
+    return east;
+  }
+
+  public double getNorth() {
+    return north;
+  }
+
+  @Override
+  public String toString() {
+    return west + "," + south + "," + east + "," + north;
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.index;
+
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+import org.gradoop.temporal.util.TimeFormatConversion;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The number of active elements of each label per time bucket. The buckets are the calendar periods of a
+ * temporal unit in UTC, e.g., the days or months, covering a time range. An element is active in a bucket, if
+ * its interval overlaps it. The counts are computed by a sweep over the sorted interval starts and ends of a
+ * {@link TemporalIntervalIndex}, which marks the first and the last bucket of each element, followed by
+ * prefix sums over the buckets.
+ */
+public class EvolutionHistogram {
+
+  /**
+   * The start times of the buckets followed by the end time of the last one, in ascending order.
+   */
+  private final long[] boundaries;
+
+  /**
+   * Creates the buckets covering a time range.
+   *
+   * @param from the start of the range
+   * @param to the end of the range, exclusive
+   * @param unit the length of the buckets, at most {@link ChronoUnit#MILLENNIA}
+   * @param maxBuckets the maximal number of buckets
+   * @throws IllegalArgumentException if the unit is not supported or the range takes too many buckets
+   */
+  public EvolutionHistogram(long from, long to, ChronoUnit unit, int maxBuckets) {
+    List<Long> times = new ArrayList<>();
+    LocalDateTime time = truncate(LocalDateTime.ofEpochSecond(Math.floorDiv(from, 1000L),
+      (int) Math.floorMod(from, 1000L) * 1_000_000, ZoneOffset.UTC), unit);
+    do {
+      if (times.size() > maxBuckets) {
+        throw new IllegalArgumentException("The time range takes more than " + maxBuckets + " buckets.");
+      }
+      times.add(TimeFormatConversion.toEpochMilli(time));
+      time = time.plus(1, unit);
+    } while (times.get(times.size() - 1) < to || times.size() < 2);
+    boundaries = times.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  /**
+   * Returns the number of buckets.
+   *
+   * @return the number of buckets
+   */
+  public int getBuckets() {
+    return boundaries.length - 1;
+  }
+
+  /**
+   * Returns the start time of a bucket, the start time of the bucket after the last one is its end.
+   *
+   * @param bucket the bucket
+   * @return the start time
+   */
+  public long getStart(int bucket) {
+    return boundaries[bucket];
+  }
+
+  /**
+   * Counts the active elements of each label per bucket.
+   *
+   * @param index the index of the elements
+   * @param <E> the type of the elements
+   * @return the number of active elements per bucket by label, in the order of the labels
+   */
+  public <E extends TemporalElement> Map<String, int[]> count(TemporalIntervalIndex<E> index) {
+    long[] sortedFroms = index.getSortedFroms();
+    long[] sortedTos = index.getSortedTos();
+    int[] byFrom = index.getByFrom();
+    int[] byTo = index.getByTo();
+    long[] froms = index.getFroms();
+    long[] tos = index.getTos();
+    List<E> elements = index.getElements();
+    int size = sortedFroms.length;
+    int buckets = getBuckets();
+    long start = boundaries[0];
+    long end = boundaries[buckets];
+
+    // each element is counted from the bucket containing its start ...
+    Map<String, int[]> counts = new TreeMap<>();
+    int bucket = 0;
+    for (int i = 0; i < size && sortedFroms[i] < end; i++) {
+      int position = byFrom[i];
+      if (tos[position] > start && tos[position] > froms[position]) {
+        while (boundaries[bucket + 1] <= sortedFroms[i]) {
+          bucket++;
+        }
+        counts.computeIfAbsent(elements.get(position).getLabel(), label -> new int[buckets])[bucket]++;
+      }
+    }
+    // ... up to the last bucket starting before its end
+    bucket = 0;
+    for (int i = 0; i < size; i++) {
+      int position = byTo[i];
+      while (bucket < buckets && boundaries[bucket] < sortedTos[i]) {
+        bucket++;
+      }
+      if (bucket == buckets) {
+        break;
+      }
+      if (sortedTos[i] > start && froms[position] < end && sortedTos[i] > froms[position]) {
+        counts.get(elements.get(position).getLabel())[bucket]--;
+      }
+    }
+
+    for (int[] labelCounts : counts.values()) {
+      for (int i = 1; i < buckets; i++) {
+        labelCounts[i] += labelCounts[i - 1];
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Returns the start of the calendar period of a unit containing a point in time.
+   *
+   * @param time the point in time
+   * @param unit the unit
+   * @return the start of the period
+   * @throws IllegalArgumentException if the unit is longer than {@link ChronoUnit#MILLENNIA}
+   */
+  private static LocalDateTime truncate(LocalDateTime time, ChronoUnit unit) {
+    switch (unit) {
+    case WEEKS:
+      return time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    case MONTHS:
+      return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+    case YEARS:
+    case DECADES:
+    case CENTURIES:
+    case MILLENNIA:
+      int years = (int) (unit.getDuration().getSeconds() / ChronoUnit.YEARS.getDuration().getSeconds());
+      return time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1).withYear(Math.floorDiv(time.getYear(), years) * years);
+    case ERAS:
+    case FOREVER:
+      throw new IllegalArgumentException("Unsupported bucket length: " + unit);
+    default:
+      return time.truncatedTo(unit);
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.index;
+
+import org.gradoop.temporal.model.api.functions.TemporalPredicate;
+import org.gradoop.temporal.model.impl.functions.predicates.AsOf;
+import org.gradoop.temporal.model.impl.functions.predicates.Between;
+import org.gradoop.temporal.model.impl.functions.predicates.FromTo;
+import org.gradoop.temporal.util.TimeFormatConversion;
+
+import java.time.LocalDateTime;
+
+/**
+ * A temporal predicate of the form {@code from <= fromBound && to > toBound} (or {@code from < fromBound}),
+ * which covers the predicates offered by the frontend. Unlike the predicates of Gradoop, the bounds are
+ * accessible, so the predicate can be answered by a {@link TemporalIntervalIndex}.
+ */
+public class IntervalQuery implements TemporalPredicate {
+
+  /**
+   * The predicate accepting all elements.
+   */
+  private static final IntervalQuery ALL = new IntervalQuery(Long.MAX_VALUE, true, Long.MIN_VALUE, true);
+
+  /**
+   * The upper bound of the start of an accepted interval.
+   */
+  private final long fromBound;
+
+  /**
+   * True, if an interval starting at {@link #fromBound} is accepted.
+   */
+  private final boolean fromInclusive;
+
+  /**
+   * The exclusive lower bound of the end of an accepted interval.
+   */
+  private final long toBound;
+
+  /**
+   * True, if every interval is accepted.
+   */
+  private final boolean all;
+
+  /**
+   * Creates a new predicate.
+   *
+   * @param fromBound the upper bound of the start of an accepted interval
+   * @param fromInclusive true, if an interval starting at {@code fromBound} is accepted
+   * @param toBound the exclusive lower bound of the end of an accepted interval
+   * @param all true, if every interval is accepted
+   */
+  private IntervalQuery(long fromBound, boolean fromInclusive, long toBound, boolean all) {
+    this.fromBound = fromBound;
+    this.fromInclusive = fromInclusive;
+    this.toBound = toBound;
+    this.all = all;
+  }
+
+  /**
+   * Equivalent to {@link AsOf}.
+   *
+   * @param timestamp the timestamp
+   * @return the predicate
+   */
+  public static IntervalQuery asOf(long timestamp) {
+    return new IntervalQuery(timestamp, true, timestamp, false);
+  }
+
+  /**
+   * Equivalent to {@link FromTo}.
+   *
+   * @param from the start of the query interval
+   * @param to the end of the query interval
+   * @return the predicate
+   */
+  public static IntervalQuery fromTo(long from, long to) {
+    return new IntervalQuery(to, false, from, false);
+  }
+
+  /**
+   * Equivalent to {@link Between}.
+   *
+   * @param from the start of the query interval
+   * @param to the end of the query interval
+   * @return the predicate
+   */
+  public static IntervalQuery between(long from, long to) {
+    return new IntervalQuery(to, true, from, false);
+  }
+
+  /**
+   * Equivalent to {@link org.gradoop.temporal.model.impl.functions.predicates.All}.
+   *
+   * @return the predicate
+   */
+  public static IntervalQuery all() {
+    return ALL;
+  }
+
+  /**
+   * Creates the predicate with the given name as used by the frontend, i.e., one of {@code asOf},
+   * {@code fromTo}, {@code betweenAnd} and {@code all}. Unknown names result in {@code all}.
+   *
+   * @param name the name of the predicate
+   * @param time1 the first timestamp argument
+   * @param time2 the second timestamp argument, ignored by {@code asOf}
+   * @return the predicate
+   */
+  public static IntervalQuery of(String name, LocalDateTime time1, LocalDateTime time2) {
+    switch (name) {
+    case "asOf":
+      return asOf(TimeFormatConversion.toEpochMilli(time1));
+    case "fromTo":
+      return fromTo(TimeFormatConversion.toEpochMilli(time1), TimeFormatConversion.toEpochMilli(time2));
+    case "betweenAnd":
+      return between(TimeFormatConversion.toEpochMilli(time1), TimeFormatConversion.toEpochMilli(time2));
+    case "all":
+    default:
+      return all();
+    }
+  }
+
+  @Override
+  public boolean test(long from, long to) {
+    return all || (acceptsFrom(from) && to > toBound);
+  }
+
+  /**
+   * Checks the condition on the start of an interval.
+   *
+   * @param from the start of the interval
+   * @return true, if the start of the interval satisfies this predicate
+   */
+  boolean acceptsFrom(long from) {
+    return fromInclusive ? from <= fromBound : from < fromBound;
+  }
+
+  /**
+   * Checks if this predicate is equivalent to {@link AsOf}, i.e., accepts the intervals containing a single
+   * point in time.
+   *
+   * @return true, if this is an as-of predicate of the timestamp {@link #getFromBound()}
+   */
+  public boolean isAsOf() {
+    return !all && fromInclusive && fromBound == toBound;
+  }
+
+  public long getFromBound() {
+    return fromBound;
+  }
+
+  public boolean isFromInclusive() {
+    return fromInclusive;
+  }
+
+  public long getToBound() {
+    return toBound;
+  }
+
+  public boolean isAll() {
+    return all;
+  }
+
+  @Override
+  public String toString() {
+    if (all) {
+      return "ALL";
+    }
+    return String.format("FROM %s %d AND TO > %d", fromInclusive ? "<=" : "<", fromBound, toBound);
+  }
+}
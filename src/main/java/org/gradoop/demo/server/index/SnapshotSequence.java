@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.index;
+
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+
+import java.util.List;
+
+/**
+ * A sequence of as-of snapshots of a list of temporal elements at evenly spaced points in time, stored as the
+ * initial snapshot and the elements added and removed between consecutive points. Elements valid only
+ * between two points are part of no snapshot and thus neither added nor removed.
+ *
+ * @param <E> the type of the elements
+ */
+public class SnapshotSequence<E extends TemporalElement> {
+
+  /**
+   * The points in time, the first one is the time of the initial snapshot.
+   */
+  private final long[] times;
+
+  /**
+   * The elements valid at the first point in time.
+   */
+  private final List<E> initial;
+
+  /**
+   * The elements added at each further point in time, i.e., valid at it but not at the previous one.
+   */
+  private final List<List<E>> added;
+
+  /**
+   * The elements removed at each further point in time, i.e., valid at the previous one but not at it.
+   */
+  private final List<List<E>> removed;
+
+  /**
+   * Creates a sequence of snapshots.
+   *
+   * @param times the points in time
+   * @param initial the elements valid at the first point in time
+   * @param added the elements added at each further point in time
+   * @param removed the elements removed at each further point in time
+   */
+  SnapshotSequence(long[] times, List<E> initial, List<List<E>> added, List<List<E>> removed) {
+    this.times = times;
+    this.initial = initial;
+    this.added = added;
+    this.removed = removed;
+  }
+
+  /**
+   * Returns the number of steps, i.e., the number of points in time after the first one.
+   *
+   * @return the number of steps
+   */
+  public int getSteps() {
+    return times.length - 1;
+  }
+
+  /**
+   * Returns the point in time of a step, {@code 0} is the time of the initial snapshot.
+   *
+   * @param step the step
+   * @return the point in time
+   */
+  public long getTime(int step) {
+    return times[step];
+  }
+
+  public List<E> getInitial() {
+    return initial;
+  }
+
+  /**
+   * Returns the elements added at a step.
+   *
+   * @param step the step, starting at {@code 1}
+   * @return the elements valid at the step but not at the previous one
+   */
+  public List<E> getAdded(int step) {
+    return added.get(step - 1);
+  }
+
+  /**
+   * Returns the elements removed at a step.
+   *
+   * @param step the step, starting at {@code 1}
+   * @return the elements valid at the previous step but not at this one
+   */
+  public List<E> getRemoved(int step) {
+    return removed.get(step - 1);
+  }
+}
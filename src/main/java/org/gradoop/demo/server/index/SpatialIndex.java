@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.index;
+
+import org.gradoop.common.model.impl.id.GradoopId;
+import org.gradoop.common.model.impl.properties.PropertyValue;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A uniform grid over the coordinates of a list of vertices, taken from their {@code long} and {@code lat}
+ * properties. The grid has about {@value #VERTICES_PER_CELL} vertices per cell, the vertices of each cell
+ * are stored consecutively. A query visits only the cells overlapping the bounding box. Vertices without
+ * numerical coordinates are not indexed, i.e., they are inside no bounding box.
+ */
+public class SpatialIndex {
+
+  /**
+   * The average number of vertices per cell.
+   */
+  private static final int VERTICES_PER_CELL = 4;
+
+  /**
+   * The number of cells along the longitude and along the latitude.
+   */
+  private final int cells;
+
+  /**
+   * The smallest longitude of a vertex.
+   */
+  private final double minLongitude;
+
+  /**
+   * The smallest latitude of a vertex.
+   */
+  private final double minLatitude;
+
+  /**
+   * The longitudes covered by a cell.
+   */
+  private final double cellWidth;
+
+  /**
+   * The latitudes covered by a cell.
+   */
+  private final double cellHeight;
+
+  /**
+   * The offset of the first vertex of each cell, row by row, followed by the number of indexed vertices.
+   */
+  private final int[] cellOffsets;
+
+  /**
+   * The identifiers of the indexed vertices, ordered by cell.
+   */
+  private final GradoopId[] ids;
+
+  /**
+   * The longitudes of the indexed vertices, ordered by cell.
+   */
+  private final double[] longitudes;
+
+  /**
+   * The latitudes of the indexed vertices, ordered by cell.
+   */
+  private final double[] latitudes;
+
+  /**
+   * Builds the grid.
+   *
+   * @param vertices the vertices to index
+   */
+  public SpatialIndex(List<TemporalVertex> vertices) {
+    int size = 0;
+    double[] vertexLongitudes = new double[vertices.size()];
+    double[] vertexLatitudes = new double[vertices.size()];
+    GradoopId[] vertexIds = new GradoopId[vertices.size()];
+    double maxLongitude = Double.NEGATIVE_INFINITY;
+    double maxLatitude = Double.NEGATIVE_INFINITY;
+    double west = Double.POSITIVE_INFINITY;
+    double south = Double.POSITIVE_INFINITY;
+    for (TemporalVertex vertex : vertices) {
+      double longitude = getCoordinate(vertex, "long");
+      double latitude = getCoordinate(vertex, "lat");
+      if (!Double.isNaN(longitude) && !Double.isNaN(latitude)) {
+        vertexLongitudes[size] = longitude;
+        vertexLatitudes[size] = latitude;
+        vertexIds[size++] = vertex.getId();
+        west = Math.min(west, longitude);
+        south = Math.min(south, latitude);
+        maxLongitude = Math.max(maxLongitude, longitude);
+        maxLatitude = Math.max(maxLatitude, latitude);
+      }
+    }
+    cells = Math.max(1, (int) Math.sqrt((double) size / VERTICES_PER_CELL));
+    minLongitude = west;
+    minLatitude = south;
+    cellWidth = Math.max((maxLongitude - west) / cells, Double.MIN_NORMAL);
+    cellHeight = Math.max((maxLatitude - south) / cells, Double.MIN_NORMAL);
+
+    // count the vertices per cell, then place them at the offsets of their cells
+    int[] vertexCells = new int[size];
+    cellOffsets = new int[cells * cells + 1];
+    for (int i = 0; i < size; i++) {
+      vertexCells[i] = getRow(vertexLatitudes[i]) * cells + getColumn(vertexLongitudes[i]);
+      cellOffsets[vertexCells[i] + 1]++;
+    }
+    for (int cell = 0; cell < cells * cells; cell++) {
+      cellOffsets[cell + 1] += cellOffsets[cell];
+    }
+    int[] next = new int[cells * cells];
+    ids = new GradoopId[size];
+    longitudes = new double[size];
+    latitudes = new double[size];
+    for (int i = 0; i < size; i++) {
+      int position = cellOffsets[vertexCells[i]] + next[vertexCells[i]]++;
+      ids[position] = vertexIds[i];
+      longitudes[position] = vertexLongitudes[i];
+      latitudes[position] = vertexLatitudes[i];
+    }
+  }
+
+  /**
+   * Returns the identifiers of all vertices inside the bounding box.
+   *
+   * @param box the bounding box
+   * @return the identifiers of the vertices
+   */
+  public Set<GradoopId> query(BoundingBox box) {
+    Set<GradoopId> result = new HashSet<>();
+    if (ids.length == 0 || box.getEast() < minLongitude || box.getNorth() < minLatitude) {
+      return result;
+    }
+    int lastColumn = getColumn(box.getEast());
+    int lastRow = getRow(box.getNorth());
+    for (int row = getRow(box.getSouth()); row <= lastRow; row++) {
+      for (int column = getColumn(box.getWest()); column <= lastColumn; column++) {
+        int cell = row * cells + column;
+        for (int i = cellOffsets[cell]; i < cellOffsets[cell + 1]; i++) {
+          if (box.contains(longitudes[i], latitudes[i])) {
+            result.add(ids[i]);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the column of the cells containing a longitude, points outside the grid are moved to its border.
+   *
+   * @param longitude the longitude
+   * @return the column
+   */
+  private int getColumn(double longitude) {
+    return (int) Math.max(0, Math.min(cells - 1, Math.floor((longitude - minLongitude) / cellWidth)));
+  }
+
+  /**
+   * Returns the row of the cells containing a latitude, points outside the grid are moved to its border.
+   *
+   * @param latitude the latitude
+   * @return the row
+   */
+  private int getRow(double latitude) {
+    return (int) Math.max(0, Math.min(cells - 1, Math.floor((latitude - minLatitude) / cellHeight)));
+  }
+
+  /**
+   * Returns a coordinate of a vertex, stored as double or as string property. This is the single rule for
+   * the coordinates of vertices, used by the index, the cluster pyramid and the rendered vertices.
+   *
+   * @param vertex the vertex
+   * @param key the property key of the coordinate
+   * @return the coordinate, {@link Double#NaN} if the property is missing or not a number
+   */
+  public static double getCoordinate(TemporalVertex vertex, String key) {
+    if (vertex.getProperties() == null || !vertex.hasProperty(key)) {
+      return Double.NaN;
+    }
+    PropertyValue value = vertex.getPropertyValue(key);
+    if (value.isDouble()) {
+      return value.getDouble();
+    } else if (value.isString()) {
+      try {
+        return Double.parseDouble(value.getString());
+      } catch (NumberFormatException e) {
+        return Double.NaN;
+      }
+    }
+    return Double.NaN;
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.index;
+
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.gradoop.temporal.model.api.TimeDimension;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * An index over the intervals of a list of temporal elements in one time dimension. The interval
+ * endpoints are kept in two sorted arrays, one ordered by interval start and one ordered by interval end.
+ * A query scans only the shorter of the two candidate ranges, i.e., the elements starting early enough or
+ * the elements ending late enough, and checks the remaining condition on these candidates.
+ *
+ * @param <E> the type of the indexed elements
+ */
+public class TemporalIntervalIndex<E extends TemporalElement> {
+
+  /**
+   * The indexed elements.
+   */
+  private final List<E> elements;
+
+  /**
+   * The interval starts in ascending order.
+   */
+  private final long[] sortedFroms;
+
+  /**
+   * The positions of the elements, ordered like {@link #sortedFroms}.
+   */
+  private final int[] byFrom;
+
+  /**
+   * The interval ends in ascending order.
+   */
+  private final long[] sortedTos;
+
+  /**
+   * The positions of the elements, ordered like {@link #sortedTos}.
+   */
+  private final int[] byTo;
+
+  /**
+   * The interval starts by element position.
+   */
+  private final long[] froms;
+
+  /**
+   * The interval ends by element position.
+   */
+  private final long[] tos;
+
+  /**
+   * Builds the index.
+   *
+   * @param elements the elements to index
+   * @param dimension the time dimension to index
+   */
+  public TemporalIntervalIndex(List<E> elements, TimeDimension dimension) {
+    this.elements = elements;
+    int size = elements.size();
+    froms = new long[size];
+    tos = new long[size];
+    for (int i = 0; i < size; i++) {
+      Tuple2<Long, Long> interval = elements.get(i).getTimeByDimension(dimension);
+      froms[i] = interval.f0;
+      tos[i] = interval.f1;
+    }
+    byFrom = sortedPositions(froms);
+    byTo = sortedPositions(tos);
+    sortedFroms = new long[size];
+    sortedTos = new long[size];
+    for (int i = 0; i < size; i++) {
+      sortedFroms[i] = froms[byFrom[i]];
+      sortedTos[i] = tos[byTo[i]];
+    }
+  }
+
+  /**
+   * Returns all elements whose interval satisfies the query, in the order of the indexed list.
+   *
+   * @param query the query
+   * @return the matching elements
+   */
+  public List<E> query(IntervalQuery query) {
+    if (query.isAll()) {
+      return elements;
+    }
+    int[] positions = matchingPositions(query);
+    Arrays.sort(positions);
+    List<E> result = new ArrayList<>(positions.length);
+    for (int position : positions) {
+      result.add(elements.get(position));
+    }
+    return result;
+  }
+
+  /**
+   * Returns all elements whose interval satisfies at least one of the queries, in the order of the indexed
+   * list.
+   *
+   * @param queries the queries
+   * @return the matching elements
+   */
+  public List<E> queryAny(IntervalQuery... queries) {
+    BitSet matching = new BitSet(elements.size());
+    for (IntervalQuery query : queries) {
+      if (query.isAll()) {
+        return elements;
+      }
+      for (int position : matchingPositions(query)) {
+        matching.set(position);
+      }
+    }
+    List<E> result = new ArrayList<>(matching.cardinality());
+    for (int position = matching.nextSetBit(0); position >= 0; position = matching.nextSetBit(position + 1)) {
+      result.add(elements.get(position));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of elements whose interval satisfies the query.
+   *
+   * @param query the query
+   * @return the number of matching elements
+   */
+  public int count(IntervalQuery query) {
+    return query.isAll() ? elements.size() : matchingPositions(query).length;
+  }
+
+  /**
+   * Returns the earliest interval bound other than the unbounded start and end of a temporal element.
+   *
+   * @return the earliest bound, {@link Long#MAX_VALUE} if there is none
+   */
+  public long getFirstBound() {
+    long first = Long.MAX_VALUE;
+    for (long[] sorted : Arrays.asList(sortedFroms, sortedTos)) {
+      for (long bound : sorted) {
+        if (bound != TemporalElement.DEFAULT_TIME_FROM && bound != TemporalElement.DEFAULT_TIME_TO) {
+          first = Math.min(first, bound);
+          break;
+        }
+      }
+    }
+    return first;
+  }
+
+  /**
+   * Returns the latest interval bound other than the unbounded start and end of a temporal element.
+   *
+   * @return the latest bound, {@link Long#MIN_VALUE} if there is none
+   */
+  public long getLastBound() {
+    long last = Long.MIN_VALUE;
+    for (long[] sorted : Arrays.asList(sortedFroms, sortedTos)) {
+      for (int i = sorted.length - 1; i >= 0; i--) {
+        if (sorted[i] != TemporalElement.DEFAULT_TIME_FROM && sorted[i] != TemporalElement.DEFAULT_TIME_TO) {
+          last = Math.max(last, sorted[i]);
+          break;
+        }
+      }
+    }
+    return last;
+  }
+
+  List<E> getElements() {
+    return elements;
+  }
+
+  long[] getSortedFroms() {
+    return sortedFroms;
+  }
+
+  int[] getByFrom() {
+    return byFrom;
+  }
+
+  long[] getSortedTos() {
+    return sortedTos;
+  }
+
+  int[] getByTo() {
+    return byTo;
+  }
+
+  long[] getFroms() {
+    return froms;
+  }
+
+  long[] getTos() {
+    return tos;
+  }
+
+  /**
+   * Returns the positions of all elements whose interval satisfies the query, in no particular order.
+   *
+   * @param query the query, not {@code all}
+   * @return the positions of the matching elements
+   */
+  private int[] matchingPositions(IntervalQuery query) {
+    // elements [0, startCandidates) of byFrom satisfy the condition on the interval start
+    int startCandidates = query.isFromInclusive() ?
+      upperBound(sortedFroms, query.getFromBound()) : lowerBound(sortedFroms, query.getFromBound());
+    // elements [endOffset, size) of byTo satisfy the condition on the interval end
+    int endOffset = upperBound(sortedTos, query.getToBound());
+
+    int[] result;
+    int count = 0;
+    if (startCandidates <= sortedTos.length - endOffset) {
+      result = new int[startCandidates];
+      for (int i = 0; i < startCandidates; i++) {
+        if (tos[byFrom[i]] > query.getToBound()) {
+          result[count++] = byFrom[i];
+        }
+      }
+    } else {
+      result = new int[sortedTos.length - endOffset];
+      for (int i = endOffset; i < sortedTos.length; i++) {
+        if (query.acceptsFrom(froms[byTo[i]])) {
+          result[count++] = byTo[i];
+        }
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Returns the element positions ordered by the given keys.
+   *
+   * @param keys the keys by element position
+   * @return the positions ordered by key
+   */
+  private static int[] sortedPositions(long[] keys) {
+    return IntStream.range(0, keys.length).boxed()
+      .sorted(Comparator.comparingLong(i -> keys[i]))
+      .mapToInt(Integer::intValue)
+      .toArray();
+  }
+
+  /**
+   * Returns the index of the first value that is greater than or equal to the key.
+   *
+   * @param sorted the values in ascending order
+   * @param key the key
+   * @return the index of the first value {@code >= key}
+   */
+  private static int lowerBound(long[] sorted, long key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first value that is greater than the key.
+   *
+   * @param sorted the values in ascending order
+   * @param key the key
+   * @return the index of the first value {@code > key}
+   */
+  static int upperBound(long[] sorted, long key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] <= key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.index;
+
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The versions of a list of temporal elements in one time dimension, for fast as-of queries. The elements
+ * valid at regular checkpoints along the time dimension are materialized as bit sets. The intervals of a
+ * {@link TemporalIntervalIndex}, sorted by start and by end, are the inserts and deletes between them. An
+ * as-of query starts from the nearest checkpoint before or after the requested time and applies only the
+ * inserts and deletes in between.
+ *
+ * @param <E> the type of the elements
+ */
+public class VersionStore<E extends TemporalElement> {
+
+  /**
+   * The index of the elements, answering all other queries.
+   */
+  private final TemporalIntervalIndex<E> index;
+
+  /**
+   * The times of the checkpoints in ascending order.
+   */
+  private final long[] times;
+
+  /**
+   * The number of intervals started at each checkpoint, i.e., the offset of its next insert.
+   */
+  private final int[] fromOffsets;
+
+  /**
+   * The number of intervals ended at each checkpoint, i.e., the offset of its next delete.
+   */
+  private final int[] toOffsets;
+
+  /**
+   * The positions of the elements valid at each checkpoint.
+   */
+  private final BitSet[] versions;
+
+  /**
+   * Builds the checkpoints by a single sweep over the inserts and deletes.
+   *
+   * @param index the index of the elements
+   * @param checkpoints the number of checkpoints, evenly spaced by the number of inserts and deletes
+   */
+  public VersionStore(TemporalIntervalIndex<E> index, int checkpoints) {
+    this.index = index;
+    long[] sortedFroms = index.getSortedFroms();
+    long[] sortedTos = index.getSortedTos();
+    int[] byFrom = index.getByFrom();
+    int[] byTo = index.getByTo();
+    long[] tos = index.getTos();
+    int size = sortedFroms.length;
+    long step = Math.max(1L, 2L * size / (checkpoints + 1));
+
+    List<Long> checkpointTimes = new ArrayList<>();
+    List<Integer> checkpointFroms = new ArrayList<>();
+    List<Integer> checkpointTos = new ArrayList<>();
+    List<BitSet> checkpointVersions = new ArrayList<>();
+    BitSet valid = new BitSet(size);
+    int from = 0;
+    int to = 0;
+    long next = step;
+    while (from + to < 2 * size && checkpointTimes.size() < checkpoints) {
+      // apply all inserts and deletes of the next point in time
+      long time = from < size && (to == size || sortedFroms[from] <= sortedTos[to]) ?
+        sortedFroms[from] : sortedTos[to];
+      for (; from < size && sortedFroms[from] <= time; from++) {
+        if (tos[byFrom[from]] > time) {
+          valid.set(byFrom[from]);
+        }
+      }
+      for (; to < size && sortedTos[to] <= time; to++) {
+        valid.clear(byTo[to]);
+      }
+      if (from + to >= next) {
+        checkpointTimes.add(time);
+        checkpointFroms.add(from);
+        checkpointTos.add(to);
+        checkpointVersions.add((BitSet) valid.clone());
+        next = from + to + step;
+      }
+    }
+    times = checkpointTimes.stream().mapToLong(Long::longValue).toArray();
+    fromOffsets = checkpointFroms.stream().mapToInt(Integer::intValue).toArray();
+    toOffsets = checkpointTos.stream().mapToInt(Integer::intValue).toArray();
+    versions = checkpointVersions.toArray(new BitSet[0]);
+  }
+
+  /**
+   * Returns all elements whose interval satisfies the query, in the order of the indexed list. As-of
+   * queries are answered from the checkpoints, all others by the index.
+   *
+   * @param query the query
+   * @return the matching elements
+   */
+  public List<E> query(IntervalQuery query) {
+    return query.isAsOf() ? asOf(query.getFromBound()) : index.query(query);
+  }
+
+  /**
+   * Returns all elements valid at a point in time, in the order of the indexed list.
+   *
+   * @param time the point in time
+   * @return the valid elements
+   */
+  public List<E> asOf(long time) {
+    long[] sortedFroms = index.getSortedFroms();
+    long[] sortedTos = index.getSortedTos();
+    int size = sortedFroms.length;
+    int fromEnd = TemporalIntervalIndex.upperBound(sortedFroms, time);
+    int toEnd = TemporalIntervalIndex.upperBound(sortedTos, time);
+
+    // start from the checkpoint with the fewest changes, unless the index scans fewer elements
+    int nearest = -1;
+    long nearestCost = Math.min(fromEnd, size - toEnd);
+    int before = TemporalIntervalIndex.upperBound(times, time) - 1;
+    for (int checkpoint = Math.max(0, before); checkpoint <= Math.min(before + 1, times.length - 1);
+      checkpoint++) {
+      long cost = Math.abs(fromOffsets[checkpoint] - fromEnd) + Math.abs(toOffsets[checkpoint] - toEnd) +
+        size / Long.SIZE;
+      if (cost < nearestCost) {
+        nearest = checkpoint;
+        nearestCost = cost;
+      }
+    }
+    if (nearest < 0) {
+      return index.query(IntervalQuery.asOf(time));
+    }
+
+    int[] byFrom = index.getByFrom();
+    int[] byTo = index.getByTo();
+    BitSet valid = (BitSet) versions[nearest].clone();
+    if (times[nearest] <= time) {
+      // insert the intervals started since the checkpoint and not yet ended, delete the ended ones
+      long[] tos = index.getTos();
+      for (int i = fromOffsets[nearest]; i < fromEnd; i++) {
+        if (tos[byFrom[i]] > time) {
+          valid.set(byFrom[i]);
+        }
+      }
+      for (int i = toOffsets[nearest]; i < toEnd; i++) {
+        valid.clear(byTo[i]);
+      }
+    } else {
+      // undo the inserts after the requested time, restore the intervals ended after it
+      long[] froms = index.getFroms();
+      for (int i = fromEnd; i < fromOffsets[nearest]; i++) {
+        valid.clear(byFrom[i]);
+      }
+      for (int i = toEnd; i < toOffsets[nearest]; i++) {
+        if (froms[byTo[i]] <= time) {
+          valid.set(byTo[i]);
+        }
+      }
+    }
+
+    List<E> elements = index.getElements();
+    List<E> result = new ArrayList<>(valid.cardinality());
+    for (int position = valid.nextSetBit(0); position >= 0; position = valid.nextSetBit(position + 1)) {
+      result.add(elements.get(position));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the as-of snapshots at evenly spaced points in time. Only the first snapshot is queried, the
+   * changes up to each further point are taken from a single sweep over the inserts and deletes after it.
+   *
+   * @param start the first point in time
+   * @param step the distance between two points in time, positive
+   * @param steps the number of points in time after the first one
+   * @return the sequence of snapshots
+   */
+  public SnapshotSequence<E> sweep(long start, long step, int steps) {
+    long[] sortedFroms = index.getSortedFroms();
+    long[] sortedTos = index.getSortedTos();
+    int[] byFrom = index.getByFrom();
+    int[] byTo = index.getByTo();
+    long[] froms = index.getFroms();
+    long[] tos = index.getTos();
+    List<E> elements = index.getElements();
+    int size = sortedFroms.length;
+
+    long[] times = new long[steps + 1];
+    List<List<E>> added = new ArrayList<>(steps);
+    List<List<E>> removed = new ArrayList<>(steps);
+    times[0] = start;
+    int from = TemporalIntervalIndex.upperBound(sortedFroms, start);
+    int to = TemporalIntervalIndex.upperBound(sortedTos, start);
+    for (int i = 1; i <= steps; i++) {
+      long previous = times[i - 1];
+      long time = start + i * step;
+      times[i] = time;
+      // intervals started since the previous point are added unless they ended already
+      List<E> inserts = new ArrayList<>();
+      for (; from < size && sortedFroms[from] <= time; from++) {
+        if (tos[byFrom[from]] > time) {
+          inserts.add(elements.get(byFrom[from]));
+        }
+      }
+      // intervals ended since the previous point are removed if they were valid at it
+      List<E> deletes = new ArrayList<>();
+      for (; to < size && sortedTos[to] <= time; to++) {
+        if (froms[byTo[to]] <= previous) {
+          deletes.add(elements.get(byTo[to]));
+        }
+      }
+      added.add(inserts);
+      removed.add(deletes);
+    }
+    return new SnapshotSequence<>(times, asOf(start), added, removed);
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.io;
+
+import org.apache.flink.api.java.ExecutionEnvironment;
+import org.gradoop.temporal.io.impl.csv.TemporalCSVDataSource;
+import org.gradoop.temporal.util.TemporalGradoopConfig;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * Converts datasets from the temporal CSV format to the {@link BinaryGraphFormat}. The binary files are
+ * written next to the CSV files, where the server prefers them over the CSV files.
+ *
+ * Usage: {@code BinaryGraphConverter <dataset directory>... } or {@code BinaryGraphConverter -all <data
+ * directory>} to convert every dataset below the data directory.
+ */
+public class BinaryGraphConverter {
+
+  /**
+   * Converts the given datasets.
+   *
+   * @param args the dataset directories or {@code -all} followed by the data directory
+   * @throws Exception if the conversion fails
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0 || (args[0].equals("-all") && args.length != 2)) {
+      System.err.println("Usage: BinaryGraphConverter <dataset directory>... | -all <data directory>");
+      System.exit(1);
+    }
+
+    ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+    TemporalGradoopConfig config = TemporalGradoopConfig.createConfig(env);
+
+    if (args[0].equals("-all")) {
+      for (File dataset : Objects.requireNonNull(new File(args[1]).listFiles(File::isDirectory))) {
+        convert(dataset.getPath(), config);
+      }
+    } else {
+      for (String dataset : args) {
+        convert(dataset, config);
+      }
+    }
+  }
+
+  /**
+   * Converts a single dataset, overwriting existing binary files.
+   *
+   * @param path the directory of the dataset
+   * @param config the gradoop config
+   * @throws Exception if the conversion fails
+   */
+  public static void convert(String path, TemporalGradoopConfig config) throws Exception {
+    long start = System.currentTimeMillis();
+    new BinaryGraphSink(path, config).write(new TemporalCSVDataSource(path, config).getTemporalGraph(), true);
+    System.out.println(String.format("Converted %s in %d ms", path, System.currentTimeMillis() - start));
+  }
+}
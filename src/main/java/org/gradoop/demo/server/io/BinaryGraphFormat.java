@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.io;
+
+import java.io.File;
+
+/**
+ * Constants of the binary columnar graph format. A graph is stored as three files, one for the graph heads,
+ * one for the vertices and one for the edges. Each file starts with a header (magic number, version, element
+ * kind and element count) followed by the deflate compressed columns, one after the other:
+ *
+ * <ol>
+ *   <li>the ids, 12 bytes each</li>
+ *   <li>the labels, as dictionary followed by one dictionary code per element</li>
+ *   <li>the graph ids of vertices and edges, as set sizes followed by the ids</li>
+ *   <li>the source and target ids of edges</li>
+ *   <li>the transaction and valid time intervals, as four primitive long columns</li>
+ *   <li>the properties, as presence bitmap followed by one typed column per property key</li>
+ * </ol>
+ */
+public final class BinaryGraphFormat {
+
+  /**
+   * Filename of the graph heads.
+   */
+  public static final String GRAPH_HEADS_FILE = "graphs.tgb";
+
+  /**
+   * Filename of the vertices.
+   */
+  public static final String VERTICES_FILE = "vertices.tgb";
+
+  /**
+   * Filename of the edges.
+   */
+  public static final String EDGES_FILE = "edges.tgb";
+
+  /**
+   * Magic number at the start of each file.
+   */
+  static final int MAGIC = 0x54474231;
+
+  /**
+   * Version of the format.
+   */
+  static final byte VERSION = 1;
+
+  /**
+   * Element kinds.
+   */
+  static final byte KIND_GRAPH_HEAD = 0;
+  static final byte KIND_VERTEX = 1;
+  static final byte KIND_EDGE = 2;
+
+  /**
+   * Encodings of property columns. All values of a primitive column have the same type, other columns store
+   * the serialized property values.
+   */
+  static final byte TYPE_BOOLEAN = 0;
+  static final byte TYPE_SHORT = 1;
+  static final byte TYPE_INT = 2;
+  static final byte TYPE_LONG = 3;
+  static final byte TYPE_FLOAT = 4;
+  static final byte TYPE_DOUBLE = 5;
+  static final byte TYPE_STRING = 6;
+  static final byte TYPE_STRING_DICTIONARY = 7;
+  static final byte TYPE_RAW = 8;
+
+  /**
+   * Buffer size of the file streams.
+   */
+  static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * No instances.
+   */
+  private BinaryGraphFormat() {
+  }
+
+  /**
+   * Checks if the given directory contains a graph in the binary format.
+   *
+   * @param directory the directory to check
+   * @return true, if all files of the format exist
+   */
+  public static boolean exists(File directory) {
+    return new File(directory, GRAPH_HEADS_FILE).isFile() && new File(directory, VERTICES_FILE).isFile() &&
+      new File(directory, EDGES_FILE).isFile();
+  }
+
+  /**
+   * Checks if the given directory contains a graph in the binary format that is at least as new as the CSV
+   * files it was converted from.
+   *
+   * @param directory the directory to check
+   * @return true, if all files of the format exist and no CSV file was modified after them
+   */
+  public static boolean isCurrent(File directory) {
+    if (!exists(directory)) {
+      return false;
+    }
+    long converted = Math.min(new File(directory, GRAPH_HEADS_FILE).lastModified(),
+      Math.min(new File(directory, VERTICES_FILE).lastModified(), new File(directory, EDGES_FILE).lastModified()));
+    File[] csvFiles = directory.listFiles((dir, name) -> name.endsWith(".csv"));
+    if (csvFiles != null) {
+      for (File csvFile : csvFiles) {
+        if (csvFile.lastModified() > converted) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.io;
+
+import org.apache.flink.api.java.DataSet;
+import org.apache.flink.api.java.io.LocalCollectionOutputFormat;
+import org.gradoop.temporal.io.api.TemporalDataSink;
+import org.gradoop.temporal.model.impl.TemporalGraph;
+import org.gradoop.temporal.model.impl.TemporalGraphCollection;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+import org.gradoop.temporal.model.impl.pojo.TemporalGraphHead;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+import org.gradoop.temporal.util.TemporalGradoopConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a temporal graph in the {@link BinaryGraphFormat}. The graph is collected to the client and written
+ * by a single writer, so this sink is meant for graphs that fit into memory.
+ */
+public class BinaryGraphSink implements TemporalDataSink {
+
+  /**
+   * The directory to write the graph to.
+   */
+  private final File directory;
+
+  /**
+   * The gradoop config.
+   */
+  private final TemporalGradoopConfig config;
+
+  /**
+   * Creates a new data sink.
+   *
+   * @param path the directory to write the graph to
+   * @param config the gradoop config
+   */
+  public BinaryGraphSink(String path, TemporalGradoopConfig config) {
+    this.directory = new File(path);
+    this.config = config;
+  }
+
+  @Override
+  public void write(TemporalGraph graph) throws IOException {
+    write(graph, false);
+  }
+
+  @Override
+  public void write(TemporalGraphCollection collection) throws IOException {
+    write(collection, false);
+  }
+
+  @Override
+  public void write(TemporalGraph graph, boolean overwrite) throws IOException {
+    write(graph.getGraphHead(), graph.getVertices(), graph.getEdges(), overwrite);
+  }
+
+  @Override
+  public void write(TemporalGraphCollection collection, boolean overwrite) throws IOException {
+    write(collection.getGraphHeads(), collection.getVertices(), collection.getEdges(), overwrite);
+  }
+
+  /**
+   * Collects the given data sets in a single job and writes them.
+   *
+   * @param graphHeads the graph heads
+   * @param vertices the vertices
+   * @param edges the edges
+   * @param overwrite true, if an existing graph should be overwritten
+   * @throws IOException if the job or writing fails
+   */
+  private void write(DataSet<TemporalGraphHead> graphHeads, DataSet<TemporalVertex> vertices,
+    DataSet<TemporalEdge> edges, boolean overwrite) throws IOException {
+    List<TemporalGraphHead> graphHeadList = new ArrayList<>();
+    List<TemporalVertex> vertexList = new ArrayList<>();
+    List<TemporalEdge> edgeList = new ArrayList<>();
+    graphHeads.output(new LocalCollectionOutputFormat<>(graphHeadList));
+    vertices.output(new LocalCollectionOutputFormat<>(vertexList));
+    edges.output(new LocalCollectionOutputFormat<>(edgeList));
+    try {
+      config.getExecutionEnvironment().execute();
+    } catch (Exception e) {
+      throw new IOException("Collecting the graph failed.", e);
+    }
+    write(graphHeadList, vertexList, edgeList, overwrite);
+  }
+
+  /**
+   * Writes the given elements.
+   *
+   * @param graphHeads the graph heads
+   * @param vertices the vertices
+   * @param edges the edges
+   * @param overwrite true, if an existing graph should be overwritten
+   * @throws IOException if writing fails or a graph exists and should not be overwritten
+   */
+  public void write(List<TemporalGraphHead> graphHeads, List<TemporalVertex> vertices, List<TemporalEdge> edges,
+    boolean overwrite) throws IOException {
+    if (!overwrite && BinaryGraphFormat.exists(directory)) {
+      throw new IOException("A binary graph already exists in " + directory);
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Can not create directory " + directory);
+    }
+
+    // the files are written to temporary files first, so an interrupted conversion leaves no truncated files
+    File graphHeadFile = File.createTempFile(BinaryGraphFormat.GRAPH_HEADS_FILE, ".tmp", directory);
+    File vertexFile = File.createTempFile(BinaryGraphFormat.VERTICES_FILE, ".tmp", directory);
+    File edgeFile = File.createTempFile(BinaryGraphFormat.EDGES_FILE, ".tmp", directory);
+    try {
+      try (ColumnWriter out = new ColumnWriter(graphHeadFile, BinaryGraphFormat.KIND_GRAPH_HEAD,
+        graphHeads.size())) {
+        out.writeIds(graphHeads, TemporalGraphHead::getId);
+        out.writeLabels(graphHeads);
+        writeIntervalsAndProperties(out, graphHeads);
+      }
+
+      try (ColumnWriter out = new ColumnWriter(vertexFile, BinaryGraphFormat.KIND_VERTEX, vertices.size())) {
+        out.writeIds(vertices, TemporalVertex::getId);
+        out.writeLabels(vertices);
+        out.writeIdSets(vertices, TemporalVertex::getGraphIds);
+        writeIntervalsAndProperties(out, vertices);
+      }
+
+      try (ColumnWriter out = new ColumnWriter(edgeFile, BinaryGraphFormat.KIND_EDGE, edges.size())) {
+        out.writeIds(edges, TemporalEdge::getId);
+        out.writeLabels(edges);
+        out.writeIdSets(edges, TemporalEdge::getGraphIds);
+        out.writeIds(edges, TemporalEdge::getSourceId);
+        out.writeIds(edges, TemporalEdge::getTargetId);
+        writeIntervalsAndProperties(out, edges);
+      }
+
+      moveIntoPlace(graphHeadFile, BinaryGraphFormat.GRAPH_HEADS_FILE);
+      moveIntoPlace(vertexFile, BinaryGraphFormat.VERTICES_FILE);
+      moveIntoPlace(edgeFile, BinaryGraphFormat.EDGES_FILE);
+    } finally {
+      Files.deleteIfExists(graphHeadFile.toPath());
+      Files.deleteIfExists(vertexFile.toPath());
+      Files.deleteIfExists(edgeFile.toPath());
+    }
+  }
+
+  /**
+   * Replaces a file of the graph by a completely written temporary file.
+   *
+   * @param temporary the temporary file
+   * @param name the name of the file of the graph
+   * @throws IOException if moving fails
+   */
+  private void moveIntoPlace(File temporary, String name) throws IOException {
+    Files.move(temporary.toPath(), new File(directory, name).toPath(), StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Writes the interval and property columns of the given elements.
+   *
+   * @param out the writer
+   * @param elements the elements
+   * @param <E> the element type
+   * @throws IOException if writing fails
+   */
+  private static <E extends TemporalElement> void writeIntervalsAndProperties(ColumnWriter out,
+    List<E> elements) throws IOException {
+    out.writeIntervals(elements);
+    out.writeProperties(elements);
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.io;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.DataSet;
+import org.apache.flink.api.java.ExecutionEnvironment;
+import org.gradoop.common.model.impl.id.GradoopId;
+import org.gradoop.common.model.impl.id.GradoopIdSet;
+import org.gradoop.common.model.impl.properties.Properties;
+import org.gradoop.temporal.io.api.TemporalDataSource;
+import org.gradoop.temporal.model.impl.TemporalGraph;
+import org.gradoop.temporal.model.impl.TemporalGraphCollection;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+import org.gradoop.temporal.model.impl.pojo.TemporalGraphHead;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+import org.gradoop.temporal.util.TemporalGradoopConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a temporal graph stored in the {@link BinaryGraphFormat}. The files are read directly into memory,
+ * without parsing and without a Flink job.
+ */
+public class BinaryGraphSource implements TemporalDataSource {
+
+  /**
+   * The directory containing the graph.
+   */
+  private final File directory;
+
+  /**
+   * The gradoop config.
+   */
+  private final TemporalGradoopConfig config;
+
+  /**
+   * Creates a new data source.
+   *
+   * @param path the directory containing the graph
+   * @param config the gradoop config
+   */
+  public BinaryGraphSource(String path, TemporalGradoopConfig config) {
+    this.directory = new File(path);
+    this.config = config;
+  }
+
+  @Override
+  public TemporalGraph getTemporalGraph() throws IOException {
+    return config.getTemporalGraphFactory()
+      .fromDataSets(getGraphHeadDataSet(), getVertexDataSet(), getEdgeDataSet());
+  }
+
+  @Override
+  public TemporalGraphCollection getTemporalGraphCollection() throws IOException {
+    return config.getTemporalGraphCollectionFactory()
+      .fromDataSets(getGraphHeadDataSet(), getVertexDataSet(), getEdgeDataSet());
+  }
+
+  /**
+   * Reads the graph heads.
+   *
+   * @return the graph heads
+   * @throws IOException if reading fails
+   */
+  public List<TemporalGraphHead> readGraphHeads() throws IOException {
+    try (ColumnReader in = new ColumnReader(
+      new File(directory, BinaryGraphFormat.GRAPH_HEADS_FILE), BinaryGraphFormat.KIND_GRAPH_HEAD)) {
+      GradoopId[] ids = in.readIds();
+      String[] labels = in.readLabels();
+      List<TemporalGraphHead> graphHeads = new ArrayList<>(in.getCount());
+      for (int i = 0; i < in.getCount(); i++) {
+        graphHeads.add(new TemporalGraphHead(ids[i], labels[i], null,
+          TemporalElement.DEFAULT_TIME_FROM, TemporalElement.DEFAULT_TIME_TO));
+      }
+      readIntervalsAndProperties(in, graphHeads);
+      return graphHeads;
+    }
+  }
+
+  /**
+   * Reads the vertices.
+   *
+   * @return the vertices
+   * @throws IOException if reading fails
+   */
+  public List<TemporalVertex> readVertices() throws IOException {
+    try (ColumnReader in = new ColumnReader(
+      new File(directory, BinaryGraphFormat.VERTICES_FILE), BinaryGraphFormat.KIND_VERTEX)) {
+      GradoopId[] ids = in.readIds();
+      String[] labels = in.readLabels();
+      GradoopIdSet[] graphIds = in.readIdSets();
+      List<TemporalVertex> vertices = new ArrayList<>(in.getCount());
+      for (int i = 0; i < in.getCount(); i++) {
+        vertices.add(new TemporalVertex(ids[i], labels[i], null, graphIds[i],
+          TemporalElement.DEFAULT_TIME_FROM, TemporalElement.DEFAULT_TIME_TO));
+      }
+      readIntervalsAndProperties(in, vertices);
+      return vertices;
+    }
+  }
+
+  /**
+   * Reads the edges.
+   *
+   * @return the edges
+   * @throws IOException if reading fails
+   */
+  public List<TemporalEdge> readEdges() throws IOException {
+    try (ColumnReader in = new ColumnReader(
+      new File(directory, BinaryGraphFormat.EDGES_FILE), BinaryGraphFormat.KIND_EDGE)) {
+      GradoopId[] ids = in.readIds();
+      String[] labels = in.readLabels();
+      GradoopIdSet[] graphIds = in.readIdSets();
+      GradoopId[] sourceIds = in.readIds();
+      GradoopId[] targetIds = in.readIds();
+      List<TemporalEdge> edges = new ArrayList<>(in.getCount());
+      for (int i = 0; i < in.getCount(); i++) {
+        edges.add(new TemporalEdge(ids[i], labels[i], sourceIds[i], targetIds[i], null, graphIds[i],
+          TemporalElement.DEFAULT_TIME_FROM, TemporalElement.DEFAULT_TIME_TO));
+      }
+      readIntervalsAndProperties(in, edges);
+      return edges;
+    }
+  }
+
+  /**
+   * Reads the interval and property columns into the given elements.
+   *
+   * @param in the reader positioned at the interval columns
+   * @param elements the elements to update
+   * @param <E> the element type
+   * @throws IOException if reading fails
+   */
+  private static <E extends TemporalElement> void readIntervalsAndProperties(ColumnReader in,
+    List<E> elements) throws IOException {
+    long[] txFroms = in.readTimes();
+    long[] txTos = in.readTimes();
+    long[] validFroms = in.readTimes();
+    long[] validTos = in.readTimes();
+    Properties[] properties = in.readProperties();
+    for (int i = 0; i < elements.size(); i++) {
+      E element = elements.get(i);
+      element.setTxFrom(txFroms[i]);
+      element.setTxTo(txTos[i]);
+      element.setValidFrom(validFroms[i]);
+      element.setValidTo(validTos[i]);
+      element.setProperties(properties[i]);
+    }
+  }
+
+  /**
+   * Reads the graph heads into a data set.
+   *
+   * @return the graph heads
+   * @throws IOException if reading fails
+   */
+  private DataSet<TemporalGraphHead> getGraphHeadDataSet() throws IOException {
+    return getEnvironment().fromCollection(readGraphHeads(), TypeInformation.of(TemporalGraphHead.class));
+  }
+
+  /**
+   * Reads the vertices into a data set.
+   *
+   * @return the vertices
+   * @throws IOException if reading fails
+   */
+  private DataSet<TemporalVertex> getVertexDataSet() throws IOException {
+    return getEnvironment().fromCollection(readVertices(), TypeInformation.of(TemporalVertex.class));
+  }
+
+  /**
+   * Reads the edges into a data set.
+   *
+   * @return the edges
+   * @throws IOException if reading fails
+   */
+  private DataSet<TemporalEdge> getEdgeDataSet() throws IOException {
+    return getEnvironment().fromCollection(readEdges(), TypeInformation.of(TemporalEdge.class));
+  }
+
+  private ExecutionEnvironment getEnvironment() {
+    return config.getExecutionEnvironment();
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.io;
+
+import org.gradoop.common.model.impl.id.GradoopId;
+import org.gradoop.common.model.impl.id.GradoopIdSet;
+import org.gradoop.common.model.impl.properties.Properties;
+import org.gradoop.common.model.impl.properties.PropertyValue;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads the columns of one element file of the {@link BinaryGraphFormat}. The columns have to be read in the
+ * order they were written.
+ */
+class ColumnReader implements Closeable {
+
+  /**
+   * The input stream.
+   */
+  private final DataInputStream in;
+
+  /**
+   * The decompressor of the columns.
+   */
+  private final Inflater inflater;
+
+  /**
+   * The number of elements.
+   */
+  private final int count;
+
+  /**
+   * Opens the file and checks its header.
+   *
+   * @param file the file to read
+   * @param kind the expected element kind
+   * @throws IOException if reading fails or the file is not of the expected kind
+   */
+  ColumnReader(File file, byte kind) throws IOException {
+    FileInputStream stream = new FileInputStream(file);
+    try {
+      DataInputStream header = new DataInputStream(stream);
+      if (header.readInt() != BinaryGraphFormat.MAGIC || header.readByte() != BinaryGraphFormat.VERSION ||
+        header.readByte() != kind) {
+        throw new IOException("Not a binary graph file of the expected kind: " + file);
+      }
+      this.count = header.readInt();
+    } catch (IOException e) {
+      stream.close();
+      throw e;
+    }
+    this.inflater = new Inflater();
+    this.in = new DataInputStream(new BufferedInputStream(
+      new InflaterInputStream(stream, inflater, BinaryGraphFormat.BUFFER_SIZE), BinaryGraphFormat.BUFFER_SIZE));
+  }
+
+  int getCount() {
+    return count;
+  }
+
+  /**
+   * Reads a column of ids.
+   *
+   * @return the id of each element
+   * @throws IOException if reading fails
+   */
+  GradoopId[] readIds() throws IOException {
+    GradoopId[] ids = new GradoopId[count];
+    for (int i = 0; i < count; i++) {
+      ids[i] = readId();
+    }
+    return ids;
+  }
+
+  /**
+   * Reads a column of id sets.
+   *
+   * @return the id set of each element
+   * @throws IOException if reading fails
+   */
+  GradoopIdSet[] readIdSets() throws IOException {
+    int[] sizes = new int[count];
+    for (int i = 0; i < count; i++) {
+      sizes[i] = in.readInt();
+    }
+    GradoopIdSet[] idSets = new GradoopIdSet[count];
+    for (int i = 0; i < count; i++) {
+      idSets[i] = new GradoopIdSet();
+      for (int j = 0; j < sizes[i]; j++) {
+        idSets[i].add(readId());
+      }
+    }
+    return idSets;
+  }
+
+  /**
+   * Reads the dictionary encoded labels. Equal labels share the same string instance.
+   *
+   * @return the label of each element
+   * @throws IOException if reading fails
+   */
+  String[] readLabels() throws IOException {
+    String[] dictionary = new String[in.readInt()];
+    for (int i = 0; i < dictionary.length; i++) {
+      dictionary[i] = readString();
+    }
+    String[] labels = new String[count];
+    for (int i = 0; i < count; i++) {
+      labels[i] = dictionary[in.readInt()];
+    }
+    return labels;
+  }
+
+  /**
+   * Reads a primitive column of interval bounds.
+   *
+   * @return the interval bound of each element
+   * @throws IOException if reading fails
+   */
+  long[] readTimes() throws IOException {
+    long[] times = new long[count];
+    for (int i = 0; i < count; i++) {
+      times[i] = in.readLong();
+    }
+    return times;
+  }
+
+  /**
+   * Reads the properties.
+   *
+   * @return the properties of each element, {@code null} for elements without properties
+   * @throws IOException if reading fails
+   */
+  Properties[] readProperties() throws IOException {
+    long[] hasProperties = readBitmap();
+    Properties[] properties = new Properties[count];
+    for (int i = 0; i < count; i++) {
+      if (isSet(hasProperties, i)) {
+        properties[i] = Properties.create();
+      }
+    }
+
+    int keyCount = in.readInt();
+    for (int k = 0; k < keyCount; k++) {
+      String key = readString();
+      byte type = in.readByte();
+      long[] present = readBitmap();
+      String[] dictionary = null;
+      if (type == BinaryGraphFormat.TYPE_STRING_DICTIONARY) {
+        dictionary = new String[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+          dictionary[i] = readString();
+        }
+      }
+      for (int i = 0; i < count; i++) {
+        if (isSet(present, i)) {
+          properties[i].set(key, readValue(type, dictionary));
+        }
+      }
+    }
+    return properties;
+  }
+
+  /**
+   * Reads a single property value.
+   *
+   * @param type the encoding of the column
+   * @param dictionary the string dictionary of the column, if it is dictionary encoded
+   * @return the property value
+   * @throws IOException if reading fails
+   */
+  private PropertyValue readValue(byte type, String[] dictionary) throws IOException {
+    switch (type) {
+    case BinaryGraphFormat.TYPE_BOOLEAN:
+      return PropertyValue.create(in.readBoolean());
+    case BinaryGraphFormat.TYPE_SHORT:
+      return PropertyValue.create(in.readShort());
+    case BinaryGraphFormat.TYPE_INT:
+      return PropertyValue.create(in.readInt());
+    case BinaryGraphFormat.TYPE_LONG:
+      return PropertyValue.create(in.readLong());
+    case BinaryGraphFormat.TYPE_FLOAT:
+      return PropertyValue.create(in.readFloat());
+    case BinaryGraphFormat.TYPE_DOUBLE:
+      return PropertyValue.create(in.readDouble());
+    case BinaryGraphFormat.TYPE_STRING:
+      return PropertyValue.create(readString());
+    case BinaryGraphFormat.TYPE_STRING_DICTIONARY:
+      return PropertyValue.create(dictionary[in.readInt()]);
+    case BinaryGraphFormat.TYPE_RAW:
+      byte[] raw = new byte[in.readInt()];
+      in.readFully(raw);
+      return PropertyValue.fromRawBytes(raw);
+    default:
+      throw new IOException("Unknown property column type: " + type);
+    }
+  }
+
+  /**
+   * Reads a single id.
+   *
+   * @return the id
+   * @throws IOException if reading fails
+   */
+  private GradoopId readId() throws IOException {
+    byte[] bytes = new byte[GradoopId.ID_SIZE];
+    in.readFully(bytes);
+    return GradoopId.fromByteArray(bytes);
+  }
+
+  /**
+   * Reads a UTF-8 string written by {@link ColumnWriter}.
+   *
+   * @return the string
+   * @throws IOException if reading fails
+   */
+  private String readString() throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a bitmap with one bit per element.
+   *
+   * @return the bitmap
+   * @throws IOException if reading fails
+   */
+  private long[] readBitmap() throws IOException {
+    long[] bitmap = new long[ColumnWriter.bitmapLength(count)];
+    for (int i = 0; i < bitmap.length; i++) {
+      bitmap[i] = in.readLong();
+    }
+    return bitmap;
+  }
+
+  /**
+   * Checks if a bit of a bitmap is set.
+   *
+   * @param bitmap the bitmap
+   * @param bit the bit to check
+   * @return true, if the bit is set
+   */
+  private static boolean isSet(long[] bitmap, int bit) {
+    return (bitmap[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      in.close();
+    } finally {
+      inflater.end();
+    }
+  }
+}
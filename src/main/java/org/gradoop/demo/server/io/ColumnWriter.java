@@ -0,0 +1,362 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.io;
+
+import org.gradoop.common.model.impl.id.GradoopId;
+import org.gradoop.common.model.impl.id.GradoopIdSet;
+import org.gradoop.common.model.impl.properties.Properties;
+import org.gradoop.common.model.impl.properties.Property;
+import org.gradoop.common.model.impl.properties.PropertyValue;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes the columns of one element file of the {@link BinaryGraphFormat}.
+ */
+class ColumnWriter implements Closeable {
+
+  /**
+   * The output stream.
+   */
+  private final DataOutputStream out;
+
+  /**
+   * The compressor of the columns.
+   */
+  private final Deflater deflater;
+
+  /**
+   * The number of elements.
+   */
+  private final int count;
+
+  /**
+   * Creates the file and writes its header. The columns following the header are compressed.
+   *
+   * @param file the file to write
+   * @param kind the element kind
+   * @param count the number of elements
+   * @throws IOException if writing fails
+   */
+  ColumnWriter(File file, byte kind, int count) throws IOException {
+    FileOutputStream stream = new FileOutputStream(file);
+    DataOutputStream header = new DataOutputStream(stream);
+    header.writeInt(BinaryGraphFormat.MAGIC);
+    header.writeByte(BinaryGraphFormat.VERSION);
+    header.writeByte(kind);
+    header.writeInt(count);
+    this.count = count;
+    this.deflater = new Deflater(Deflater.BEST_SPEED);
+    this.out = new DataOutputStream(new BufferedOutputStream(
+      new DeflaterOutputStream(stream, deflater, BinaryGraphFormat.BUFFER_SIZE), BinaryGraphFormat.BUFFER_SIZE));
+  }
+
+  /**
+   * Writes a column of ids.
+   *
+   * @param elements the elements
+   * @param id the id to write per element
+   * @param <E> the element type
+   * @throws IOException if writing fails
+   */
+  <E> void writeIds(List<E> elements, Function<E, GradoopId> id) throws IOException {
+    for (E element : elements) {
+      out.write(id.apply(element).toByteArray());
+    }
+  }
+
+  /**
+   * Writes a column of id sets.
+   *
+   * @param elements the elements
+   * @param idSet the id set to write per element
+   * @param <E> the element type
+   * @throws IOException if writing fails
+   */
+  <E> void writeIdSets(List<E> elements, Function<E, GradoopIdSet> idSet) throws IOException {
+    for (E element : elements) {
+      GradoopIdSet ids = idSet.apply(element);
+      out.writeInt(ids == null ? 0 : ids.size());
+    }
+    for (E element : elements) {
+      GradoopIdSet ids = idSet.apply(element);
+      if (ids != null) {
+        for (GradoopId id : ids) {
+          out.write(id.toByteArray());
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the labels as dictionary followed by one dictionary code per element.
+   *
+   * @param elements the elements
+   * @param <E> the element type
+   * @throws IOException if writing fails
+   */
+  <E extends TemporalElement> void writeLabels(List<E> elements) throws IOException {
+    Map<String, Integer> dictionary = new LinkedHashMap<>();
+    int[] codes = new int[count];
+    for (int i = 0; i < count; i++) {
+      codes[i] = dictionary.computeIfAbsent(elements.get(i).getLabel(), l -> dictionary.size());
+    }
+    out.writeInt(dictionary.size());
+    for (String label : dictionary.keySet()) {
+      writeString(label);
+    }
+    for (int code : codes) {
+      out.writeInt(code);
+    }
+  }
+
+  /**
+   * Writes the transaction and valid time intervals as four primitive columns.
+   *
+   * @param elements the elements
+   * @param <E> the element type
+   * @throws IOException if writing fails
+   */
+  <E extends TemporalElement> void writeIntervals(List<E> elements) throws IOException {
+    for (E element : elements) {
+      out.writeLong(element.getTxFrom());
+    }
+    for (E element : elements) {
+      out.writeLong(element.getTxTo());
+    }
+    for (E element : elements) {
+      out.writeLong(element.getValidFrom());
+    }
+    for (E element : elements) {
+      out.writeLong(element.getValidTo());
+    }
+  }
+
+  /**
+   * Writes the properties. A bitmap marks the elements that have properties at all, followed by the number
+   * of property keys and one column per key. Each column consists of the key, its encoding, a bitmap of the
+   * elements having the property and the values of these elements.
+   *
+   * @param elements the elements
+   * @param <E> the element type
+   * @throws IOException if writing fails
+   */
+  <E extends TemporalElement> void writeProperties(List<E> elements) throws IOException {
+    long[] hasProperties = new long[bitmapLength(count)];
+    Map<String, Byte> keys = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      Properties properties = elements.get(i).getProperties();
+      if (properties == null) {
+        continue;
+      }
+      set(hasProperties, i);
+      for (Property property : properties) {
+        byte type = getType(property.getValue());
+        keys.merge(property.getKey(), type, (a, b) -> a.equals(b) ? a : BinaryGraphFormat.TYPE_RAW);
+      }
+    }
+    writeBitmap(hasProperties);
+
+    out.writeInt(keys.size());
+    for (Map.Entry<String, Byte> key : keys.entrySet()) {
+      writePropertyColumn(elements, key.getKey(), key.getValue());
+    }
+  }
+
+  /**
+   * Writes the column of a single property key.
+   *
+   * @param elements the elements
+   * @param key the property key
+   * @param type the type of all values of the key
+   * @param <E> the element type
+   * @throws IOException if writing fails
+   */
+  private <E extends TemporalElement> void writePropertyColumn(List<E> elements, String key, byte type)
+    throws IOException {
+    PropertyValue[] values = new PropertyValue[count];
+    long[] present = new long[bitmapLength(count)];
+    int presentCount = 0;
+    Map<String, Integer> dictionary = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      Properties properties = elements.get(i).getProperties();
+      PropertyValue value = properties == null ? null : properties.get(key);
+      if (value != null) {
+        values[i] = value;
+        set(present, i);
+        presentCount++;
+        if (type == BinaryGraphFormat.TYPE_STRING) {
+          dictionary.putIfAbsent(value.getString(), dictionary.size());
+        }
+      }
+    }
+    // dictionary encode strings with many repetitions
+    if (type == BinaryGraphFormat.TYPE_STRING && dictionary.size() * 2 <= presentCount) {
+      type = BinaryGraphFormat.TYPE_STRING_DICTIONARY;
+    }
+
+    writeString(key);
+    out.writeByte(type);
+    writeBitmap(present);
+    if (type == BinaryGraphFormat.TYPE_STRING_DICTIONARY) {
+      String[] entries = new String[dictionary.size()];
+      dictionary.forEach((string, code) -> entries[code] = string);
+      out.writeInt(entries.length);
+      for (String entry : entries) {
+        writeString(entry);
+      }
+    }
+    for (PropertyValue value : values) {
+      if (value != null) {
+        writeValue(value, type, dictionary);
+      }
+    }
+  }
+
+  /**
+   * Writes a single property value.
+   *
+   * @param value the value
+   * @param type the encoding of the column
+   * @param dictionary the string dictionary of the column
+   * @throws IOException if writing fails
+   */
+  private void writeValue(PropertyValue value, byte type, Map<String, Integer> dictionary) throws IOException {
+    switch (type) {
+    case BinaryGraphFormat.TYPE_BOOLEAN:
+      out.writeBoolean(value.getBoolean());
+      break;
+    case BinaryGraphFormat.TYPE_SHORT:
+      out.writeShort(value.getShort());
+      break;
+    case BinaryGraphFormat.TYPE_INT:
+      out.writeInt(value.getInt());
+      break;
+    case BinaryGraphFormat.TYPE_LONG:
+      out.writeLong(value.getLong());
+      break;
+    case BinaryGraphFormat.TYPE_FLOAT:
+      out.writeFloat(value.getFloat());
+      break;
+    case BinaryGraphFormat.TYPE_DOUBLE:
+      out.writeDouble(value.getDouble());
+      break;
+    case BinaryGraphFormat.TYPE_STRING:
+      writeString(value.getString());
+      break;
+    case BinaryGraphFormat.TYPE_STRING_DICTIONARY:
+      out.writeInt(dictionary.get(value.getString()));
+      break;
+    default:
+      byte[] raw = value.getRawBytes();
+      out.writeInt(raw.length);
+      out.write(raw);
+      break;
+    }
+  }
+
+  /**
+   * Returns the column encoding of a property value.
+   *
+   * @param value the property value
+   * @return the encoding
+   */
+  private static byte getType(PropertyValue value) {
+    if (value.isBoolean()) {
+      return BinaryGraphFormat.TYPE_BOOLEAN;
+    } else if (value.isShort()) {
+      return BinaryGraphFormat.TYPE_SHORT;
+    } else if (value.isInt()) {
+      return BinaryGraphFormat.TYPE_INT;
+    } else if (value.isLong()) {
+      return BinaryGraphFormat.TYPE_LONG;
+    } else if (value.isFloat()) {
+      return BinaryGraphFormat.TYPE_FLOAT;
+    } else if (value.isDouble()) {
+      return BinaryGraphFormat.TYPE_DOUBLE;
+    } else if (value.isString()) {
+      return BinaryGraphFormat.TYPE_STRING;
+    }
+    return BinaryGraphFormat.TYPE_RAW;
+  }
+
+  /**
+   * Writes a UTF-8 string of arbitrary length.
+   *
+   * @param string the string
+   * @throws IOException if writing fails
+   */
+  private void writeString(String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Writes a bitmap.
+   *
+   * @param bitmap the bitmap
+   * @throws IOException if writing fails
+   */
+  private void writeBitmap(long[] bitmap) throws IOException {
+    for (long word : bitmap) {
+      out.writeLong(word);
+    }
+  }
+
+  /**
+   * Returns the number of words of a bitmap.
+   *
+   * @param bits the number of bits
+   * @return the number of words
+   */
+  static int bitmapLength(int bits) {
+    return (bits + 63) >>> 6;
+  }
+
+  /**
+   * Sets a bit of a bitmap.
+   *
+   * @param bitmap the bitmap
+   * @param bit the bit to set
+   */
+  private static void set(long[] bitmap, int bit) {
+    bitmap[bit >>> 6] |= 1L << bit;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      out.close();
+    } finally {
+      deflater.end();
+    }
+  }
+}
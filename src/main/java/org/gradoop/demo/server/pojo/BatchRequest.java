@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.pojo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A POJO class representing a batch of requests against the same database.
+ */
+public class BatchRequest {
+
+  /**
+   * The name of the database, overrides the database names of the contained requests.
+   */
+  private String dbName;
+
+  /**
+   * The snapshot requests.
+   */
+  private List<SnapshotRequest> snapshots = new ArrayList<>();
+
+  /**
+   * The difference requests.
+   */
+  private List<DifferenceRequest> differences = new ArrayList<>();
+
+  /**
+   * The grouping requests.
+   */
+  private List<KeyedGroupingRequest> groupings = new ArrayList<>();
+
+  /**
+   * True, if the property keys and labels of the database are requested as well.
+   */
+  private boolean metadata;
+
+  public String getDbName() {
+    return dbName;
+  }
+
+  public void setDbName(String dbName) {
+    this.dbName = dbName;
+  }
+
+  public List<SnapshotRequest> getSnapshots() {
+    return snapshots;
+  }
+
+  public void setSnapshots(List<SnapshotRequest> snapshots) {
+    this.snapshots = snapshots;
+  }
+
+  public List<DifferenceRequest> getDifferences() {
+    return differences;
+  }
+
+  public void setDifferences(List<DifferenceRequest> differences) {
+    this.differences = differences;
+  }
+
+  public List<KeyedGroupingRequest> getGroupings() {
+    return groupings;
+  }
+
+  public void setGroupings(List<KeyedGroupingRequest> groupings) {
+    this.groupings = groupings;
+  }
+
+  public boolean getMetadata() {
+    return metadata;
+  }
+
+  public void setMetadata(boolean metadata) {
+    this.metadata = metadata;
+  }
+}
@@ -60,6 +60,17 @@ public class DifferenceRequest {
    */
   private String timestamp22;
 
+  /**
+   * The viewport as {@code west,south,east,north}, only the vertices inside it and the edges touching them
+   * are returned. (Optional)
+   */
+  private String bbox;
+
+  /**
+   * How parallel edges are rendered, {@code count} or {@code aggregate} collapse them into one edge. (Optional)
+   */
+  private String collapseEdges;
+
   public String getDbName() {
     return dbName;
   }
@@ -123,4 +134,20 @@ public class DifferenceRequest {
   public void setTimestamp22(String timestamp22) {
     this.timestamp22 = timestamp22;
   }
+
+  public String getBbox() {
+    return bbox;
+  }
+
+  public void setBbox(String bbox) {
+    this.bbox = bbox;
+  }
+
+  public String getCollapseEdges() {
+    return collapseEdges;
+  }
+
+  public void setCollapseEdges(String collapseEdges) {
+    this.collapseEdges = collapseEdges;
+  }
 }
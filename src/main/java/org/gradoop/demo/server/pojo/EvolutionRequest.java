@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.pojo;
+
+/**
+ * A POJO class representing a request for the number of active vertices and edges per label over time.
+ */
+public class EvolutionRequest {
+
+  /**
+   * The name of the database.
+   */
+  private String dbName;
+
+  /**
+   * The time dimension to consider.
+   */
+  private String dimension;
+
+  /**
+   * The length of the time buckets, e.g., {@code DAYS} OR {@code MONTHS}. See
+   * {@link java.time.temporal.ChronoUnit} for all possible types.
+   */
+  private String unit;
+
+  /**
+   * The timestamp contained in the first bucket. (Optional, the earliest time of the dataset by default)
+   */
+  private String from;
+
+  /**
+   * The timestamp the last bucket ends at or after. (Optional, the latest time of the dataset by default)
+   */
+  private String to;
+
+  public String getDbName() {
+    return dbName;
+  }
+
+  public void setDbName(String dbName) {
+    this.dbName = dbName;
+  }
+
+  public String getDimension() {
+    return dimension;
+  }
+
+  public void setDimension(String dimension) {
+    this.dimension = dimension;
+  }
+
+  public String getUnit() {
+    return unit;
+  }
+
+  public void setUnit(String unit) {
+    this.unit = unit;
+  }
+
+  public String getFrom() {
+    return from;
+  }
+
+  public void setFrom(String from) {
+    this.from = from;
+  }
+
+  public String getTo() {
+    return to;
+  }
+
+  public void setTo(String to) {
+    this.to = to;
+  }
+}
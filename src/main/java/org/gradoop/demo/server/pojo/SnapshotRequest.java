@@ -45,6 +45,17 @@ public class SnapshotRequest {
    */
   private String timestamp2;
 
+  /**
+   * The viewport as {@code west,south,east,north}, only the vertices inside it and the edges touching them
+   * are returned. (Optional)
+   */
+  private String bbox;
+
+  /**
+   * How parallel edges are rendered, {@code count} or {@code aggregate} collapse them into one edge. (Optional)
+   */
+  private String collapseEdges;
+
   public String getDbName() {
     return dbName;
   }
@@ -84,4 +95,20 @@ public class SnapshotRequest {
   public void setTimestamp2(String timestamp2) {
     this.timestamp2 = timestamp2;
   }
+
+  public String getBbox() {
+    return bbox;
+  }
+
+  public void setBbox(String bbox) {
+    this.bbox = bbox;
+  }
+
+  public String getCollapseEdges() {
+    return collapseEdges;
+  }
+
+  public void setCollapseEdges(String collapseEdges) {
+    this.collapseEdges = collapseEdges;
+  }
 }
@@ -41,6 +41,21 @@ let defaultVertexDiameter = 60;
 
 let maxVertexDiameter = 120;
 
+/**
+ * The last response and its ETag of each query, used to revalidate repeated queries.
+ */
+let queryResponses = {};
+
+/**
+ * The running query of each endpoint, cancelled when it is replaced by a new query or the page is left.
+ */
+let runningQueries = {};
+
+/**
+ * The id of this page, so the server shares its query threads fairly between the open pages.
+ */
+let sessionId = Date.now().toString(36) + Math.random().toString(36).substring(2);
+
 /**----------------
  * Callbacks
  *------------------*/
@@ -54,6 +69,13 @@ $(document).on("change", '.redraw', function() {
     }
 });
 
+/**
+ * When the page is left, cancel all running queries, so the server stops computing them
+ */
+$(window).on("pagehide", function() {
+    Object.keys(runningQueries).forEach(cancelQuery);
+});
+
 /**---------------------
  * Utility Functions
  *-----------------------*/
@@ -67,6 +89,78 @@ function getSelectedDatabase() {
     return $('#databaseName').val();
 }
 
+/**
+ * Posts a query to the server. If the same query was answered before, the server is asked to confirm the
+ * previous response via its ETag and answers with 304 Not Modified instead of recomputing it.
+ *
+ * A query still running at the same endpoint is cancelled, since its result would be replaced anyway. If
+ * the server is too busy to accept the query, it is posted again after the time requested by the server.
+ *
+ * @param url the url of the query endpoint
+ * @param reqData the query
+ * @param success the callback receiving the response
+ */
+function postQuery(url, reqData, success) {
+    cancelQuery(url);
+    let body = JSON.stringify(reqData);
+    let previous = queryResponses[url + body];
+    let id = Date.now().toString(36) + Math.random().toString(36).substring(2);
+    let headers = {'X-Query-Id': id, 'X-Session-Id': sessionId};
+    if (previous) {
+        headers['If-None-Match'] = previous.etag;
+    }
+    let xhr = $.ajax({
+        url: url,
+        datatype: "text",
+        type: "post",
+        contentType: "application/json",
+        data: body,
+        headers: headers,
+        complete: function(xhr) {
+            if (!runningQueries[url] || runningQueries[url].id !== id) {
+                // the query was replaced or cancelled
+                return;
+            }
+            delete runningQueries[url];
+            let retryAfter = xhr.getResponseHeader('Retry-After');
+            if (xhr.status === 503 && retryAfter) {
+                let timer = setTimeout(function() {
+                    delete runningQueries[url];
+                    postQuery(url, reqData, success);
+                }, retryAfter * 1000);
+                runningQueries[url] = {id: id, xhr: {abort: function() { clearTimeout(timer); }}};
+            }
+        },
+        success: function(data, status, xhr) {
+            if (xhr.status === 304) {
+                success(previous.data);
+                return;
+            }
+            let etag = xhr.getResponseHeader('ETag');
+            if (etag) {
+                queryResponses[url + body] = {etag: etag, data: data};
+            }
+            success(data);
+        }
+    });
+    runningQueries[url] = {id: id, xhr: xhr};
+}
+
+/**
+ * Cancels the running query of an endpoint, both in the browser and on the server.
+ *
+ * @param url the url of the query endpoint
+ */
+function cancelQuery(url) {
+    let running = runningQueries[url];
+    if (!running) {
+        return;
+    }
+    delete runningQueries[url];
+    running.xhr.abort();
+    navigator.sendBeacon('http://localhost:2342/cancel/' + running.id);
+}
+
 /**
  * Retrieve the values of the specified element as Array
  *
@@ -79,16 +79,9 @@ $(document).on('click', ".execute-button", function () {
         timestamp22: getValues("#input-timestamp-2-2")
     };
 
-    $.ajax({
-        url: 'http://localhost:2342/difference/',
-        datatype: "text",
-        type: "post",
-        contentType: "application/json",
-        data: JSON.stringify(reqData),
-        success: function(data) {
-            drawGraph(data, true);
-            btn.removeClass('loading');
-        }
+    postQuery('http://localhost:2342/difference/', reqData, function(data) {
+        drawGraph(data, true);
+        btn.removeClass('loading');
     });
 });
 
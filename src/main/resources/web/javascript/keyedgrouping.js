@@ -79,17 +79,10 @@ $(document).on('click', ".execute-button", function () {
         filterAllEdges: getValues("#edgeFilters") === ["none"]
     };
 
-    $.ajax({
-        url: 'http://localhost:2342/keyedgrouping/',
-        datatype: "text",
-        type: "post",
-        contentType: "application/json",
-        data: JSON.stringify(reqData),
-        success: function(data) {
-            updateAdaptiveSizeSelects(data['node_keys'], data['edge_keys']);
-            drawGraph(data, true);
-            btn.removeClass('loading');
-        }
+    postQuery('http://localhost:2342/keyedgrouping/', reqData, function(data) {
+        updateAdaptiveSizeSelects(data['node_keys'], data['edge_keys']);
+        drawGraph(data, true);
+        btn.removeClass('loading');
     });
 });
 
@@ -68,16 +68,9 @@ $(document).on('click', ".execute-button", function () {
         timestamp2: getValues("#input-timestamp-2")
     };
 
-    $.ajax({
-        url: 'http://localhost:2342/snapshot/',
-        datatype: "text",
-        type: "post",
-        contentType: "application/json",
-        data: JSON.stringify(reqData),
-        success: function(data) {
-            drawGraph(data, true);
-            btn.removeClass('loading');
-        }
+    postQuery('http://localhost:2342/snapshot/', reqData, function(data) {
+        drawGraph(data, true);
+        btn.removeClass('loading');
     });
 });
 
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.engine;
+
+import org.gradoop.temporal.model.api.TimeDimension;
+import org.gradoop.temporal.model.impl.operators.keyedgrouping.keys.TimeStampKeyFunction;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertexFactory;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the time stamp keys encoded by {@link HashGrouping} with the keys of the
+ * {@link TimeStampKeyFunction} of Gradoop, which computes them from a {@link LocalDateTime}.
+ */
+public class HashGroupingTimeStampTest {
+
+  /**
+   * The times of the tests: the epoch, negative epochs, leap days and the boundaries of days, months,
+   * years and centuries.
+   */
+  private static final List<Long> TIMES = new ArrayList<>();
+
+  static {
+    String[] dates = {
+      "1970-01-01T00:00:00", "1969-12-31T23:59:59.999", "1969-12-31T00:00:00", "1900-01-01T00:00:00",
+      "1600-03-01T00:00:00", "0001-01-01T00:00:00", "0000-02-29T12:00:00", "-0001-12-31T23:59:59",
+      "-0400-02-29T00:00:00", "-4713-11-24T12:00:00",
+      "2000-02-28T23:59:59.999", "2000-02-29T00:00:00", "2000-02-29T23:59:59.999", "2000-03-01T00:00:00",
+      "1900-02-28T23:59:59", "1900-03-01T00:00:00", "2100-02-28T12:00:00", "2100-03-01T12:00:00",
+      "2016-02-29T06:30:15", "2016-12-31T23:59:59.999", "2017-01-01T00:00:00", "1999-12-31T23:59:59.999",
+      "2000-01-01T00:00:00", "2018-01-31T23:59:59", "2018-02-01T00:00:00", "2018-04-30T23:59:59",
+      "2018-05-01T00:00:00", "2018-06-30T12:00:00", "2018-07-01T12:00:00", "2018-09-30T23:00:00",
+      "2018-10-01T01:00:00", "2018-11-30T23:59:59", "2018-12-01T00:00:00", "2018-12-31T23:59:59.999",
+      "2019-01-01T00:00:00", "9999-12-31T23:59:59.999", "+10000-01-01T00:00:00"
+    };
+    for (String date : dates) {
+      TIMES.add(LocalDateTime.parse(date).toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+    // every day of a leap year and the following one
+    long day = 24L * 60 * 60 * 1000;
+    long start = LocalDateTime.parse("2020-01-01T00:00:00").toInstant(ZoneOffset.UTC).toEpochMilli();
+    for (int i = 0; i < 2 * 366; i++) {
+      TIMES.add(start + i * day + i * 3_601_001L % day);
+    }
+    // random times of +/- 10,000 years around the epoch
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      TIMES.add((long) ((random.nextDouble() * 2 - 1) * 10_000 * 365.2425 * day));
+    }
+    TIMES.add(Long.MIN_VALUE);
+    TIMES.add(Long.MAX_VALUE);
+  }
+
+  /**
+   * Compares the keys of the time stamps themselves.
+   */
+  @Test
+  public void testTimeStamp() {
+    compare(null);
+  }
+
+  /**
+   * Compares the keys of every field supported by a {@link LocalDateTime}.
+   */
+  @Test
+  public void testFields() {
+    for (ChronoField field : ChronoField.values()) {
+      if (LocalDateTime.MIN.isSupported(field)) {
+        compare(field);
+      }
+    }
+  }
+
+  /**
+   * Compares the keys of a field for both bounds and time dimensions of all test times.
+   *
+   * @param field the field of the time stamp, {@code null} for the time stamp itself
+   */
+  private static void compare(ChronoField field) {
+    TemporalVertex vertex = new TemporalVertexFactory().createVertex();
+    for (TimeDimension dimension : TimeDimension.values()) {
+      for (TimeDimension.Field bound : TimeDimension.Field.values()) {
+        NativeGroupingKeys.TimeStampKey<TemporalElement> key =
+          NativeGroupingKeys.timeStamp(dimension, bound, field);
+        HashGrouping.KeyColumn<TemporalElement> column = HashGrouping.createColumn(key);
+        long[] row = new long[column.getWidth()];
+        for (long time : TIMES) {
+          vertex.setValidFrom(TemporalElement.DEFAULT_TIME_FROM);
+          vertex.setValidTo(TemporalElement.DEFAULT_TIME_TO);
+          vertex.setTxFrom(TemporalElement.DEFAULT_TIME_FROM);
+          vertex.setTxTo(TemporalElement.DEFAULT_TIME_TO);
+          setTime(vertex, dimension, bound, time);
+          Long expected;
+          try {
+            expected = key.getKey(vertex);
+          } catch (RuntimeException e) {
+            // the time is out of the range of a LocalDateTime
+            continue;
+          }
+          column.encode(vertex, key, row, 0);
+          assertEquals(field + " of " + dimension + " " + bound + " at " + time, expected,
+            column.decode(row, 0, key));
+        }
+      }
+    }
+  }
+
+  /**
+   * Sets a time of an element.
+   *
+   * @param element the element
+   * @param dimension the time dimension
+   * @param bound the bound of the time interval
+   * @param time the time
+   */
+  private static void setTime(TemporalElement element, TimeDimension dimension, TimeDimension.Field bound,
+    long time) {
+    if (dimension == TimeDimension.VALID_TIME) {
+      if (bound == TimeDimension.Field.FROM) {
+        element.setValidFrom(time);
+      } else {
+        element.setValidTo(time);
+      }
+    } else if (bound == TimeDimension.Field.FROM) {
+      element.setTxFrom(time);
+    } else {
+      element.setTxTo(time);
+    }
+  }
+}
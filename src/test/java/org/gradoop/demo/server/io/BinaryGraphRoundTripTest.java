@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2014 - 2021 Leipzig University (Database Research Group)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradoop.demo.server.io;
+
+import org.apache.flink.api.java.ExecutionEnvironment;
+import org.gradoop.temporal.io.impl.csv.TemporalCSVDataSink;
+import org.gradoop.temporal.io.impl.csv.TemporalCSVDataSource;
+import org.gradoop.temporal.model.impl.TemporalGraph;
+import org.gradoop.temporal.model.impl.pojo.TemporalEdge;
+import org.gradoop.temporal.model.impl.pojo.TemporalElement;
+import org.gradoop.temporal.model.impl.pojo.TemporalGraphHead;
+import org.gradoop.temporal.model.impl.pojo.TemporalVertex;
+import org.gradoop.temporal.util.TemporalGradoopConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Converts the CSV files of the bundled datasets into binary files and back into CSV files, and checks that
+ * every element survives both conversions unchanged.
+ */
+public class BinaryGraphRoundTripTest {
+
+  /**
+   * The directory of the converted files.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Converts a dataset without properties on most of its elements and with unbounded intervals.
+   *
+   * @throws Exception if a conversion fails
+   */
+  @Test
+  public void testExample() throws Exception {
+    testRoundTrip("Example");
+  }
+
+  /**
+   * Converts a dataset with properties of several types, including dates.
+   *
+   * @throws Exception if a conversion fails
+   */
+  @Test
+  public void testLdbc() throws Exception {
+    testRoundTrip("LDBC-100-Persons");
+  }
+
+  /**
+   * Converts the CSV files of a dataset into binary files and back into CSV files.
+   *
+   * @param databaseName the name of the dataset
+   * @throws Exception if a conversion fails
+   */
+  private void testRoundTrip(String databaseName) throws Exception {
+    ExecutionEnvironment env = ExecutionEnvironment.createLocalEnvironment(1);
+    TemporalGradoopConfig config = TemporalGradoopConfig.createConfig(env);
+
+    // the bundled dataset is copied, so no binary files are written next to it
+    File csv = copyDataset(databaseName, folder.newFolder("csv"));
+    TemporalGraph original = new TemporalCSVDataSource(csv.getPath(), config).getTemporalGraph();
+    List<TemporalGraphHead> graphHeads = original.getGraphHead().collect();
+    List<TemporalVertex> vertices = original.getVertices().collect();
+    List<TemporalEdge> edges = original.getEdges().collect();
+
+    File binary = folder.newFolder("binary");
+    new BinaryGraphSink(binary.getPath(), config).write(graphHeads, vertices, edges, false);
+    assertTrue(BinaryGraphFormat.exists(binary));
+    BinaryGraphSource source = new BinaryGraphSource(binary.getPath(), config);
+    assertGraphHeadsEqual(graphHeads, source.readGraphHeads());
+    assertVerticesEqual(vertices, source.readVertices());
+    assertEdgesEqual(edges, source.readEdges());
+
+    File converted = new File(folder.getRoot(), "converted");
+    new TemporalCSVDataSink(converted.getPath(), config).write(source.getTemporalGraph());
+    env.execute();
+    TemporalGraph result = new TemporalCSVDataSource(converted.getPath(), config).getTemporalGraph();
+    assertGraphHeadsEqual(graphHeads, result.getGraphHead().collect());
+    assertVerticesEqual(vertices, result.getVertices().collect());
+    assertEdgesEqual(edges, result.getEdges().collect());
+  }
+
+  /**
+   * Copies the CSV files of a bundled dataset.
+   *
+   * @param databaseName the name of the dataset
+   * @param target the directory to copy the files to
+   * @return the directory of the copy
+   * @throws Exception if copying fails
+   */
+  private static File copyDataset(String databaseName, File target) throws Exception {
+    File dataset = new File(Objects.requireNonNull(
+      BinaryGraphRoundTripTest.class.getResource("/data/" + databaseName)).toURI());
+    for (File file : Objects.requireNonNull(dataset.listFiles((dir, name) -> name.endsWith(".csv")))) {
+      Files.copy(file.toPath(), new File(target, file.getName()).toPath());
+    }
+    return target;
+  }
+
+  /**
+   * Checks that two lists contain the same graph heads, in any order.
+   *
+   * @param expected the expected graph heads
+   * @param actual the actual graph heads
+   */
+  private static void assertGraphHeadsEqual(List<TemporalGraphHead> expected, List<TemporalGraphHead> actual) {
+    assertEquals(describe(expected, head -> ""), describe(actual, head -> ""));
+  }
+
+  /**
+   * Checks that two lists contain the same vertices, in any order.
+   *
+   * @param expected the expected vertices
+   * @param actual the actual vertices
+   */
+  private static void assertVerticesEqual(List<TemporalVertex> expected, List<TemporalVertex> actual) {
+    assertEquals(describe(expected, vertex -> vertex.getGraphIds().toString()),
+      describe(actual, vertex -> vertex.getGraphIds().toString()));
+  }
+
+  /**
+   * Checks that two lists contain the same edges, in any order.
+   *
+   * @param expected the expected edges
+   * @param actual the actual edges
+   */
+  private static void assertEdgesEqual(List<TemporalEdge> expected, List<TemporalEdge> actual) {
+    assertEquals(describe(expected, BinaryGraphRoundTripTest::describeEdge),
+      describe(actual, BinaryGraphRoundTripTest::describeEdge));
+  }
+
+  /**
+   * Returns the graphs, source and target of an edge.
+   *
+   * @param edge the edge
+   * @return the description of the edge
+   */
+  private static String describeEdge(TemporalEdge edge) {
+    return edge.getGraphIds() + " " + edge.getSourceId() + "->" + edge.getTargetId();
+  }
+
+  /**
+   * Describes each element by its id, label, properties and time intervals, sorted by id. Gradoop compares
+   * elements by their ids only, so their descriptions are compared instead.
+   *
+   * @param elements the elements
+   * @param details the description of the fields of the element type
+   * @param <E> the element type
+   * @return the descriptions of the elements
+   */
+  private static <E extends TemporalElement> List<String> describe(List<E> elements,
+    Function<E, String> details) {
+    List<E> sorted = new ArrayList<>(elements);
+    sorted.sort(Comparator.comparing(TemporalElement::getId));
+    List<String> descriptions = new ArrayList<>();
+    for (E element : sorted) {
+      // the properties are sorted by key, since their order is not preserved
+      TreeMap<String, String> properties = new TreeMap<>();
+      if (element.getProperties() != null) {
+        element.getProperties().forEach(property ->
+          properties.put(property.getKey(), property.getValue().getType() + ":" + property.getValue()));
+      }
+      descriptions.add(element.getId() + " " + element.getLabel() + " " + properties + " " +
+        element.getValidTime() + " " + element.getTransactionTime() + " " + details.apply(element));
+    }
+    return descriptions;
+  }
+}